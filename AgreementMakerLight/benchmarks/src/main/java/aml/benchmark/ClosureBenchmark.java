@@ -0,0 +1,109 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Benchmark of the transitive closure of the RelationshipMap, on a random     *
+* class hierarchy of configurable size with subclass and (transitive) part of *
+* relationships. The hierarchy is the same for all invocations, and the       *
+* RelationshipMap is rebuilt before each one.                                 *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aml.ontology.RelationshipMap;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClosureBenchmark
+{
+
+//Attributes
+	
+	//The id of the part of property (class ids start at 1)
+	private static final int PART_OF = 0;
+	private static final int IS_A = -1;
+	
+	@Param({"10000", "50000"})
+	public int classes;
+	//The direct relationships (child, parent, property)
+	private int[] children;
+	private int[] parents;
+	private int[] properties;
+	private RelationshipMap rels;
+	
+//Public Methods
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		Random rnd = new Random(42);
+		int size = 0;
+		children = new int[classes*2];
+		parents = new int[classes*2];
+		properties = new int[classes*2];
+		//Each class has a parent among the previous classes, and one in
+		//ten classes has a second parent
+		for(int i = 2; i <= classes; i++)
+		{
+			int count = rnd.nextInt(10) == 0 ? 2 : 1;
+			for(int j = 0; j < count; j++)
+			{
+				children[size] = i;
+				parents[size] = 1 + rnd.nextInt(i-1);
+				properties[size] = rnd.nextInt(5) == 0 ? PART_OF : IS_A;
+				size++;
+			}
+		}
+		children = Arrays.copyOf(children, size);
+		parents = Arrays.copyOf(parents, size);
+		properties = Arrays.copyOf(properties, size);
+	}
+	
+	@Setup(Level.Invocation)
+	public void build()
+	{
+		rels = new RelationshipMap();
+		rels.addTransitive(PART_OF);
+		for(int i = 0; i < children.length; i++)
+			rels.addClassRelationship(children[i], parents[i], properties[i], false);
+	}
+	
+	@Benchmark
+	public RelationshipMap transitiveClosure()
+	{
+		rels.transitiveClosure();
+		return rels;
+	}
+}
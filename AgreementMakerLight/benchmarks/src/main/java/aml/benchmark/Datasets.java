@@ -0,0 +1,82 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The ontology pairs available to the benchmarks: 'anatomy' is the mouse-     *
+* human pair in the AML store, and 'synthetic-N' is a pair of synthetic       *
+* ontologies with N source classes, which is generated the first time it is   *
+* used.                                                                       *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import aml.AML;
+
+public class Datasets
+{
+
+//Attributes
+	
+	private static final String ANATOMY = "anatomy";
+	private static final String SYNTHETIC = "synthetic-";
+	//The seed for generating synthetic ontologies, so that all runs
+	//of the benchmarks use the same ontologies
+	private static final long SEED = 42;
+	//The synthetic ontologies already generated (classes -> files)
+	private static HashMap<Integer,File[]> synthetic = new HashMap<Integer,File[]>();
+	
+//Constructors
+	
+	private Datasets(){}
+	
+//Public Methods
+	
+	/**
+	 * @param dataset: the name of the dataset
+	 * @return the paths to the source and target ontologies of the dataset
+	 * @throws IOException if unable to generate a synthetic dataset
+	 */
+	public static synchronized String[] getOntologies(String dataset) throws IOException
+	{
+		if(dataset.equals(ANATOMY))
+		{
+			String store = AML.getInstance().getPath() + "store/anatomy/";
+			String[] paths = {store + "mouse.owl", store + "human.owl"};
+			return paths;
+		}
+		else if(dataset.startsWith(SYNTHETIC))
+		{
+			int classes = Integer.parseInt(dataset.substring(SYNTHETIC.length()));
+			File[] files = synthetic.get(classes);
+			if(files == null)
+			{
+				File dir = File.createTempFile("aml-benchmark", "");
+				dir.delete();
+				dir.mkdir();
+				dir.deleteOnExit();
+				files = SyntheticOntology.generate(classes, SEED, dir);
+				for(File f : files)
+					f.deleteOnExit();
+				synthetic.put(classes, files);
+			}
+			String[] paths = {files[0].getAbsolutePath(), files[1].getAbsolutePath()};
+			return paths;
+		}
+		throw new IllegalArgumentException("Unknown dataset: " + dataset);
+	}
+}
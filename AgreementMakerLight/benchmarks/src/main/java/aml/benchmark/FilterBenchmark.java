@@ -0,0 +1,94 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Benchmarks of the Selector, on the alignment of the LexicalMatcher and      *
+* WordMatcher, and of the Repairer, on that alignment after selection. Each   *
+* invocation works on a fresh copy of the alignment (and the Repairer builds  *
+* its RepairMap within the benchmark).                                        *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aml.filter.Repairer;
+import aml.filter.Selector;
+import aml.match.Alignment;
+import aml.match.LexicalMatcher;
+import aml.match.WordMatcher;
+import aml.settings.EntityType;
+import aml.settings.SelectionType;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark
+{
+
+//Attributes
+	
+	//The alignment to select
+	private Alignment candidates;
+	//The selected alignment to repair (as in AML, since the RepairMap
+	//of an alignment with many conflicting mappings is much larger)
+	private Alignment selected;
+	//The copy of the alignment to select for each invocation
+	private Alignment copy;
+	
+//Public Methods
+	
+	@Setup(Level.Trial)
+	public void setup(OntologyState state) throws Exception
+	{
+		candidates = new LexicalMatcher().match(EntityType.CLASS, 0.5);
+		candidates.addAll(new WordMatcher().match(EntityType.CLASS, 0.5));
+		selected = new Selector(0.6, SelectionType.STRICT).filter(new Alignment(candidates));
+	}
+	
+	@Setup(Level.Invocation)
+	public void copy(OntologyState state)
+	{
+		copy = new Alignment(candidates);
+		state.aml.setAlignment(new Alignment(selected));
+	}
+	
+	@Benchmark
+	public Alignment selector(OntologyState state)
+	{
+		return new Selector(0.6, SelectionType.STRICT).filter(copy);
+	}
+	
+	@Benchmark
+	public Alignment repairer(OntologyState state)
+	{
+		new Repairer().filter();
+		return state.aml.getAlignment();
+	}
+}
@@ -0,0 +1,96 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Benchmarks of the matchers used in automatic matching. The                  *
+* NeighborSimilarityMatcher extends the alignment of the LexicalMatcher, as   *
+* it does in automatic matching.                                              *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aml.match.Alignment;
+import aml.match.LexicalMatcher;
+import aml.match.NeighborSimilarityMatcher;
+import aml.match.StringMatcher;
+import aml.match.WordMatcher;
+import aml.settings.EntityType;
+import aml.settings.WordMatchStrategy;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MatcherBenchmark
+{
+
+//Attributes
+	
+	//The alignment extended by the NeighborSimilarityMatcher
+	private Alignment lexical;
+	
+//Public Methods
+	
+	@Setup
+	public void setup(OntologyState state) throws Exception
+	{
+		lexical = new LexicalMatcher().match(EntityType.CLASS, 0.6);
+	}
+	
+	@Benchmark
+	public Alignment lexicalMatcher(OntologyState state) throws Exception
+	{
+		return new LexicalMatcher().match(EntityType.CLASS, 0.6);
+	}
+
+	@Benchmark
+	public Alignment stringMatcher(OntologyState state) throws Exception
+	{
+		return new StringMatcher().match(EntityType.CLASS, 0.7);
+	}
+
+	@Benchmark
+	public Alignment wordMatcher(OntologyState state) throws Exception
+	{
+		return new WordMatcher().match(EntityType.CLASS, 0.6);
+	}
+	
+	@Benchmark
+	public Alignment wordMatcherByClass(OntologyState state) throws Exception
+	{
+		//Isolates the word-overlap scoring from the name similarity
+		return new WordMatcher(WordMatchStrategy.BY_CLASS).match(EntityType.CLASS, 0.6);
+	}
+	
+	@Benchmark
+	public Alignment neighborSimilarityMatcher(OntologyState state) throws Exception
+	{
+		return new NeighborSimilarityMatcher().extendAlignment(lexical, EntityType.CLASS, 0.6);
+	}
+}
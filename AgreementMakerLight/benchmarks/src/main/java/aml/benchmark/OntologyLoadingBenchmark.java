@@ -0,0 +1,99 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Benchmarks of ontology loading, which includes parsing both ontologies,     *
+* building their lexicons and the transitive closure of the RelationshipMap,  *
+* against loading the same ontologies from a snapshot.                        *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aml.AML;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OntologyLoadingBenchmark
+{
+
+//Attributes
+	
+	@Param({"anatomy", "synthetic-2000"})
+	public String dataset;
+	private String[] paths;
+	//The directory with the snapshot of the ontologies
+	private File snapshots;
+	
+//Public Methods
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		paths = Datasets.getOntologies(dataset);
+		snapshots = File.createTempFile("aml-snapshot", "");
+		snapshots.delete();
+		snapshots.mkdir();
+		//Open the ontologies once to save their snapshot
+		AML aml = AML.getInstance();
+		aml.setSnapshotCache(snapshots.getAbsolutePath());
+		aml.openOntologies(paths[0], paths[1]);
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		AML.getInstance().setSnapshotCache(null);
+		for(File f : snapshots.listFiles())
+			f.delete();
+		snapshots.delete();
+	}
+	
+	@Benchmark
+	public AML openOntologies() throws Exception
+	{
+		AML aml = AML.getInstance();
+		aml.setSnapshotCache(null);
+		aml.openOntologies(paths[0], paths[1]);
+		return aml;
+	}
+	
+	@Benchmark
+	public AML openOntologiesFromSnapshot() throws Exception
+	{
+		AML aml = AML.getInstance();
+		aml.setSnapshotCache(snapshots.getAbsolutePath());
+		aml.openOntologies(paths[0], paths[1]);
+		return aml;
+	}
+}
@@ -0,0 +1,48 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Benchmark state with an ontology pair open in AML, shared by the matcher    *
+* and filter benchmarks.                                                      *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import aml.AML;
+
+@State(Scope.Benchmark)
+public class OntologyState
+{
+
+//Attributes
+	
+	@Param({"anatomy", "synthetic-2000"})
+	public String dataset;
+	public AML aml;
+	
+//Public Methods
+	
+	@Setup
+	public void open() throws Exception
+	{
+		aml = AML.getInstance();
+		String[] paths = Datasets.getOntologies(dataset);
+		aml.openOntologies(paths[0], paths[1]);
+	}
+}
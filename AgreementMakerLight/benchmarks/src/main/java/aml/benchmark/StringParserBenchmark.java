@@ -0,0 +1,107 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Throughput benchmark of the StringParser, which normalizes and classifies   *
+* all the annotation values and local names of the anatomy ontologies in each *
+* operation.                                                                  *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.io.File;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import aml.util.StringParser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StringParserBenchmark
+{
+
+//Attributes
+	
+	//The raw names, as they are read from the ontologies
+	private Vector<String> names;
+	
+//Public Methods
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		names = new Vector<String>();
+		for(String path : Datasets.getOntologies("anatomy"))
+		{
+			OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+			OWLOntology o = manager.loadOntologyFromOntologyDocument(new File(path));
+			for(OWLAnnotationAssertionAxiom a : o.getAxioms(AxiomType.ANNOTATION_ASSERTION))
+				if(a.getValue() instanceof OWLLiteral)
+					names.add(((OWLLiteral)a.getValue()).getLiteral());
+			for(OWLEntity e : o.getSignature())
+				names.add(e.getIRI().getFragment() == null ? e.getIRI().toString() : e.getIRI().getFragment());
+		}
+	}
+	
+	@Benchmark
+	public void isFormula(Blackhole b)
+	{
+		for(String n : names)
+			b.consume(StringParser.isFormula(n));
+	}
+	
+	@Benchmark
+	public void normalizeFormula(Blackhole b)
+	{
+		for(String n : names)
+			b.consume(StringParser.normalizeFormula(n));
+	}
+	
+	@Benchmark
+	public void normalizeName(Blackhole b)
+	{
+		for(String n : names)
+			b.consume(StringParser.normalizeName(n));
+	}
+
+	@Benchmark
+	public void normalizeProperty(Blackhole b)
+	{
+		for(String n : names)
+			b.consume(StringParser.normalizeProperty(n));
+	}
+}
@@ -0,0 +1,102 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Average time per call of each String similarity measure registered in       *
+* StringSimilarityMeasures, over a fixed random sample of pairs of class      *
+* names from the anatomy ontologies, with and without a minimum similarity.   *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aml.AML;
+import aml.settings.EntityType;
+import aml.util.StringSimilarityMeasure;
+import aml.util.StringSimilarityMeasures;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StringSimilarityBenchmark
+{
+
+//Attributes
+	
+	private static final int PAIRS = 10000;
+	//The minimum similarity for the threshold-aware calls
+	private static final double MIN = 0.7;
+	@Param({"ISub", "Levenstein", "Jaro-Winkler", "Q-gram"})
+	public String measure;
+	private StringSimilarityMeasure m;
+	private String[] sources;
+	private String[] targets;
+	
+//Public Methods
+	
+	@Setup
+	public void setup() throws Exception
+	{
+		m = StringSimilarityMeasures.get(measure);
+		AML aml = AML.getInstance();
+		String[] paths = Datasets.getOntologies("anatomy");
+		aml.openOntologies(paths[0], paths[1]);
+		Vector<String> sourceNames = new Vector<String>(aml.getSource().getLexicon().getNames(EntityType.CLASS));
+		Vector<String> targetNames = new Vector<String>(aml.getTarget().getLexicon().getNames(EntityType.CLASS));
+		Random r = new Random(42);
+		sources = new String[PAIRS];
+		targets = new String[PAIRS];
+		for(int i = 0; i < PAIRS; i++)
+		{
+			sources[i] = sourceNames.get(r.nextInt(sourceNames.size()));
+			targets[i] = targetNames.get(r.nextInt(targetNames.size()));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void similarity(Blackhole b)
+	{
+		for(int i = 0; i < PAIRS; i++)
+			b.consume(m.getSimilarity(sources[i], targets[i]));
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void similarityAboveMinimum(Blackhole b)
+	{
+		for(int i = 0; i < PAIRS; i++)
+			b.consume(m.getSimilarity(sources[i], targets[i], MIN));
+	}
+}
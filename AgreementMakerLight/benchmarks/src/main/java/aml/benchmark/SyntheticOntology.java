@@ -0,0 +1,189 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Generator of synthetic pairs of ontologies of configurable size, with a     *
+* random class hierarchy, disjoint top-level classes and labels built from a  *
+* random vocabulary. The target ontology reuses most source concepts with     *
+* perturbed labels and a few misplaced classes, so that matchers, selection   *
+* and repair all have work to do.                                             *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+public class SyntheticOntology
+{
+
+//Attributes
+	
+	private static final String SOURCE_URI = "http://synthetic.owl/source";
+	private static final String TARGET_URI = "http://synthetic.owl/target";
+	private static final String[] SYLLABLES = {"ba","ce","di","fo","gu","ha","je","ki","lo","mu",
+		"na","pe","qui","ro","su","ta","ve","xi","yo","zu","an","el","in","or","um"};
+	//The number of top-level classes, which are pairwise disjoint
+	private static final int ROOTS = 12;
+	
+//Constructors
+	
+	private SyntheticOntology(){}
+	
+//Public Methods
+	
+	/**
+	 * Generates a pair of synthetic ontologies and saves them as OWL files
+	 * @param classes: the number of classes in the source ontology
+	 * @param seed: the seed of the random generator
+	 * @param dir: the directory where to save the ontologies
+	 * @return the source and target ontology files
+	 * @throws FileNotFoundException if unable to create the files
+	 */
+	public static File[] generate(int classes, long seed, File dir) throws FileNotFoundException
+	{
+		Random rnd = new Random(seed);
+		//Build the vocabulary
+		String[] vocabulary = new String[Math.max(500, classes/4)];
+		for(int i = 0; i < vocabulary.length; i++)
+		{
+			int length = 2 + rnd.nextInt(3);
+			String word = "";
+			for(int j = 0; j < length; j++)
+				word += SYLLABLES[rnd.nextInt(SYLLABLES.length)];
+			vocabulary[i] = word;
+		}
+		//Build the source concepts: each has a label of 1-4 words and a
+		//parent among the previous concepts (except for the roots)
+		String[] labels = new String[classes];
+		int[] parents = new int[classes];
+		for(int i = 0; i < classes; i++)
+		{
+			int length = 1 + rnd.nextInt(4);
+			String label = vocabulary[rnd.nextInt(vocabulary.length)];
+			for(int j = 1; j < length; j++)
+				label += " " + vocabulary[rnd.nextInt(vocabulary.length)];
+			labels[i] = label;
+			if(i < ROOTS)
+				parents[i] = -1;
+			else
+				parents[i] = rnd.nextInt(i);
+		}
+		File source = new File(dir, "synthetic-" + classes + "-source.owl");
+		save(source, SOURCE_URI, labels, parents);
+		
+		//Build the target concepts from most of the source concepts
+		int extra = classes/5;
+		String[] targetLabels = new String[classes + extra];
+		int[] targetParents = new int[classes + extra];
+		for(int i = 0; i < classes; i++)
+		{
+			//Leave out some concepts (but not the roots)
+			if(i >= ROOTS && rnd.nextInt(10) < 2)
+			{
+				targetLabels[i] = null;
+				continue;
+			}
+			String[] words = labels[i].split(" ");
+			int change = rnd.nextInt(20);
+			//Reverse the word order
+			if(change < 3 && words.length > 1)
+			{
+				for(int j = 0; j < words.length/2; j++)
+				{
+					String w = words[j];
+					words[j] = words[words.length-1-j];
+					words[words.length-1-j] = w;
+				}
+			}
+			//Replace a word
+			else if(change < 6)
+				words[rnd.nextInt(words.length)] = vocabulary[rnd.nextInt(vocabulary.length)];
+			//Swap two adjacent characters of a word
+			else if(change < 10)
+			{
+				int j = rnd.nextInt(words.length);
+				char[] c = words[j].toCharArray();
+				int k = rnd.nextInt(c.length-1);
+				char x = c[k];
+				c[k] = c[k+1];
+				c[k+1] = x;
+				words[j] = new String(c);
+			}
+			String label = words[0];
+			for(int j = 1; j < words.length; j++)
+				label += " " + words[j];
+			targetLabels[i] = label;
+			//Keep the nearest ancestor that is also in the target,
+			//except for a few misplaced classes
+			if(i < ROOTS)
+				targetParents[i] = -1;
+			else if(rnd.nextInt(100) < 3)
+				targetParents[i] = rnd.nextInt(ROOTS);
+			else
+			{
+				int p = parents[i];
+				while(targetLabels[p] == null)
+					p = parents[p];
+				targetParents[i] = p;
+			}
+		}
+		//Then add some classes with new labels
+		for(int i = classes; i < classes + extra; i++)
+		{
+			targetLabels[i] = vocabulary[rnd.nextInt(vocabulary.length)] + " " +
+					vocabulary[rnd.nextInt(vocabulary.length)];
+			do
+				targetParents[i] = rnd.nextInt(i);
+			while(targetLabels[targetParents[i]] == null);
+		}
+		File target = new File(dir, "synthetic-" + classes + "-target.owl");
+		save(target, TARGET_URI, targetLabels, targetParents);
+		File[] files = {source, target};
+		return files;
+	}
+	
+//Private Methods
+	
+	//Saves an ontology in RDF/XML (null labels are skipped)
+	private static void save(File file, String uri, String[] labels, int[] parents) throws FileNotFoundException
+	{
+		PrintWriter out = new PrintWriter(file);
+		out.println("<?xml version=\"1.0\"?>");
+		out.println("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"");
+		out.println("     xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"");
+		out.println("     xmlns:owl=\"http://www.w3.org/2002/07/owl#\"");
+		out.println("     xml:base=\"" + uri + "\">");
+		out.println("    <owl:Ontology rdf:about=\"" + uri + "\"/>");
+		for(int i = 0; i < labels.length; i++)
+		{
+			if(labels[i] == null)
+				continue;
+			out.println("    <owl:Class rdf:about=\"" + uri + "#C" + i + "\">");
+			out.println("        <rdfs:label>" + labels[i] + "</rdfs:label>");
+			if(parents[i] > -1)
+				out.println("        <rdfs:subClassOf rdf:resource=\"" + uri + "#C" + parents[i] + "\"/>");
+			//The top-level classes are disjoint with each other
+			else
+				for(int j = 0; j < ROOTS; j++)
+					if(j != i)
+						out.println("        <owl:disjointWith rdf:resource=\"" + uri + "#C" + j + "\"/>");
+			out.println("    </owl:Class>");
+		}
+		out.println("</rdf:RDF>");
+		out.close();
+	}
+}
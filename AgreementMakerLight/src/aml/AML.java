@@ -25,14 +25,19 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileReader;
+import java.io.IOException;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.UIManager;
 
 import org.apache.log4j.PropertyConfigurator;
+import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 
 import aml.ext.ParenthesisExtender;
@@ -49,7 +54,9 @@ import aml.match.Mapping;
 import aml.match.UnsupportedEntityTypeException;
 import aml.match.Alignment;
 import aml.match.AutomaticMatcher;
+import aml.ontology.NameDictionary;
 import aml.ontology.Ontology;
+import aml.ontology.OntologySnapshot;
 import aml.ontology.RelationshipMap;
 import aml.ontology.URIMap;
 import aml.settings.Problem;
@@ -70,6 +77,7 @@ import aml.ui.OntologyFileChooser;
 import aml.util.ExtensionFilter;
 import aml.util.InteractionManager;
 import aml.util.Similarity;
+import aml.util.TaskScheduler;
 
 public class AML
 {
@@ -82,6 +90,7 @@ public class AML
 	private String dir;
 	//The ontology and alignment data structures
 	private URIMap uris;
+	private NameDictionary names;
 	private RelationshipMap rels;
 	private Ontology source;
 	private Ontology target;
@@ -90,6 +99,15 @@ public class AML
 	private Alignment ref;
 	private RepairMap rep;
 	private QualityFlagger qf;
+	//The scheduler for parallel tasks (shared by all matchers and filters)
+	private TaskScheduler scheduler;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int maxInFlightTasks = 0; //0 means 4 tasks per thread
+	private int maxConcurrentBlocks = 0; //0 means 1 block pair per thread
+	//The directory where WordLexicons are saved (null means they aren't)
+	private String wordLexiconCache = null;
+	//The directory where snapshots of loaded ontologies are saved (null means they aren't)
+	private String snapshotCache = null;
 	//The user interaction manager
 	//(for handling simulated interactions)
 	private InteractionManager im;
@@ -101,6 +119,7 @@ public class AML
 	//General matching settings
 	private boolean useReasoner = false;
 	private boolean matchSameURI = false;
+	private boolean compactClosure = true;
 	private boolean matchClasses;
 	private boolean matchIndividuals;
 	private boolean matchProperties;
@@ -145,8 +164,9 @@ public class AML
 	//It's private so that no other instances can be created 
 	private AML()
 	{
-        //Initialize the URIMap and RelationshipMap
+        //Initialize the URIMap, NameDictionary and RelationshipMap
 		uris = new URIMap();
+		names = new NameDictionary();
 		rels = new RelationshipMap();
 		dir = "";
 		try
@@ -206,10 +226,20 @@ public class AML
     	target = null;
     	bk = null;
     	uris = null;
+    	names = null;
     	rels = null;
     	closeAlignment();
     }
     
+	/**
+	 * @return whether the class hierarchy is frozen in compact
+	 * form after the transitive closure
+	 */
+	public boolean compactClosure()
+	{
+		return compactClosure;
+	}
+	
     /**
      * Sets up the default matching configuration for the ontologies
      */
@@ -474,6 +504,28 @@ public class AML
 		return lang;
 	}
 	
+	/**
+	 * @return the maximum number of tasks that each parallel matching
+	 * step can have in flight in the TaskScheduler
+	 */
+	public int getMaxInFlightTasks()
+	{
+		if(maxInFlightTasks > 0)
+			return maxInFlightTasks;
+		return 4 * threads;
+	}
+	
+	/**
+	 * @return the maximum number of WordLexicon block pairs that the
+	 * WordMatcher can match at the same time
+	 */
+	public int getMaxConcurrentBlocks()
+	{
+		if(maxConcurrentBlocks > 0)
+			return maxConcurrentBlocks;
+		return threads;
+	}
+	
 	/**
 	 * @return the selected matching steps
 	 */
@@ -535,6 +587,26 @@ public class AML
 		return rep;
 	}
 	
+	/**
+	 * @return the TaskScheduler for running parallel tasks, which
+	 * is created on the first call and reused thereafter
+	 */
+	public TaskScheduler getScheduler()
+	{
+		if(scheduler == null)
+			scheduler = new TaskScheduler(threads);
+		return scheduler;
+	}
+	
+	/**
+	 * @return the directory where snapshots of loaded ontology pairs
+	 * are saved for reuse by later runs, or null if they aren't saved
+	 */
+	public String getSnapshotCache()
+	{
+		return snapshotCache;
+	}
+	
 	/**
 	 * @return the selected background knowledge sources
 	 */
@@ -615,6 +687,14 @@ public class AML
 		return targetIndividualsToMatch;
 	}
 
+	/**
+	 * @return the number of threads used for parallel tasks
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+	
 	/**
 	 * @return the active similarity threshold
 	 */
@@ -623,6 +703,14 @@ public class AML
     	return threshold;
     }
     
+	/**
+	 * @return the NameDictionary
+	 */
+	public NameDictionary getNameDictionary()
+	{
+		return names;
+	}
+	
 	/**
 	 * @return the URIMap
 	 */
@@ -631,6 +719,15 @@ public class AML
 		return uris;
 	}
 	
+	/**
+	 * @return the directory where WordLexicons are saved for reuse by
+	 * later runs, or null if they aren't saved
+	 */
+	public String getWordLexiconCache()
+	{
+		return wordLexiconCache;
+	}
+	
 	/**
 	 * @return the active WordMatchStrategy
 	 */
@@ -877,36 +974,101 @@ public class AML
 		System.out.println(bk.getURI() + " loaded in " + time + " seconds");
 	}
 	
-	public void openOntologies(String src, String tgt) throws OWLOntologyCreationException
+	public void openOntologies(String src, final String tgt) throws OWLOntologyCreationException
 	{
 		closeOntologies();
-        //Initialize the URIMap and RelationshipMap
-		uris = new URIMap();
-		rels = new RelationshipMap();
-		if(useReasoner)
-			PropertyConfigurator.configure(dir + LOG);
-		long time = System.currentTimeMillis()/1000;
-		System.out.println("Loading source ontology");	
-		source = new Ontology(src);
-		time = System.currentTimeMillis()/1000 - time;
-		System.out.println(source.getURI() + " loaded in " + time + " seconds");
-		System.out.println("Classes: " + source.count(EntityType.CLASS));
-		System.out.println("Individuals: " + source.count(EntityType.INDIVIDUAL));
-		System.out.println("Properties: " + (source.count(EntityType.DATA)+source.count(EntityType.OBJECT)));
-		time = System.currentTimeMillis()/1000;
-		System.out.println("Loading target ontology");
-		target = new Ontology(tgt);
-		time = System.currentTimeMillis()/1000 - time;
-		System.out.println(target.getURI() + " loaded in " + time + " seconds");
-		System.out.println("Classes: " + target.count(EntityType.CLASS));
-		System.out.println("Individuals: " + target.count(EntityType.INDIVIDUAL));
-		System.out.println("Properties: " + (target.count(EntityType.DATA)+target.count(EntityType.OBJECT)));
-		System.out.println("Direct Relationships: " + rels.relationshipCount());
-		time = System.currentTimeMillis()/1000;
-		System.out.println("Running transitive closure on RelationshipMap");
-		rels.transitiveClosure();
-		time = System.currentTimeMillis()/1000 - time;
-		System.out.println("Transitive closure finished in " + time + " seconds");	
+		//Check if the ontologies have a snapshot, which is named
+		//after their contents (if snapshots are enabled)
+		File snapshot = null;
+		if(snapshotCache != null)
+		{
+			try
+			{
+				snapshot = OntologySnapshot.getFile(snapshotCache, src, tgt, useReasoner);
+			}
+			catch(IOException e)
+			{
+				System.out.println("Unable to check for ontology snapshot: " + e.getMessage());
+			}
+		}
+		if(!openSnapshot(snapshot, src, tgt))
+		{
+	        //Initialize the URIMap, NameDictionary and RelationshipMap
+			uris = new URIMap();
+			names = new NameDictionary();
+			rels = new RelationshipMap();
+			if(useReasoner)
+				PropertyConfigurator.configure(dir + LOG);
+			//Parse the target ontology in the background while the source ontology is
+			//loaded, but only add it to AML afterwards, so that the entity indexes
+			//are the same as when the ontologies are loaded one after the other
+			Future<OWLOntology> parsedTarget = getScheduler().submit(new Callable<OWLOntology>()
+			{
+				@Override
+				public OWLOntology call() throws OWLOntologyCreationException
+				{
+					return Ontology.parse(tgt);
+				}
+			});
+			long time = System.currentTimeMillis()/1000;
+			System.out.println("Loading source ontology");	
+			try
+			{
+				source = new Ontology(src);
+			}
+			catch(OWLOntologyCreationException e)
+			{
+				parsedTarget.cancel(true);
+				throw e;
+			}
+			time = System.currentTimeMillis()/1000 - time;
+			System.out.println(source.getURI() + " loaded in " + time + " seconds");
+			System.out.println("Classes: " + source.count(EntityType.CLASS));
+			System.out.println("Individuals: " + source.count(EntityType.INDIVIDUAL));
+			System.out.println("Properties: " + (source.count(EntityType.DATA)+source.count(EntityType.OBJECT)));
+			time = System.currentTimeMillis()/1000;
+			System.out.println("Loading target ontology");
+			try
+			{
+				target = new Ontology(parsedTarget.get(), tgt);
+			}
+			catch(InterruptedException e)
+			{
+				throw new OWLOntologyCreationException(e);
+			}
+			catch(ExecutionException e)
+			{
+				if(e.getCause() instanceof OWLOntologyCreationException)
+					throw (OWLOntologyCreationException)e.getCause();
+				throw new OWLOntologyCreationException(e.getCause());
+			}
+			time = System.currentTimeMillis()/1000 - time;
+			System.out.println(target.getURI() + " loaded in " + time + " seconds");
+			System.out.println("Classes: " + target.count(EntityType.CLASS));
+			System.out.println("Individuals: " + target.count(EntityType.INDIVIDUAL));
+			System.out.println("Properties: " + (target.count(EntityType.DATA)+target.count(EntityType.OBJECT)));
+			System.out.println("Direct Relationships: " + rels.relationshipCount());
+			time = System.currentTimeMillis()/1000;
+			System.out.println("Running transitive closure on RelationshipMap");
+			rels.transitiveClosure();
+			time = System.currentTimeMillis()/1000 - time;
+			System.out.println("Transitive closure finished in " + time + " seconds");
+			//The snapshot is saved before the lexicons are extended,
+			//as the extension depends on the configuration
+			if(snapshot != null)
+			{
+				try
+				{
+					OntologySnapshot.save(snapshot, source, target, src, tgt);
+				}
+				catch(IOException e)
+				{
+					System.out.println("Unable to save ontology snapshot to " + snapshot + ": " + e.getMessage());
+				}
+			}
+		}
+		if(compactClosure)
+			rels.freeze();
 		System.out.println("Extended Relationships: " + rels.relationshipCount());
 		System.out.println("Disjoints: " + rels.disjointCount());
     	//Reset the alignment, mapping, and evaluation
@@ -927,8 +1089,9 @@ public class AML
 	public void openOntologies(URI src, URI tgt) throws OWLOntologyCreationException
 	{
 		closeOntologies();
-        //Initialize the URIMap and RelationshipMap
+        //Initialize the URIMap, NameDictionary and RelationshipMap
 		uris = new URIMap();
+		names = new NameDictionary();
 		rels = new RelationshipMap();
 		if(useReasoner)
 			PropertyConfigurator.configure(dir + LOG);
@@ -952,6 +1115,8 @@ public class AML
 		time = System.currentTimeMillis()/1000;
 		System.out.println("Running transitive closure on RelationshipMap");
 		rels.transitiveClosure();
+		if(compactClosure)
+			rels.freeze();
 		time = System.currentTimeMillis()/1000 - time;
 		System.out.println("Transitive closure finished in " + time + " seconds");	
 		System.out.println("Extended Relationships: " + rels.relationshipCount());
@@ -1011,6 +1176,18 @@ public class AML
 						matchProperties = option[1].equalsIgnoreCase("true");
 					else if(option[0].equals("threshold"))
 						threshold = Double.parseDouble(option[1]);
+					else if(option[0].equals("threads"))
+						setThreads(Integer.parseInt(option[1]));
+					else if(option[0].equals("max_in_flight_tasks"))
+						maxInFlightTasks = Integer.parseInt(option[1]);
+					else if(option[0].equals("max_concurrent_blocks"))
+						maxConcurrentBlocks = Integer.parseInt(option[1]);
+					else if(option[0].equals("word_lexicon_cache"))
+						wordLexiconCache = option[1];
+					else if(option[0].equals("snapshot_cache"))
+						snapshotCache = option[1];
+					else if(option[0].equals("compact_closure"))
+						compactClosure = option[1].equalsIgnoreCase("true");
 					else if(option[0].equals("class_correspondence"))
 					{
 						if(option[1].equalsIgnoreCase("true"))
@@ -1065,12 +1242,25 @@ public class AML
 	public void removeIncorrect()
 	{
 		Alignment reviewed = new Alignment();
+		Vector<Mapping> removed = new Vector<Mapping>();
 		for(Mapping m : a)
+		{
 			if(!m.getStatus().equals(MappingStatus.INCORRECT))
 				reviewed.add(m);
+			else
+				removed.add(m);
+		}
 		if(a.size() > reviewed.size())
 		{
+			//In the GUI, keep the RepairMap (if any) by updating it
+			//rather than letting it be rebuilt for the new alignment
+			RepairMap r = rep;
 			aml.setAlignment(reviewed);
+			if(r != null && userInterface != null)
+			{
+				r.removeMappings(removed);
+				rep = r;
+			}
 			if(a.size() > 0)
 				activeMapping = 0;
 			if(userInterface != null)
@@ -1141,6 +1331,16 @@ public class AML
 		lang = LanguageSetting.getLanguageSetting();
 	}
 	
+	public void setMaxConcurrentBlocks(int max)
+	{
+		maxConcurrentBlocks = max;
+	}
+	
+	public void setMaxInFlightTasks(int max)
+	{
+		maxInFlightTasks = max;
+	}
+	
 	public void setMatchSteps(Vector<MatchStep> steps)
 	{
 		matchSteps = steps;
@@ -1163,6 +1363,11 @@ public class AML
 		primaryStringMatcher = primary;
 	}
 	
+	public void setCompactClosure(boolean b)
+	{
+		compactClosure = b;
+	}
+	
 	public void setInstanceMatchingCategory(InstanceMatchingCategory cat)
 	{
 		inst = cat;
@@ -1181,6 +1386,11 @@ public class AML
 			sType = s;
 	}
 	
+	public void setSnapshotCache(String dir)
+	{
+		snapshotCache = dir;
+	}
+	
 	/**
 	 * Sets the set of classes of the source ontology to which the individuals
 	 * to match belong to
@@ -1247,6 +1457,17 @@ public class AML
 		}
 	}
 	
+	public void setThreads(int t)
+	{
+		threads = Math.max(1, t);
+		//The scheduler is rebuilt with the new parallelism when next needed
+		if(scheduler != null)
+		{
+			scheduler.shutdown();
+			scheduler = null;
+		}
+	}
+	
 	public void setThreshold(double thresh)
 	{
 		threshold = thresh;
@@ -1265,6 +1486,11 @@ public class AML
 		individualDistance = i;
 	}
 	
+	public void setWordLexiconCache(String dir)
+	{
+		wordLexiconCache = dir;
+	}
+	
 	public void setWordMatchStrategy(WordMatchStrategy wms)
 	{
 		this.wms = wms;
@@ -1377,4 +1603,29 @@ public class AML
 	{
 		return useReasoner;
 	}
+	
+//Private Methods
+	
+	//Opens the ontologies in the given snapshot file (if it exists)
+	//into a new URIMap, NameDictionary and RelationshipMap
+	private boolean openSnapshot(File snapshot, String src, String tgt)
+	{
+		if(snapshot == null || !snapshot.exists())
+			return false;
+		uris = new URIMap();
+		names = new NameDictionary();
+		rels = new RelationshipMap();
+		long time = System.currentTimeMillis()/1000;
+		System.out.println("Loading ontologies from snapshot " + snapshot);
+		OntologySnapshot s = OntologySnapshot.load(snapshot, src, tgt);
+		if(s == null)
+			return false;
+		source = s.getSource();
+		target = s.getTarget();
+		time = System.currentTimeMillis()/1000 - time;
+		System.out.println(source.getURI() + " and " + target.getURI() + " loaded in " + time + " seconds");
+		System.out.println("Classes: " + source.count(EntityType.CLASS) + " / " + target.count(EntityType.CLASS));
+		System.out.println("Individuals: " + source.count(EntityType.INDIVIDUAL) + " / " + target.count(EntityType.INDIVIDUAL));
+		return true;
+	}
 }
\ No newline at end of file
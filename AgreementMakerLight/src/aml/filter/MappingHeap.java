@@ -0,0 +1,222 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* An indexed max-heap of the mappings in a RepairMap, ordered by number of    *
+* conflict sets (descending) then by similarity (ascending), so that the top  *
+* of the heap is the worst mapping. Mappings are indexed by their position in *
+* the heap so that their keys can be updated in logarithmic time as the       *
+* RepairMap changes.                                                          *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.filter;
+
+import java.util.Arrays;
+
+import aml.match.Mapping;
+import aml.settings.MappingStatus;
+
+public class MappingHeap
+{
+
+//Attributes
+	
+	private RepairMap rMap;
+	//The heap of mapping indexes
+	private int[] heap;
+	private int size;
+	//The position of each mapping index in the heap (-1 if not in the heap)
+	private int[] position;
+	//The keys of each mapping index
+	private int[] conflicts;
+	private double[] similarity;
+	//The order of each mapping index in the RepairMap, which breaks ties
+	//the same way as a linear scan of the RepairMap would
+	private int[] order;
+	
+//Constructors
+	
+	/**
+	 * Builds the heap with all mappings in the RepairMap that
+	 * have conflicts and are not set as correct
+	 * @param r: the RepairMap to index
+	 */
+	public MappingHeap(RepairMap r)
+	{
+		rMap = r;
+		int max = -1;
+		for(Integer i : rMap)
+			if(i > max)
+				max = i;
+		heap = new int[max + 1];
+		position = new int[max + 1];
+		Arrays.fill(position, -1);
+		conflicts = new int[max + 1];
+		similarity = new double[max + 1];
+		order = new int[max + 1];
+		size = 0;
+		int count = 0;
+		for(Integer i : rMap)
+		{
+			order[i] = count++;
+			Mapping m = rMap.getMapping(i);
+			if(m.getStatus().equals(MappingStatus.CORRECT))
+				continue;
+			conflicts[i] = rMap.getConflicts(i).size();
+			similarity[i] = m.getSimilarity();
+			position[i] = size;
+			heap[size++] = i;
+		}
+		for(int k = size/2 - 1; k >= 0; k--)
+			siftDown(k);
+	}
+	
+//Public Methods
+	
+	/**
+	 * @param index: the index of the Mapping to search
+	 * @return whether the Mapping is in the heap
+	 */
+	public boolean contains(int index)
+	{
+		return index >= 0 && index < position.length && position[index] > -1;
+	}
+	
+	/**
+	 * @return whether the heap is empty
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @return the index of the worst Mapping (without removing it
+	 * from the heap) or -1 if the heap is empty
+	 */
+	public int peek()
+	{
+		if(size == 0)
+			return -1;
+		return heap[0];
+	}
+	
+	/**
+	 * Removes the worst Mapping from the heap
+	 * @return the index of the worst Mapping or -1 if the heap is empty
+	 */
+	public int poll()
+	{
+		int top = peek();
+		if(top > -1)
+			remove(top);
+		return top;
+	}
+	
+	/**
+	 * Removes a Mapping from the heap
+	 * @param index: the index of the Mapping to remove
+	 */
+	public void remove(int index)
+	{
+		if(!contains(index))
+			return;
+		int pos = position[index];
+		position[index] = -1;
+		size--;
+		if(pos == size)
+			return;
+		heap[pos] = heap[size];
+		position[heap[pos]] = pos;
+		siftDown(pos);
+		siftUp(pos);
+	}
+	
+	/**
+	 * @return the number of Mappings in the heap
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Updates the number of conflicts of a Mapping from the RepairMap,
+	 * removing it from the heap if it no longer has conflicts
+	 * @param index: the index of the Mapping to update
+	 */
+	public void update(int index)
+	{
+		if(!contains(index))
+			return;
+		if(rMap.getConflicts(index) == null)
+		{
+			remove(index);
+			return;
+		}
+		int pos = position[index];
+		conflicts[index] = rMap.getConflicts(index).size();
+		siftDown(pos);
+		siftUp(pos);
+	}
+	
+//Private Methods
+	
+	//Whether mapping index i is worse than mapping index j (more
+	//conflicts, then lower similarity, then first in the RepairMap)
+	private boolean worse(int i, int j)
+	{
+		if(conflicts[i] != conflicts[j])
+			return conflicts[i] > conflicts[j];
+		if(similarity[i] != similarity[j])
+			return similarity[i] < similarity[j];
+		return order[i] < order[j];
+	}
+	
+	private void siftDown(int pos)
+	{
+		int index = heap[pos];
+		while(true)
+		{
+			int child = 2*pos + 1;
+			if(child >= size)
+				break;
+			if(child + 1 < size && worse(heap[child + 1], heap[child]))
+				child++;
+			if(!worse(heap[child], index))
+				break;
+			heap[pos] = heap[child];
+			position[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = index;
+		position[index] = pos;
+	}
+	
+	private void siftUp(int pos)
+	{
+		int index = heap[pos];
+		while(pos > 0)
+		{
+			int parent = (pos - 1)/2;
+			if(!worse(index, heap[parent]))
+				break;
+			heap[pos] = heap[parent];
+			position[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = index;
+		position[index] = pos;
+	}
+}
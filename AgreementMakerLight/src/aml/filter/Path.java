@@ -13,62 +13,92 @@
  *                                                                             *
  *******************************************************************************
  * A path between two classes, given as a set of Mapping indexes in the        *
- * RepairMap.                                                                  *
+ * RepairMap, which is stored as a sorted array of indexes.                    *
  *                                                                             *
  * @authors Daniel Faria & Emanuel Santos                                      *
  ******************************************************************************/
 package aml.filter;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class Path implements Comparable<Path>, Iterable<Integer>
 {
 
 //Attributes
 	
-	private HashSet<Integer> path;
+	//The sorted Mapping indexes in the path
+	private int[] path;
 	
 //Constructors
 	
 	public Path()
 	{
-		path = new HashSet<Integer>();
+		path = new int[0];
 	}
 	
 	public Path(Integer i)
 	{
-		path = new HashSet<Integer>();
-		add(i);
+		path = new int[]{i};
 	}
 	
 	public Path(Collection<Integer> p)
 	{
-		path = new HashSet<Integer>(p);
+		path = new int[0];
+		for(Integer i : p)
+			add(i);
 	}
 	
 	public Path(Path p)
 	{
-		path = new HashSet<Integer>(p.path);
+		//Paths never change their arrays in place, so they can share them
+		path = p.path;
 	}
 	
 //Public Methods
 	
 	public void add(int i)
 	{
-		path.add(i);
+		int pos = Arrays.binarySearch(path, i);
+		if(pos >= 0)
+			return;
+		pos = -pos - 1;
+		int[] newPath = new int[path.length+1];
+		System.arraycopy(path, 0, newPath, 0, pos);
+		newPath[pos] = i;
+		System.arraycopy(path, pos, newPath, pos+1, path.length-pos);
+		path = newPath;
 	}
 	
 	public void addAll(Path p)
 	{
-		path.addAll(p.path);
+		int[] newPath = new int[path.length+p.path.length];
+		int i = 0, j = 0, k = 0;
+		while(i < path.length && j < p.path.length)
+		{
+			if(path[i] < p.path[j])
+				newPath[k++] = path[i++];
+			else if(path[i] > p.path[j])
+				newPath[k++] = p.path[j++];
+			else
+			{
+				newPath[k++] = path[i++];
+				j++;
+			}
+		}
+		while(i < path.length)
+			newPath[k++] = path[i++];
+		while(j < p.path.length)
+			newPath[k++] = p.path[j++];
+		path = Arrays.copyOf(newPath, k);
 	}
 	
 	@Override
 	public int compareTo(Path p)
 	{
-		return path.size()-p.path.size();
+		return path.length-p.path.length;
 	}
 
 	/**
@@ -81,26 +111,72 @@ public class Path implements Comparable<Path>, Iterable<Integer>
 	 */
 	public boolean contains(Path p)
 	{
-		for(Integer i : p.path)
-			if(!path.contains(i))
+		int i = 0;
+		for(int j = 0; j < p.path.length; j++)
+		{
+			//Both paths are sorted, so we can skip the elements
+			//of this path that are smaller than the next element
+			//of p, and fail as soon as that element is passed
+			while(i < path.length && path[i] < p.path[j])
+				i++;
+			if(i == path.length || path[i] != p.path[j])
 				return false;
+			i++;
+		}
 		return true;
 	}
 		
 	public boolean contains(int m)
 	{
-		return path.contains(m);
+		return Arrays.binarySearch(path, m) >= 0;
 	}
 	
 	public boolean equals(Object o)
 	{
-		return o instanceof Path && path.equals(((Path)o).path);
+		return o instanceof Path && Arrays.equals(path, ((Path)o).path);
+	}
+	
+	/**
+	 * @return the smallest Mapping index in the path
+	 * (which must not be empty)
+	 */
+	public int first()
+	{
+		return path[0];
+	}
+	
+	public int hashCode()
+	{
+		return Arrays.hashCode(path);
 	}
 
 	@Override
 	public Iterator<Integer> iterator() 
 	{
-		return path.iterator();
+		return new Iterator<Integer>()
+		{
+			private int next = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return next < path.length;
+			}
+
+			@Override
+			public Integer next()
+			{
+				if(next == path.length)
+					throw new NoSuchElementException();
+				return path[next++];
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 	
 	/**
@@ -112,28 +188,51 @@ public class Path implements Comparable<Path>, Iterable<Integer>
 	 */
 	public void merge(Path p)
 	{
-		for(Integer i : p)
+		int[] newPath = new int[path.length+p.path.length];
+		int i = 0, j = 0, k = 0;
+		while(i < path.length && j < p.path.length)
 		{
-			if(path.contains(i))
-				path.remove(i);
+			if(path[i] < p.path[j])
+				newPath[k++] = path[i++];
+			else if(path[i] > p.path[j])
+				newPath[k++] = p.path[j++];
 			else
-				path.add(i);
+			{
+				i++;
+				j++;
+			}
 		}
+		while(i < path.length)
+			newPath[k++] = path[i++];
+		while(j < p.path.length)
+			newPath[k++] = p.path[j++];
+		path = Arrays.copyOf(newPath, k);
 	}
 	
 	public void remove(int i)
 	{
-		path.remove(i);
+		int pos = Arrays.binarySearch(path, i);
+		if(pos < 0)
+			return;
+		int[] newPath = new int[path.length-1];
+		System.arraycopy(path, 0, newPath, 0, pos);
+		System.arraycopy(path, pos+1, newPath, pos, path.length-pos-1);
+		path = newPath;
 	}
 	
 	public void removeAll(Path p)
 	{
-		path.removeAll(p.path);
+		int[] newPath = new int[path.length];
+		int k = 0;
+		for(int i : path)
+			if(!p.contains(i))
+				newPath[k++] = i;
+		path = Arrays.copyOf(newPath, k);
 	}
 	
 	public int size()
 	{
-		return path.size();
+		return path.length;
 	}
 	
 	public String toString()
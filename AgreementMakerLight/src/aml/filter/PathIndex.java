@@ -0,0 +1,107 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A list of Paths to which a Path is only added if it doesn't contain any of  *
+* the listed Paths (so that the list is minimal if Paths are added by         *
+* ascending size). The Paths are indexed by their smallest Mapping index, so  *
+* that each test only checks Paths starting at an element of the new Path.    *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.filter;
+
+import java.util.Vector;
+
+import aml.util.IntMap;
+
+public class PathIndex
+{
+
+//Attributes
+	
+	//The list of Paths, in the order they were added
+	private Vector<Path> paths;
+	//The Paths by smallest Mapping index
+	private IntMap<Vector<Path>> first;
+	//Whether the empty Path was added (it is contained in all Paths)
+	private boolean hasEmpty;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new empty PathIndex
+	 */
+	public PathIndex()
+	{
+		paths = new Vector<Path>();
+		first = new IntMap<Vector<Path>>();
+		hasEmpty = false;
+	}
+	
+//Public Methods
+	
+	/**
+	 * Adds a Path to the PathIndex if it doesn't contain any Path
+	 * already in the PathIndex
+	 * @param p: the Path to add
+	 * @return whether the Path was added
+	 */
+	public boolean add(Path p)
+	{
+		if(hasEmpty)
+			return false;
+		if(p.size() == 0)
+		{
+			hasEmpty = true;
+			paths.add(p);
+			return true;
+		}
+		//A listed Path contained in p must start at an element of p
+		for(Integer i : p)
+		{
+			Vector<Path> candidates = first.get(i);
+			if(candidates == null)
+				continue;
+			for(Path q : candidates)
+				if(q.size() <= p.size() && p.contains(q))
+					return false;
+		}
+		paths.add(p);
+		Vector<Path> list = first.get(p.first());
+		if(list == null)
+		{
+			list = new Vector<Path>();
+			first.put(p.first(), list);
+		}
+		list.add(p);
+		return true;
+	}
+	
+	/**
+	 * @return the list of Paths in the PathIndex, in the order
+	 * they were added
+	 */
+	public Vector<Path> getPaths()
+	{
+		return paths;
+	}
+	
+	/**
+	 * @return the number of Paths in the PathIndex
+	 */
+	public int size()
+	{
+		return paths.size();
+	}
+}
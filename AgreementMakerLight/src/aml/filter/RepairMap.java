@@ -23,23 +23,24 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import aml.AML;
+import aml.util.Table2List;
 import aml.util.Table2Set;
-import aml.util.Table3List;
-import aml.util.Table3Set;
 import aml.match.Alignment;
 import aml.match.Mapping;
+import aml.ontology.ClosureIndex;
 import aml.ontology.RelationshipMap;
 import aml.settings.MappingStatus;
 
@@ -50,26 +51,34 @@ public class RepairMap implements Iterable<Integer>
 	
 	private AML aml;
 	private RelationshipMap rels;
+	//The indexes of class ancestors and descendants, for iterating
+	//over the class hierarchy without allocating objects
+	private ClosureIndex ancestorIndex;
+	private ClosureIndex descendantIndex;
+	//The alignment to repair, which keeps every Mapping ever added to
+	//the RepairMap so that the indexes of the Mappings don't change
 	private Alignment a;
+	//The Mappings currently in the alignment (the same as the above
+	//until a Mapping is removed with removeMapping)
+	private Alignment current;
 	//The list of classes that are relevant for coherence checking
 	private HashSet<Integer> classList;
 	//The list of classes that must be checked for coherence
 	private HashSet<Integer> checkList;
 	//The minimal map of ancestor relations of checkList classes
 	//(checkList class Id, classList class Id, Path)
-	private Table3List<Integer,Integer,Path> ancestorMap;
-	//The length of ancestral paths to facilitate transitive closure
-	//(checklist class Id, Path length, classList class Id)
-	private Table3Set<Integer,Integer,Integer> pathLengths;
+	private HashMap<Integer,Table2List<Integer,Path>> ancestorMap;
 	//The number of paths to disjoint classes
 	private int pathCount;
 	//The list of conflict sets
 	private Vector<Path> conflictSets;
+	//The minimal conflict sets of each checkList class
+	private HashMap<Integer,Vector<Path>> classConflicts;
+	//The indexes of the Mappings set as incorrect
+	private HashSet<Integer> incorrect;
 	//The table of conflicts per mapping
 	private Table2Set<Integer,Integer> conflictMappings;
 	private Table2Set<Integer,Integer> mappingConflicts;
-	//The available CPU threads
-	private int threads;
 	
 //Constructors
 	
@@ -80,6 +89,8 @@ public class RepairMap implements Iterable<Integer>
 	{
 		aml = AML.getInstance();
 		rels = aml.getRelationshipMap();
+		ancestorIndex = rels.getAncestorIndex();
+		descendantIndex = rels.getDescendantIndex();
 		//We use a clone of the alignment to avoid problems if the
 		//order of the original alignment is altered
 		a = new Alignment(aml.getAlignment());
@@ -87,12 +98,95 @@ public class RepairMap implements Iterable<Integer>
 		for(Mapping m : a)
 			if(m.getStatus().equals(MappingStatus.FLAGGED))
 				m.setStatus(MappingStatus.UNKNOWN);
-		threads = Runtime.getRuntime().availableProcessors();
+		current = a;
 		init();
 	}
 	
 //Public Methods
 	
+	/**
+	 * Adds a Mapping to the RepairMap, updating the ancestral paths
+	 * and conflict sets of the checkList classes it affects rather
+	 * than rebuilding the whole RepairMap
+	 * @param m: the Mapping to add
+	 * @return the number of ancestral paths re-evaluated by the update
+	 */
+	public int addMapping(Mapping m)
+	{
+		int source = m.getSourceId();
+		int target = m.getTargetId();
+		if(current.containsMapping(source, target))
+			return 0;
+		MappingStatus s = m.getStatus();
+		if(s.equals(MappingStatus.FLAGGED))
+			s = MappingStatus.UNKNOWN;
+		a.add(source, target, m.getSimilarity(), m.getRelationship(), s);
+		if(current != a)
+			current.add(source, target, m.getSimilarity(), m.getRelationship(), s);
+		//If the Mapping was set as incorrect and then removed, it is
+		//no longer incorrect once it is added back
+		incorrect.remove(a.getIndex(source, target));
+		if(!aml.getURIMap().isClass(source) || !aml.getURIMap().isClass(target))
+			return 0;
+		if(rels.getDisjoint().isEmpty())
+			return 0;
+		classList.add(source);
+		classList.add(target);
+		HashSet<Integer> changed = new HashSet<Integer>();
+		changed.add(source);
+		changed.add(target);
+		return update(changed);
+	}
+	
+	/**
+	 * Removes a Mapping from the RepairMap, updating the ancestral
+	 * paths and conflict sets of the checkList classes it affects
+	 * rather than rebuilding the whole RepairMap
+	 * @param m: the Mapping to remove
+	 * @return the number of ancestral paths re-evaluated by the update
+	 */
+	public int removeMapping(Mapping m)
+	{
+		Vector<Mapping> maps = new Vector<Mapping>(1);
+		maps.add(m);
+		return removeMappings(maps);
+	}
+	
+	/**
+	 * Removes a collection of Mappings from the RepairMap, updating
+	 * the ancestral paths and conflict sets of the checkList classes
+	 * they affect in a single pass
+	 * @param maps: the Mappings to remove
+	 * @return the number of ancestral paths re-evaluated by the update
+	 */
+	public int removeMappings(Collection<Mapping> maps)
+	{
+		HashSet<Integer> changed = new HashSet<Integer>();
+		for(Mapping m : maps)
+		{
+			int source = m.getSourceId();
+			int target = m.getTargetId();
+			if(!current.containsMapping(source, target))
+				continue;
+			//The Mapping stays in the alignment to repair so that indexes
+			//remain valid, so the current alignment must be split from it
+			if(current == a)
+				current = new Alignment(a);
+			current.remove(source, target);
+			if(aml.getURIMap().isClass(source) && aml.getURIMap().isClass(target))
+			{
+				changed.add(source);
+				changed.add(target);
+			}
+		}
+		if(changed.isEmpty() || rels.getDisjoint().isEmpty())
+			return 0;
+		for(Integer i : changed)
+			if(!rels.hasDisjoint(i) && !current.containsClass(i))
+				classList.remove(i);
+		return update(changed);
+	}
+	
 	/**
 	 * @param index: the index of the Mapping to get
 	 * @return the conflict sets that contain the given Mapping index
@@ -187,14 +281,18 @@ public class RepairMap implements Iterable<Integer>
 	 * the RepairMap (but does not actually remove the Mapping from
 	 * the Alignment)
 	 * @param index: the index of the Mapping to remove
+	 * @return the indexes of the other Mappings whose conflicts changed
 	 */
-	public void remove(int index)
+	public Set<Integer> remove(int index)
 	{
 		HashSet<Integer> conflicts = new HashSet<Integer>(mappingConflicts.get(index));
+		HashSet<Integer> changed = new HashSet<Integer>();
 		for(Integer i : conflicts)
 		{
 			for(Integer j : conflictMappings.get(i))
 			{
+				if(j != index)
+					changed.add(j);
 				if(mappingConflicts.get(j).size() == 1)
 					mappingConflicts.remove(j);
 				else
@@ -203,9 +301,11 @@ public class RepairMap implements Iterable<Integer>
 			conflictMappings.remove(i);
 		}
 		mappingConflicts.remove(index);
+		incorrect.add(index);
 		Mapping m = a.get(index);
 		m.setStatus(MappingStatus.INCORRECT);
 		aml.getAlignment().get(m.getSourceId(), m.getTargetId()).setStatus(MappingStatus.INCORRECT);
+		return changed;
 	}
 	
 	/**
@@ -236,9 +336,12 @@ public class RepairMap implements Iterable<Integer>
 		//Initialize the data structures
 		classList = new HashSet<Integer>();
 		checkList = new HashSet<Integer>();
-		ancestorMap = new Table3List<Integer,Integer,Path>();
-		pathLengths = new Table3Set<Integer,Integer,Integer>();
+		ancestorMap = new HashMap<Integer,Table2List<Integer,Path>>();
 		conflictSets = new Vector<Path>();
+		classConflicts = new HashMap<Integer,Vector<Path>>();
+		incorrect = new HashSet<Integer>();
+		conflictMappings = new Table2Set<Integer,Integer>();
+		mappingConflicts = new Table2Set<Integer,Integer>();
 		
 		//Build the classList, starting with the classes
 		//involved in disjoint clauses
@@ -250,10 +353,10 @@ public class RepairMap implements Iterable<Integer>
 			return;
 		}
 		//Otherwise, add all classes involved in mappings
-		for(Integer i : a.getSources())
+		for(Integer i : current.getSources())
 			if(aml.getURIMap().isClass(i))
 				classList.add(i);
-		for(Integer i : a.getTargets())
+		for(Integer i : current.getTargets())
 			if(aml.getURIMap().isClass(i))
 				classList.add(i);
 		
@@ -295,37 +398,33 @@ public class RepairMap implements Iterable<Integer>
 		for(Integer i: classList)
 		{
 			//Get the subClasses of classList classes
-			for(Integer j : rels.getSubClasses(i,false))
+			for(int d = descendantIndex.next(i,descendantIndex.begin(i),-1); d < descendantIndex.end(i);
+					d = descendantIndex.next(i,d+1,-1))
 			{
+				int j = descendantIndex.getRelated(d);
 				//Count their parents
-				Set<Integer> pars = rels.getSuperClasses(j, true);
+				int parents = 0;
+				for(int p = ancestorIndex.next(j,ancestorIndex.begin(j),1,-1); p < ancestorIndex.end(j);
+						p = ancestorIndex.next(j,p+1,1,-1))
+					parents++;
 				//Check if they have a disjoint clause
 				int hasDisjoint = 0;
 				if(rels.hasDisjoint(j))
 					hasDisjoint = 1;
 				//Exclude those that don't have at least two parents
 				//or a parent and a disjoint clause
-				if(pars.size() + hasDisjoint < 2)
+				if(parents + hasDisjoint < 2)
 					continue;
 				//Count the classList classes in the ancestral
 				//line of each parent (or until two parents with
 				//classList ancestors are found)
 				int count = hasDisjoint;
-				for(Integer k : pars)
+				for(int p = ancestorIndex.next(j,ancestorIndex.begin(j),1,-1); p < ancestorIndex.end(j);
+						p = ancestorIndex.next(j,p+1,1,-1))
 				{
-					if(classList.contains(k))
+					int k = ancestorIndex.getRelated(p);
+					if(classList.contains(k) || hasSuperClassIn(k, classList))
 						count++;
-					else
-					{
-						for(Integer l : rels.getSuperClasses(k, false))
-						{
-							if(classList.contains(l))
-							{
-								count++;
-								break;
-							}
-						}
-					}
 					if(count > 1)
 						break;
 				}
@@ -340,9 +439,11 @@ public class RepairMap implements Iterable<Integer>
 		HashSet<Integer> toRemove = new HashSet<Integer>();
 		for(Integer i : descList)
 		{
-			for(Integer j : rels.getSubClasses(i, false))
+			for(int k = descendantIndex.begin(i); k < descendantIndex.end(i); k++)
 			{
-				if(descList.contains(j) || a.containsClass(j))
+				int j = descendantIndex.getRelated(k);
+				if(descendantIndex.getProperty(k) == -1 &&
+						(descList.contains(j) || current.containsClass(j)))
 				{
 					toRemove.add(i);
 					break;
@@ -359,9 +460,9 @@ public class RepairMap implements Iterable<Integer>
 		{
 			//Put the classList ancestors in a path
 			Path p = new Path();
-			for(Integer j : rels.getSuperClasses(i,false))
-				if(classList.contains(j))
-					p.add(j);
+			for(int k = ancestorIndex.begin(i); k < ancestorIndex.end(i); k++)
+				if(ancestorIndex.getProperty(k) == -1 && classList.contains(ancestorIndex.getRelated(k)))
+					p.add(ancestorIndex.getRelated(k));
 			//Put the class itself in the path if it
 			//is also in classList
 			if(classList.contains(i))
@@ -397,29 +498,18 @@ public class RepairMap implements Iterable<Integer>
 		//involved in two mappings or have an ancestral
 		//path to a mapped class, from only one side
 		HashSet<Integer> mapList = new HashSet<Integer>();
-		for(Mapping m : a)
+		for(Mapping m : current)
 		{
 			int source = m.getSourceId();
 			int target = m.getTargetId();
 			if(!aml.getURIMap().isClass(source) || !aml.getURIMap().isClass(target))
 				continue;
 			//Check if there is no descendant in the checkList
-			boolean isRedundant = false;
-			HashSet<Integer> descendants = new HashSet<Integer>(rels.getSubClasses(source, false));
-			descendants.addAll(rels.getSubClasses(target, false));
-			for(Integer i : descendants)
-			{
-				if(checkList.contains(i))
-				{
-					isRedundant = true;
-					break;
-				}
-			}
-			if(isRedundant)
+			if(hasSubClassIn(source, checkList) || hasSubClassIn(target, checkList))
 				continue;
 			//Count the mappings of both source and target classes
-			int sourceCount = a.getSourceMappings(source).size();
-			int targetCount = a.getTargetMappings(target).size();
+			int sourceCount = current.getSourceMappings(source).size();
+			int targetCount = current.getTargetMappings(target).size();
 			//If the target class has more mappings than the source
 			//class (which implies it has at least 2 mappings) add it
 			if(targetCount > sourceCount)
@@ -430,11 +520,13 @@ public class RepairMap implements Iterable<Integer>
 			//Otherwise, check for mapped ancestors on both sides
 			else
 			{
-				for(Integer j : rels.getSuperClasses(source, false))
-					if(a.containsSource(j))
+				for(int k = ancestorIndex.next(source,ancestorIndex.begin(source),-1); k < ancestorIndex.end(source);
+						k = ancestorIndex.next(source,k+1,-1))
+					if(current.containsSource(ancestorIndex.getRelated(k)))
 						sourceCount++;
-				for(Integer j : rels.getSuperClasses(target, false))
-					if(a.containsTarget(j))
+				for(int k = ancestorIndex.next(target,ancestorIndex.begin(target),-1); k < ancestorIndex.end(target);
+						k = ancestorIndex.next(target,k+1,-1))
+					if(current.containsTarget(ancestorIndex.getRelated(k)))
 						targetCount++;
 				if(sourceCount > 1 && targetCount < sourceCount)
 					mapList.add(source);
@@ -444,16 +536,8 @@ public class RepairMap implements Iterable<Integer>
 		}
 		toRemove = new HashSet<Integer>();
 		for(Integer i : mapList)
-		{
-			for(Integer j : rels.getSubClasses(i, false))
-			{
-				if(mapList.contains(j))
-				{
-					toRemove.add(i);
-					break;
-				}
-			}
-		}
+			if(hasSubClassIn(i, mapList))
+				toRemove.add(i);
 		mapList.removeAll(toRemove);
 		//Finally, add the mapList to the checkList
 		checkList.addAll(mapList);
@@ -464,177 +548,363 @@ public class RepairMap implements Iterable<Integer>
 	//(breadth first) transitive closure
 	private void buildAncestorMap()
 	{
-		//First get the "direct" relations between checkList
-		//and classList classes, which are present in the
-		//RelationshipMap, plus the relations through direct
-		//mappings of checkList classes
-		for(Integer i : checkList)
+		buildAncestors(checkList);
+	}
+	
+	//Builds the ancestral relations of the given checkList classes and
+	//returns their number of paths (the paths of each class depend only
+	//on the RelationshipMap and the alignment, not on other classes, so
+	//they can be built in parallel)
+	private int buildAncestors(Collection<Integer> classes)
+	{
+		int paths = 0;
+		//If there is only one CPU thread available, then process in series
+		if(aml.getThreads() == 1)
+		{
+			for(Integer i : classes)
+				paths += putAncestors(i, buildClassAncestors(i));
+		}
+		//Otherwise process in parallel
+		else
+		{
+			//Create a task for each class
+			ArrayList<ClassAncestors> tasks = new ArrayList<ClassAncestors>();
+			for(Integer i : classes)
+				tasks.add(new ClassAncestors(i));
+			//Then execute all tasks using the AML TaskScheduler, and add
+			//the ancestral relations of each class to the ancestorMap (a
+			//class without its paths would hide its conflicts, so a failure
+			//is passed on rather than building an incomplete RepairMap)
+			try
+			{
+				List<Future<Table2List<Integer,Path>>> results = aml.getScheduler().invokeAll(tasks);
+				for(int i = 0; i < results.size(); i++)
+					paths += putAncestors(tasks.get(i).term, results.get(i).get());
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Building the RepairMap interrupted", e);
+			}
+			catch(ExecutionException e)
+			{
+				throw new RuntimeException("Building the RepairMap failed", e.getCause());
+			}
+		}
+		return paths;
+	}
+	
+	//Builds the ancestral relations between a checkList class and
+	//the classList classes (classList class Id, Path)
+	private Table2List<Integer,Path> buildClassAncestors(int classId)
+	{
+		Table2List<Integer,Path> ancestors = new Table2List<Integer,Path>();
+		//The length of the paths, to facilitate transitive closure
+		//(Path length, classList class Id)
+		Table2Set<Integer,Integer> pathLengths = new Table2Set<Integer,Integer>();
+		//First get the "direct" relations between the class and
+		//classList classes, which are present in the RelationshipMap,
+		//plus the relations through direct mappings of the class
+		//Direct relations
+		for(int k = ancestorIndex.next(classId,ancestorIndex.begin(classId),-1); k < ancestorIndex.end(classId);
+				k = ancestorIndex.next(classId,k+1,-1))
+			if(classList.contains(ancestorIndex.getRelated(k)))
+				addRelation(ancestors, pathLengths, ancestorIndex.getRelated(k), new Path());
+		//Mappings
+		Set<Integer> maps = current.getMappingsBidirectional(classId);
+		for(Integer j : maps)
 		{
-			//Direct relations
-			Set<Integer> ancs = rels.getSuperClasses(i,false);
-			for(Integer j : ancs)
-				if(classList.contains(j))
-					addRelation(i, j, new Path());
-			//Mappings
-			Set<Integer> maps = a.getMappingsBidirectional(i);
-			for(Integer j : maps)
+			//Get both the mapping and its ancestors
+			int index = a.getIndexBidirectional(classId, j);
+			//And add them
+			if(classList.contains(j))
+				addRelation(ancestors, pathLengths, j, new Path(index));
+			for(int k = ancestorIndex.next(j,ancestorIndex.begin(j),-1); k < ancestorIndex.end(j);
+					k = ancestorIndex.next(j,k+1,-1))
 			{
-				//Get both the mapping and its ancestors
-				int index = a.getIndexBidirectional(i, j);
-				HashSet<Integer> newAncestors = new HashSet<Integer>(rels.getSuperClasses(j,false));
-				newAncestors.add(j);
-				//And add them
-				for(Integer m : newAncestors)
-					if(classList.contains(m))
-						addRelation(i,m,new Path(index));
+				int m = ancestorIndex.getRelated(k);
+				if(m != j && classList.contains(m))
+					addRelation(ancestors, pathLengths, m, new Path(index));
 			}
 		}
 		//Then add paths iteratively by extending paths with new
-		//mappings, stopping when the ancestorMap stops growing
-		int size = 0;
-		for(int i = 0; size < ancestorMap.size(); i++)
+		//mappings, stopping when there are no paths with i mappings
+		//(the direct relations have paths with up to 1 mapping, so
+		//paths with 0 and 1 mappings must always be extended)
+		for(int i = 0; i < 2 || pathLengths.contains(i); i++)
 		{
-			size = ancestorMap.size();
-			//For each class in the checkList
-			for(Integer j : checkList)
+			//If the class has ancestors through paths with i mappings
+			if(!pathLengths.contains(i))
+				continue;
+			//We get those ancestors
+			HashSet<Integer> ancestorIds = new HashSet<Integer>(pathLengths.get(i));
+			//For each such ancestor
+			for(Integer k : ancestorIds)
 			{
-				//If it has ancestors through paths with i mappings
-				if(!pathLengths.contains(j, i))
+				//Cycle check 1 (make sure ancestor != self)
+				if(k == classId)
 					continue;
-				//We get those ancestors
-				HashSet<Integer> ancestors = new HashSet<Integer>(pathLengths.get(j,i));
-				//For each such ancestor
-				for(Integer k : ancestors)
+				//Get the paths between the class and its ancestor
+				Vector<Path> paths = new Vector<Path>();
+				for(Path p : ancestors.get(k))
+					if(p.size() == i)
+						paths.add(p);
+				//Get the ancestor's mappings
+				maps = current.getMappingsBidirectional(k);
+				//And for each mapping
+				for(Integer l : maps)
 				{
-					//Cycle check 1 (make sure ancestor != self)
-					if(k == j)
+					//Cycle check 2 (make sure mapping != self)
+					if(l == classId)
 						continue;
-					//Get the paths between the class and its ancestor
-					HashSet<Path> paths = new HashSet<Path>();
-					for(Path p : ancestorMap.get(j, k))
-						if(p.size() == i)
-							paths.add(p);
-					//Get the ancestor's mappings
-					Set<Integer> maps = a.getMappingsBidirectional(k);
-					//And for each mapping
-					for(Integer l : maps)
+					int index = a.getIndexBidirectional(k, l);
+					//Now we must increment all paths between the class and k
+					for(Path p : paths)
 					{
-						//Cycle check 2 (make sure mapping != self)
-						if(l == j)
+						//Cycle check 3 (make sure we don't go through the
+						//same mapping twice)
+						if(p.contains(index))
 							continue;
-						//We get its ancestors
-						int index = a.getIndexBidirectional(k, l);
-						HashSet<Integer> newAncestors = new HashSet<Integer>(rels.getSuperClasses(l,false));
-						//Plus the mapping itself
-						newAncestors.add(l);
-						//Now we must increment all paths between j and k
-						for(Path p : paths)
+						//We increment the path by adding the new mapping
+						Path q = new Path(p);
+						q.add(index);
+						//And add a relationship between the class and each
+						//ancestor of the new mapping (including the mapping
+						//itself) that is on the checkList
+						//Cycle check 4 (make sure mapping ancestor != self)
+						if(classList.contains(l) && l != classId)
+							addRelation(ancestors, pathLengths, l, q);
+						for(int n = ancestorIndex.next(l,ancestorIndex.begin(l),-1); n < ancestorIndex.end(l);
+								n = ancestorIndex.next(l,n+1,-1))
 						{
-							//Cycle check 3 (make sure we don't go through the
-							//same mapping twice)
-							if(p.contains(index))
-								continue;
-							//We increment the path by adding the new mapping
-							Path q = new Path(p);
-							q.add(index);
-							//And add a relationship between j and each descendant of
-							//the new mapping (including the mapping itself) that is
-							//on the checkList
-							for(Integer m : newAncestors)
-								//Cycle check 4 (make sure mapping descendant != self)
-								if(classList.contains(m) && m != j)
-									addRelation(j,m,q);
+							int m = ancestorIndex.getRelated(n);
+							if(m != l && classList.contains(m) && m != classId)
+								addRelation(ancestors, pathLengths, m, q);
 						}
 					}
 				}
 			}
 		}
-		//Finally add relations between checkList classes and
-		//themselves when they are involved in disjoint clauses
-		//(to support the buildClassConflicts method)
-		for(Integer i : checkList)
-			if(rels.hasDisjoint(i))
-				ancestorMap.add(i, i, new Path());
+		//Finally add a relation between the class and itself when it
+		//is involved in disjoint clauses (to support the
+		//buildClassConflicts method)
+		if(rels.hasDisjoint(classId))
+			ancestors.add(classId, new Path());
+		return ancestors;
+	}
+	
+	//Checks whether any 'is_a' ancestor of the class is in the given set
+	private boolean hasSuperClassIn(int classId, Set<Integer> classes)
+	{
+		for(int k = ancestorIndex.begin(classId); k < ancestorIndex.end(classId); k++)
+			if(ancestorIndex.getProperty(k) == -1 && classes.contains(ancestorIndex.getRelated(k)))
+				return true;
+		return false;
+	}
+	
+	//Checks whether any 'is_a' descendant of the class is in the given set
+	private boolean hasSubClassIn(int classId, Set<Integer> classes)
+	{
+		for(int k = descendantIndex.begin(classId); k < descendantIndex.end(classId); k++)
+			if(descendantIndex.getProperty(k) == -1 && classes.contains(descendantIndex.getRelated(k)))
+				return true;
+		return false;
 	}
 	
-	//Adds a relation to the ancestorMap (and pathLengths)
-	private void addRelation(int child, int parent, Path p)
+	//Adds a relation to the ancestors of a class (and pathLengths)
+	//unless it is redundant with a relation already present
+	private void addRelation(Table2List<Integer,Path> ancestors,
+			Table2Set<Integer,Integer> pathLengths, int parent, Path p)
 	{
-		if(ancestorMap.contains(child,parent))
+		if(ancestors.contains(parent))
 		{
-			Vector<Path> paths = ancestorMap.get(child,parent);
+			Vector<Path> paths = ancestors.get(parent);
 			for(Path q : paths)
 				if(p.contains(q))
 					return;
 		}
-		ancestorMap.add(child,parent,p);
-		pathLengths.add(child, p.size(), parent);
-		if(rels.hasDisjoint(parent))
-			pathCount++;
+		ancestors.add(parent,p);
+		pathLengths.add(p.size(), parent);
+	}
+	
+	//Adds the ancestral relations of a class to the ancestorMap
+	//and returns their number of paths
+	private int putAncestors(int classId, Table2List<Integer,Path> ancestors)
+	{
+		ancestorMap.put(classId, ancestors);
+		pathCount += countDisjointPaths(classId, ancestors);
+		return ancestors.size();
+	}
+	
+	//Removes the ancestral relations of a checkList class
+	private void clearAncestors(int classId)
+	{
+		Table2List<Integer,Path> ancestors = ancestorMap.remove(classId);
+		if(ancestors != null)
+			pathCount -= countDisjointPaths(classId, ancestors);
+	}
+	
+	//Counts the paths from a class to ancestors involved in
+	//disjoint clauses (excluding the relation with itself)
+	private int countDisjointPaths(int classId, Table2List<Integer,Path> ancestors)
+	{
+		int count = 0;
+		for(Integer i : ancestors.keySet())
+			if(rels.hasDisjoint(i))
+				count += ancestors.get(i).size();
+		if(rels.hasDisjoint(classId))
+			count--;
+		return count;
+	}
+	
+	//Updates the RepairMap after Mappings involving the given classes
+	//were added or removed, recomputing the checkList and then the
+	//ancestral paths and conflicts only of the checkList classes that
+	//can reach those classes, returning the number of paths recomputed
+	private int update(Set<Integer> changed)
+	{
+		//Get the classes whose ancestral line includes a changed class
+		HashSet<Integer> touched = new HashSet<Integer>(changed);
+		for(Integer i : changed)
+			for(int k = descendantIndex.begin(i); k < descendantIndex.end(i); k++)
+				if(descendantIndex.getProperty(k) == -1)
+					touched.add(descendantIndex.getRelated(k));
+		
+		//Recompute the checkList
+		HashSet<Integer> oldCheckList = checkList;
+		checkList = new HashSet<Integer>();
+		buildCheckList();
+		
+		//Drop the classes that left the checkList
+		for(Integer i : oldCheckList)
+		{
+			if(!checkList.contains(i))
+			{
+				clearAncestors(i);
+				classConflicts.remove(i);
+			}
+		}
+		//Then find the checkList classes that must be recomputed: those
+		//that are new or that reach a touched class through their paths
+		HashSet<Integer> affected = new HashSet<Integer>();
+		for(Integer i : checkList)
+		{
+			if(!oldCheckList.contains(i) || touched.contains(i))
+			{
+				affected.add(i);
+				continue;
+			}
+			if(!ancestorMap.containsKey(i))
+				continue;
+			for(Integer j : ancestorMap.get(i).keySet())
+			{
+				if(touched.contains(j))
+				{
+					affected.add(i);
+					break;
+				}
+			}
+		}
+		//Recompute their ancestral paths and conflicts
+		for(Integer i : affected)
+			clearAncestors(i);
+		int paths = buildAncestors(affected);
+		buildConflicts(affected);
+		//And finally merge the conflicts of all classes again
+		mergeConflictSets();
+		return paths;
 	}
 	
 	//Builds the global minimal conflict sets for all checkList classes
 	private void buildConflictSets()
+	{
+		buildConflicts(checkList);
+		mergeConflictSets();
+	}
+	
+	//Builds the minimal conflict sets of the given checkList classes
+	private void buildConflicts(Collection<Integer> classes)
 	{
 		//If there is only one CPU thread available, then process in series
-		if(threads == 1)
+		if(aml.getThreads() == 1)
 		{
-			//For each checkList class
-			for(Integer i : checkList)
-			{
-				//Get its minimized conflicts
-				Vector<Path> classConflicts = buildClassConflicts(i);
-				//And add them to the conflictSets, minimizing upon addition
-				for(Path p : classConflicts)
-					addConflict(p,conflictSets);
-			}
+			//For each class get its minimized conflicts
+			for(Integer i : classes)
+				classConflicts.put(i, buildClassConflicts(i));
 		}
 		//Otherwise process in parallel
 		else
 		{
-			//Create a task for each checkList class
+			//Create a task for each class
 			ArrayList<ClassConflicts> tasks = new ArrayList<ClassConflicts>();
-			for(Integer i : checkList)
+			for(Integer i : classes)
 				tasks.add(new ClassConflicts(i));
-			//Then execute all tasks using the available threads
-	        List<Future<Vector<Path>>> results;
-			ExecutorService exec = Executors.newFixedThreadPool(threads);
+			//Then execute all tasks using the AML TaskScheduler, and
+			//collect the minimal class conflict sets (passing on any
+			//failure, as with the ancestral paths)
 			try
 			{
-				results = exec.invokeAll(tasks);
+				List<Future<Vector<Path>>> results = aml.getScheduler().invokeAll(tasks);
+				for(int i = 0; i < results.size(); i++)
+					classConflicts.put(tasks.get(i).term, results.get(i).get());
 			}
-			catch (InterruptedException e)
+			catch(InterruptedException e)
 			{
-				e.printStackTrace();
-		        results = new ArrayList<Future<Vector<Path>>>();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Building the RepairMap interrupted", e);
 			}
-			exec.shutdown();
-			//Finally, combine all minimal class conflict sets
-			Vector<Path> allConflicts = new Vector<Path>();
-			for(Future<Vector<Path>> conf : results)
+			catch(ExecutionException e)
 			{
-				try
-				{
-					for(Path p : conf.get())
-						allConflicts.add(p);
-				}
-				catch(Exception e)
-				{
-					e.printStackTrace();
-				}
+				throw new RuntimeException("Building the RepairMap failed", e.getCause());
 			}
+		}
+	}
+	
+	//Combines the minimal conflict sets of all checkList classes into
+	//the global minimal conflict sets and links them to the mappings
+	private void mergeConflictSets()
+	{
+		PathIndex minimalConflicts = new PathIndex();
+		//If there is only one CPU thread available, add the conflicts
+		//of each class in turn, minimizing upon addition
+		if(aml.getThreads() == 1)
+		{
+			for(Integer i : checkList)
+				for(Path p : classConflicts.get(i))
+					minimalConflicts.add(p);
+		}
+		//Otherwise combine all minimal class conflict sets
+		else
+		{
+			Vector<Path> allConflicts = new Vector<Path>();
+			for(Integer i : checkList)
+				allConflicts.addAll(classConflicts.get(i));
 			//Sort them
 			Collections.sort(allConflicts);
 			//And turn them into the final minimal list of conflict sets
 			for(Path p : allConflicts)
-				addConflict(p,conflictSets);
+				minimalConflicts.add(p);
 		}
-		//Now go through the conflict sets and link them to the mappings
+		conflictSets = minimalConflicts.getPaths();
+		//Now go through the conflict sets and link them to the mappings,
+		//leaving out those that include mappings set as incorrect
 		conflictMappings = new Table2Set<Integer,Integer>();
 		mappingConflicts = new Table2Set<Integer,Integer>();
 		for(int i = 0; i < conflictSets.size(); i++)
 		{
-			for(Integer j : conflictSets.get(i))
+			Path p = conflictSets.get(i);
+			boolean isSolved = false;
+			for(Integer j : p)
+			{
+				if(incorrect.contains(j))
+				{
+					isSolved = true;
+					break;
+				}
+			}
+			if(isSolved)
+				continue;
+			for(Integer j : p)
 			{
 				conflictMappings.add(i,j);
 				mappingConflicts.add(j,i);
@@ -645,9 +915,10 @@ public class RepairMap implements Iterable<Integer>
 	//Builds the minimal conflict sets for a given checkList class
 	private Vector<Path> buildClassConflicts(int classId)
 	{
+		Table2List<Integer,Path> ancestors = ancestorMap.get(classId);
 		//First get all ancestors involved in disjoint clauses
 		HashSet<Integer> disj = new HashSet<Integer>();
-		for(Integer i : ancestorMap.keySet(classId))
+		for(Integer i : ancestors.keySet())
 			if(rels.hasDisjoint(i))
 				disj.add(i);
 		
@@ -664,9 +935,9 @@ public class RepairMap implements Iterable<Integer>
 				if(i > j || !disj.contains(j))
 					continue;
 				
-				for(Path p : ancestorMap.get(classId, i))
+				for(Path p : ancestors.get(i))
 				{
-					for(Path q : ancestorMap.get(classId, j))
+					for(Path q : ancestors.get(j))
 					{
 						Path merged = new Path(p);
 						merged.merge(q);
@@ -679,21 +950,27 @@ public class RepairMap implements Iterable<Integer>
 		//Then sort that list
 		Collections.sort(classConflicts);
 		//And turn it into a minimal list
-		Vector<Path> minimalConflicts = new Vector<Path>();
+		PathIndex minimalConflicts = new PathIndex();
 		for(Path p : classConflicts)
-			addConflict(p, minimalConflicts);
-		return minimalConflicts;
+			minimalConflicts.add(p);
+		return minimalConflicts.getPaths();
 	}
 	
-	//Adds a path to a list of conflict sets if it is a minimal path
-	//(this only results in a minimal list of paths if paths are added
-	//in order, after sorting)
-	private void addConflict(Path p, Vector<Path> paths)
+	//Callable class for computing ancestral relations
+	private class ClassAncestors implements Callable<Table2List<Integer,Path>>
 	{
-		for(Path q : paths)
-			if(p.contains(q))
-				return;
-		paths.add(p);
+		private int term;
+		
+		ClassAncestors(int t)
+	    {
+	        term = t;
+	    }
+	        
+	    @Override
+	    public Table2List<Integer,Path> call()
+	    {
+       		return buildClassAncestors(term);
+        }
 	}
 	
 	//Callable class for computing minimal conflict sets
@@ -59,24 +59,26 @@ public class Repairer implements Filterer, Flagger
 		System.out.println("Repairing Alignment");
 		long time = System.currentTimeMillis()/1000;
 		int repairCount = 0;
+		//The heap keeps the mappings with conflicts that aren't set as
+		//correct, with the worst mapping (most conflicts, then lowest
+		//similarity) at the top
+		MappingHeap heap = new MappingHeap(rMap);
 		//Loop until no more mappings can be removed
-		while(true)
+		while(!heap.isEmpty())
 		{
-			int worstMapping = getWorstMapping();
-			if(worstMapping != -1)
-			{
-				if(im.isInteractive())
-				{	
-					Mapping m = rMap.getMapping(worstMapping);
-					im.classify(m);
-					if(m.getStatus().equals(MappingStatus.CORRECT))
-						continue;
-				}
-				rMap.remove(worstMapping);
-				repairCount++;
+			int worstMapping = heap.poll();
+			if(im.isInteractive())
+			{	
+				Mapping m = rMap.getMapping(worstMapping);
+				im.classify(m);
+				if(m.getStatus().equals(MappingStatus.CORRECT))
+					continue;
 			}
-			else
-				break;
+			//Removing the mapping changes the conflicts of the
+			//mappings that shared conflict sets with it
+			for(Integer i : rMap.remove(worstMapping))
+				heap.update(i);
+			repairCount++;
 		}
 		aml.removeIncorrect();
 		System.out.println("Finished Repair in " + 
@@ -94,26 +96,4 @@ public class Repairer implements Filterer, Flagger
 				rMap.getMapping(i).setStatus(MappingStatus.FLAGGED);
 		System.out.println("Finished in " +	(System.currentTimeMillis()/1000-time) + " seconds");
 	}
-	
-//Private Methods
-	
-	private int getWorstMapping()
-	{
-		int worstMapping = -1;
-		int maxCard = 0;
-		
-		for(Integer i : rMap)
-		{
-			int card = rMap.getConflicts(i).size();
-			Mapping m = rMap.getMapping(i);
-			if((card > maxCard || (card == maxCard &&
-				m.getSimilarity() < rMap.getMapping(worstMapping).getSimilarity())) &&
-				!m.getStatus().equals(MappingStatus.CORRECT))
-			{
-				maxCard = card;
-				worstMapping = i;
-			}
-		}
-		return worstMapping;
-	}
 }
\ No newline at end of file
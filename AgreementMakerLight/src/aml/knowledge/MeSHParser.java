@@ -70,5 +70,6 @@ public class MeSHParser
 			}
 		}
 		med.save("store/knowledge/mesh.lexicon");
+		MediatorIndex.compile(med, "store/knowledge/mesh.lexicon" + MediatorIndex.EXTENSION);
 	}
 }
\ No newline at end of file
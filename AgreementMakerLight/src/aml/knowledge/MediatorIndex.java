@@ -0,0 +1,585 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A compiled, read-only MediatorLexicon, stored in a binary file that is      *
+* memory-mapped rather than loaded into the heap. The names are pre-          *
+* normalized and sorted (by their UTF-8 bytes) so that they can be found by   *
+* binary search, each with its sorted list of entities and weights, and the   *
+* names of each entity are listed by entity.                                  *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.knowledge;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class MediatorIndex implements MediatorLookup
+{
+
+//Attributes
+	
+	//The version of the index format (must be increased whenever it changes)
+	private static final int FORMAT = 1;
+	//The extension added to a lexicon file to name its compiled index
+	public static final String EXTENSION = ".idx";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	//The byte offsets of the names (and of the end of the last name)
+	private IntBuffer nameOffsets;
+	//The UTF-8 bytes of the sorted names
+	private ByteBuffer nameBytes;
+	//The positions in the entries of the first entry of each name
+	private IntBuffer nameEntries;
+	//The entities and weights of the entries, sorted by entity for each name
+	private IntBuffer entryIds;
+	private DoubleBuffer entryWeights;
+	//The sorted entities
+	private IntBuffer entityIds;
+	//The positions in the entity names of the first name of each entity
+	private IntBuffer entityNameStarts;
+	//The positions of the names of each entity
+	private IntBuffer entityNames;
+	private int nameCount;
+	private int entityCount;
+	
+//Constructors
+	
+	/**
+	 * Opens a MediatorIndex file, mapping it into memory
+	 * @param file: the MediatorIndex file
+	 * @throws IOException if unable to read the file or if
+	 * it isn't in the current MediatorIndex format
+	 */
+	public MediatorIndex(String file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			if(raf.readInt() != FORMAT)
+				throw new IOException("Not a MediatorIndex file (or an outdated one): " + file);
+			nameCount = raf.readInt();
+			entityCount = raf.readInt();
+			int entryCount = raf.readInt();
+			int byteCount = raf.readInt();
+			long position = raf.getFilePointer();
+			//Each section is mapped separately, so that only the name
+			//bytes section is bound by the 2GB limit of a buffer
+			nameOffsets = map(channel, position, (nameCount + 1) * 4L).asIntBuffer();
+			position += (nameCount + 1) * 4L;
+			nameEntries = map(channel, position, (nameCount + 1) * 4L).asIntBuffer();
+			position += (nameCount + 1) * 4L;
+			entryIds = map(channel, position, entryCount * 4L).asIntBuffer();
+			position += entryCount * 4L;
+			entryWeights = map(channel, position, entryCount * 8L).asDoubleBuffer();
+			position += entryCount * 8L;
+			entityIds = map(channel, position, entityCount * 4L).asIntBuffer();
+			position += entityCount * 4L;
+			entityNameStarts = map(channel, position, (entityCount + 1) * 4L).asIntBuffer();
+			position += (entityCount + 1) * 4L;
+			//Each entry is also the name of an entity
+			entityNames = map(channel, position, entryCount * 4L).asIntBuffer();
+			position += entryCount * 4L;
+			nameBytes = map(channel, position, byteCount);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+//Public Methods
+	
+	/**
+	 * Compiles a MediatorLexicon into a MediatorIndex file
+	 * @param lex: the MediatorLexicon to compile
+	 * @param file: the MediatorIndex file to write
+	 * @throws IOException if unable to write the file
+	 */
+	public static void compile(MediatorLexicon lex, String file) throws IOException
+	{
+		//Sort the names by their UTF-8 bytes
+		Name[] names = new Name[lex.nameCount()];
+		int n = 0;
+		long byteCount = 0;
+		for(String s : lex.getNames())
+		{
+			names[n] = new Name(s);
+			byteCount += names[n++].bytes.length;
+		}
+		if(byteCount > Integer.MAX_VALUE)
+			throw new IOException("Too many names for a MediatorIndex: " + byteCount + " bytes");
+		Arrays.sort(names);
+		//List the entries of each name, sorted by entity, and count the names of each entity
+		int[][] ids = new int[names.length][];
+		int entryCount = 0;
+		HashMap<Integer,Integer> entityNameCounts = new HashMap<Integer,Integer>();
+		for(int i = 0; i < names.length; i++)
+		{
+			Set<Integer> entities = lex.getEntities(names[i].name);
+			ids[i] = new int[entities.size()];
+			int j = 0;
+			for(Integer e : entities)
+			{
+				ids[i][j++] = e;
+				Integer count = entityNameCounts.get(e);
+				entityNameCounts.put(e, count == null ? 1 : count + 1);
+			}
+			Arrays.sort(ids[i]);
+			entryCount += ids[i].length;
+		}
+		int[] entities = new int[entityNameCounts.size()];
+		n = 0;
+		for(Integer e : entityNameCounts.keySet())
+			entities[n++] = e;
+		Arrays.sort(entities);
+		//Write the index to a temporary file first, so that an incomplete
+		//index is never read (and an index that is in use is never changed)
+		File f = new File(file);
+		if(f.getParentFile() != null)
+			f.getParentFile().mkdirs();
+		File temp = new File(file + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp),1 << 16));
+		boolean written = false;
+		try
+		{
+			out.writeInt(FORMAT);
+			out.writeInt(names.length);
+			out.writeInt(entities.length);
+			out.writeInt(entryCount);
+			out.writeInt((int)byteCount);
+			int offset = 0;
+			for(Name s : names)
+			{
+				out.writeInt(offset);
+				offset += s.bytes.length;
+			}
+			out.writeInt(offset);
+			int position = 0;
+			for(int[] i : ids)
+			{
+				out.writeInt(position);
+				position += i.length;
+			}
+			out.writeInt(position);
+			for(int[] i : ids)
+				for(int e : i)
+					out.writeInt(e);
+			for(int i = 0; i < ids.length; i++)
+				for(int e : ids[i])
+					out.writeDouble(lex.getWeight(names[i].name, e));
+			for(int e : entities)
+				out.writeInt(e);
+			//The names of each entity are listed by position, which
+			//requires inverting the entries of each name
+			int[] starts = new int[entities.length + 1];
+			for(int i = 0; i < entities.length; i++)
+				starts[i+1] = starts[i] + entityNameCounts.get(entities[i]);
+			int[] next = Arrays.copyOf(starts, entities.length);
+			int[] entityNames = new int[entryCount];
+			for(int i = 0; i < ids.length; i++)
+				for(int e : ids[i])
+					entityNames[next[Arrays.binarySearch(entities, e)]++] = i;
+			for(int s : starts)
+				out.writeInt(s);
+			for(int s : entityNames)
+				out.writeInt(s);
+			for(Name s : names)
+				out.write(s.bytes);
+			written = true;
+		}
+		finally
+		{
+			out.close();
+			if(!written)
+				temp.delete();
+		}
+		f.delete();
+		if(!temp.renameTo(f))
+			throw new IOException("unable to rename " + temp);
+	}
+	
+	@Override
+	public boolean contains(String name)
+	{
+		return find(name) > -1;
+	}
+	
+	@Override
+	public int getBestClass(String name)
+	{
+		int i = find(name);
+		if(i < 0)
+			return -1;
+		int best = -1;
+		int bestCount = 0;
+		double maxWeight = 0.0;
+		for(int j = nameEntries.get(i); j < nameEntries.get(i+1); j++)
+		{
+			double weight = entryWeights.get(j);
+			if(weight > maxWeight)
+			{
+				maxWeight = weight;
+				best = entryIds.get(j);
+				bestCount = 1;
+			}
+			else if(weight == maxWeight && bestCount++ == 0)
+				best = entryIds.get(j);
+		}
+		if(bestCount != 1)
+			return -1;
+		return best;
+	}
+	
+	@Override
+	public Set<Integer> getEntities(String name)
+	{
+		int i = find(name);
+		if(i < 0)
+			return null;
+		return new EntitySet(nameEntries.get(i), nameEntries.get(i+1));
+	}
+	
+	@Override
+	public Set<String> getNames()
+	{
+		return new NameSet(null, 0, nameCount);
+	}
+	
+	@Override
+	public Set<String> getNames(int index)
+	{
+		int i = binarySearch(entityIds, 0, entityCount, index);
+		if(i < 0)
+			return new HashSet<String>();
+		return new NameSet(entityNames, entityNameStarts.get(i), entityNameStarts.get(i+1));
+	}
+	
+	@Override
+	public double getWeight(String name, int entityId)
+	{
+		int i = find(name);
+		if(i < 0)
+			return 0.0;
+		int j = binarySearch(entryIds, nameEntries.get(i), nameEntries.get(i+1), entityId);
+		if(j < 0)
+			return 0.0;
+		return entryWeights.get(j);
+	}
+	
+	/**
+	 * Compiles the given lexicon files into MediatorIndex files with the
+	 * same names plus the MediatorIndex extension
+	 * @param args: the lexicon files to compile
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		for(String file : args)
+		{
+			long time = System.currentTimeMillis()/1000;
+			compile(new MediatorLexicon(file), file + EXTENSION);
+			time = System.currentTimeMillis()/1000 - time;
+			System.out.println(file + " compiled in " + time + " seconds");
+		}
+	}
+	
+	@Override
+	public int nameCount()
+	{
+		return nameCount;
+	}
+	
+	@Override
+	public int nameCount(int entityId)
+	{
+		int i = binarySearch(entityIds, 0, entityCount, entityId);
+		if(i < 0)
+			return 0;
+		return entityNameStarts.get(i+1) - entityNameStarts.get(i);
+	}
+	
+	/**
+	 * Opens a lexicon file for the MediatingMatcher, through its compiled
+	 * MediatorIndex, which is compiled first if the lexicon file doesn't
+	 * have one that is up to date (if the index can't be compiled, the
+	 * lexicon file is read into a MediatorLexicon instead)
+	 * @param file: the lexicon file to open
+	 * @return the MediatorLookup for the lexicon file
+	 * @throws IOException if unable to read the lexicon file
+	 */
+	public static MediatorLookup open(String file) throws IOException
+	{
+		File lex = new File(file);
+		File index = new File(file + EXTENSION);
+		if(index.exists() && index.lastModified() >= lex.lastModified())
+		{
+			try
+			{
+				return new MediatorIndex(index.getPath());
+			}
+			catch(IOException e)
+			{
+				System.out.println("Unable to open " + index + ": " + e.getMessage());
+			}
+		}
+		MediatorLexicon ml = new MediatorLexicon(file);
+		try
+		{
+			System.out.println("Compiling " + index);
+			compile(ml, index.getPath());
+			return new MediatorIndex(index.getPath());
+		}
+		catch(IOException e)
+		{
+			System.out.println("Unable to compile " + index + ": " + e.getMessage());
+			return ml;
+		}
+	}
+	
+//Private Methods
+	
+	//Binary searches for a value in a sorted range of an IntBuffer
+	private static int binarySearch(IntBuffer buffer, int from, int to, int value)
+	{
+		int low = from;
+		int high = to - 1;
+		while(low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			int v = buffer.get(mid);
+			if(v < value)
+				low = mid + 1;
+			else if(v > value)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+	
+	//Compares the name with the given UTF-8 bytes with the name in the given position
+	private int compare(byte[] name, int i)
+	{
+		int start = nameOffsets.get(i);
+		int length = nameOffsets.get(i+1) - start;
+		int n = Math.min(length, name.length);
+		for(int j = 0; j < n; j++)
+		{
+			int c = (nameBytes.get(start + j) & 0xFF) - (name[j] & 0xFF);
+			if(c != 0)
+				return c;
+		}
+		return length - name.length;
+	}
+	
+	//Returns the position of the given name, or -1 if it is not in the index
+	private int find(String name)
+	{
+		byte[] bytes = name.getBytes(UTF8);
+		int low = 0;
+		int high = nameCount - 1;
+		while(low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			int c = compare(bytes, mid);
+			if(c < 0)
+				low = mid + 1;
+			else if(c > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+	
+	//Decodes the name in the given position
+	private String getName(int i)
+	{
+		int start = nameOffsets.get(i);
+		byte[] bytes = new byte[nameOffsets.get(i+1) - start];
+		ByteBuffer b = nameBytes.duplicate();
+		b.position(start);
+		b.get(bytes);
+		return new String(bytes, UTF8);
+	}
+	
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException
+	{
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+	
+	//A name and its UTF-8 bytes, which sort the names in the index
+	private static class Name implements Comparable<Name>
+	{
+		private String name;
+		private byte[] bytes;
+		
+		public Name(String name)
+		{
+			this.name = name;
+			bytes = name.getBytes(UTF8);
+		}
+		
+		@Override
+		public int compareTo(Name o)
+		{
+			int n = Math.min(bytes.length, o.bytes.length);
+			for(int i = 0; i < n; i++)
+			{
+				int c = (bytes[i] & 0xFF) - (o.bytes[i] & 0xFF);
+				if(c != 0)
+					return c;
+			}
+			return bytes.length - o.bytes.length;
+		}
+	}
+	
+	//A view of a range of the entries of a name, as a set of entities
+	private class EntitySet extends AbstractSet<Integer>
+	{
+		private int from;
+		private int to;
+		
+		public EntitySet(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			return o instanceof Integer && binarySearch(entryIds, from, to, (Integer)o) > -1;
+		}
+		
+		@Override
+		public Iterator<Integer> iterator()
+		{
+			return new Iterator<Integer>()
+			{
+				private int next = from;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return next < to;
+				}
+				
+				@Override
+				public Integer next()
+				{
+					if(next >= to)
+						throw new NoSuchElementException();
+					return entryIds.get(next++);
+				}
+				
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return to - from;
+		}
+	}
+	
+	//A view of a range of names, either of all names (if positions is
+	//null) or of the names in a range of the given positions 
+	private class NameSet extends AbstractSet<String>
+	{
+		private IntBuffer positions;
+		private int from;
+		private int to;
+		
+		public NameSet(IntBuffer positions, int from, int to)
+		{
+			this.positions = positions;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if(!(o instanceof String))
+				return false;
+			int i = find((String)o);
+			if(i < 0)
+				return false;
+			if(positions == null)
+				return true;
+			for(int j = from; j < to; j++)
+				if(positions.get(j) == i)
+					return true;
+			return false;
+		}
+		
+		@Override
+		public Iterator<String> iterator()
+		{
+			return new Iterator<String>()
+			{
+				private int next = from;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return next < to;
+				}
+				
+				@Override
+				public String next()
+				{
+					if(next >= to)
+						throw new NoSuchElementException();
+					int i = next++;
+					return getName(positions == null ? i : positions.get(i));
+				}
+				
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return to - from;
+		}
+	}
+}
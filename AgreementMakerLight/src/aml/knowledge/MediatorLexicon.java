@@ -32,7 +32,7 @@ import aml.util.Table2Set;
 import aml.util.StringParser;
 
 
-public class MediatorLexicon
+public class MediatorLexicon implements MediatorLookup
 {
 
 //Attributes
@@ -106,6 +106,7 @@ public class MediatorLexicon
 	 * @param name: the name to check in the MediatorLexicon
 	 * @return whether a class in the MediatorLexicon contains the name
 	 */
+	@Override
 	public boolean contains(String name)
 	{
 		return entityNames.contains(name);
@@ -116,6 +117,7 @@ public class MediatorLexicon
 	 * @return the entity associated with the name that has the highest
 	 * weight, or -1 if there are either no entities or two or more entities
 	 */
+	@Override
 	public int getBestClass(String name)
 	{
 		Set<Integer> hits = getEntities(name);
@@ -149,6 +151,7 @@ public class MediatorLexicon
 	 * @param name: the class name to search in the Lexicon
 	 * @return the list of classes associated with the name
 	 */
+	@Override
 	public Set<Integer> getEntities(String name)
 	{
 		return entityNames.keySet(name);
@@ -157,6 +160,7 @@ public class MediatorLexicon
 	/**
 	 * @return the set of class names in the MediatorLexicon
 	 */
+	@Override
 	public Set<String> getNames()
 	{
 		return entityNames.keySet();
@@ -166,6 +170,7 @@ public class MediatorLexicon
 	 * @param index: the index of the entity to search in the MediatorLexicon
 	 * @return the set of names of the given entity in the MediatorLexicon
 	 */
+	@Override
 	public Set<String> getNames(int index)
 	{
 		if(nameEntities.contains(index))
@@ -178,6 +183,7 @@ public class MediatorLexicon
 	 * @param entityId: the entity to search in the MediatorLexicon
 	 * @return the best weight of the name for that entity
 	 */
+	@Override
 	public double getWeight(String name, int entityId)
 	{
 		if(entityNames.contains(name,entityId))
@@ -188,6 +194,7 @@ public class MediatorLexicon
 	/**
 	 * @return the number of names in the MediatorLexicon
 	 */
+	@Override
 	public int nameCount()
 	{
 		return entityNames.keyCount();
@@ -197,6 +204,7 @@ public class MediatorLexicon
 	 * @param entityId: the entity to search in the MediatorLexicon
 	 * @return the number of names associated with the class
 	 */
+	@Override
 	public int nameCount(int entityId)
 	{
 		return nameEntities.entryCount(entityId);
@@ -0,0 +1,75 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The read-only lookups of a background knowledge lexicon that are used by    *
+* the MediatingMatcher, which are implemented both by the MediatorLexicon     *
+* (kept in memory) and by the MediatorIndex (compiled and memory-mapped).     *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.knowledge;
+
+import java.util.Set;
+
+public interface MediatorLookup
+{
+	/**
+	 * @param name: the name to check in the lexicon
+	 * @return whether a class in the lexicon contains the name
+	 */
+	public boolean contains(String name);
+	
+	/**
+	 * @param name: the name to search in the lexicon
+	 * @return the entity associated with the name that has the highest
+	 * weight, or -1 if there are either no entities or two or more entities
+	 */
+	public int getBestClass(String name);
+	
+	/**
+	 * @param name: the class name to search in the lexicon
+	 * @return the set of classes associated with the name,
+	 * or null if the name is not in the lexicon
+	 */
+	public Set<Integer> getEntities(String name);
+	
+	/**
+	 * @return the set of class names in the lexicon
+	 */
+	public Set<String> getNames();
+	
+	/**
+	 * @param index: the index of the entity to search in the lexicon
+	 * @return the set of names of the given entity in the lexicon
+	 */
+	public Set<String> getNames(int index);
+	
+	/**
+	 * @param name: the name to search in the lexicon
+	 * @param entityId: the entity to search in the lexicon
+	 * @return the best weight of the name for that entity
+	 */
+	public double getWeight(String name, int entityId);
+	
+	/**
+	 * @return the number of names in the lexicon
+	 */
+	public int nameCount();
+	
+	/**
+	 * @param entityId: the entity to search in the lexicon
+	 * @return the number of names associated with the class
+	 */
+	public int nameCount(int entityId);
+}
@@ -12,13 +12,21 @@
 * limitations under the License.                                              *
 *                                                                             *
 *******************************************************************************
-* An Ontology object, loaded using the OWL API.                               *
+* An Ontology object, loaded using the OWL API, or from a store of its        *
+* lexicon and cross-references that is saved the first time it is loaded.     *
 *                                                                             *
 * @author Daniel Faria                                                        *
 ******************************************************************************/
 package aml.knowledge;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Set;
@@ -36,6 +44,7 @@ import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 
+import aml.ontology.OntologySnapshot;
 import aml.ontology.ReferenceMap;
 import aml.settings.LexicalType;
 import aml.util.StringParser;
@@ -47,10 +56,16 @@ public class MediatorOntology
 	
 	//The entity expansion limit property
     private final String LIMIT = "entityExpansionLimit";
+	//The version of the store format (which must be increased whenever
+	//the format changes, so that older stores are rebuilt)
+	private static final int FORMAT = 2;
+	//The extension of the store file with the URI and cross-references
+	//(the lexicon is stored alongside it in a MediatorIndex file)
+	public static final String EXTENSION = ".refs";
 	//The URI of the ontology
 	private String uri;
 	//Its lexicon
-	private MediatorLexicon lex;
+	private MediatorLookup lex;
 	//Its map of cross-references
 	private ReferenceMap refs;
 	
@@ -62,26 +77,30 @@ public class MediatorOntology
 	 */
 	private MediatorOntology()
 	{
-		lex = new MediatorLexicon();
 		refs = new ReferenceMap();
 	}
 	
 	/**
-	 * Constructs an Ontology from file 
+	 * Constructs an Ontology from file, or from its store if it has one
+	 * that is up to date with the file and its xrefs file
 	 * @param path: the path to the input Ontology file
 	 * @throws OWLOntologyCreationException 
 	 */
 	public MediatorOntology(String path) throws OWLOntologyCreationException
 	{
 		this();
+		String refName = path.substring(0,path.lastIndexOf(".")) + ".xrefs";
+		if(openStore(path, refName))
+			return;
         //Load the local ontology
-		init(path);
+		MediatorLexicon lexicon = init(path);
+		lex = lexicon;
         //Check if a xrefs file with the same name as the ontology exists 
 		//And if so, use it to extend the ReferenceMap
-		String refName = path.substring(0,path.lastIndexOf(".")) + ".xrefs";
 		File f = new File(refName);
 		if(f.exists())
 			refs.extend(refName);
+		saveStore(path, lexicon);
 	}
 
 //Public Methods
@@ -97,9 +116,9 @@ public class MediatorOntology
 	}
 	
 	/**
-	 * @return the MediatorLexicon of the Ontology
+	 * @return the MediatorLexicon (or MediatorIndex) of the Ontology
 	 */
-	public MediatorLexicon getMediatorLexicon()
+	public MediatorLookup getMediatorLexicon()
 	{
 		return lex;
 	}
@@ -122,9 +141,10 @@ public class MediatorOntology
 		
 //Private Methods	
 
-	//Builds the ontology data structures
-	private void init(String path) throws OWLOntologyCreationException
+	//Builds the ontology data structures, returning its lexicon
+	private MediatorLexicon init(String path) throws OWLOntologyCreationException
 	{
+		MediatorLexicon lexicon = new MediatorLexicon();
         //Increase the entity expansion limit to allow large ontologies
         System.setProperty(LIMIT, "1000000");
         //Get an Ontology Manager and Data Factory
@@ -163,7 +183,7 @@ public class MediatorOntology
 			{
 				type = LexicalType.LOCAL_NAME;
 				weight = type.getDefaultWeight();
-				lex.add(id, name, weight);
+				lexicon.add(id, name, weight);
 			}
 
 			//Now get the class's annotations (including imports)
@@ -185,7 +205,7 @@ public class MediatorOntology
 	            		String lang = val.getLang();
 	            		if(lang.equals(""))
 	            			lang = "en";
-	            		lex.add(id, name, weight);
+	            		lexicon.add(id, name, weight);
 		            }
 	            	else if(annotation.getValue() instanceof IRI)
 	            	{
@@ -196,7 +216,7 @@ public class MediatorOntology
 	                       	{
 	                       		OWLLiteral val = (OWLLiteral) a.getValue();
 	                       		name = val.getLiteral();
-    		            		lex.add(id, name, weight);
+    		            		lexicon.add(id, name, weight);
 	                       	}
 	            		}
 	            	}
@@ -218,6 +238,7 @@ public class MediatorOntology
         manager.removeOntology(o);
         //Reset the entity expansion limit
         System.clearProperty(LIMIT);
+        return lexicon;
 	}
 	
 	//Get the local name of an entity from its URI
@@ -240,4 +261,101 @@ public class MediatorOntology
 			index = newUri.lastIndexOf("/") + 1;
 		return newUri.substring(index);
 	}
+	
+	//Opens the store of the ontology in the given path, if it has one
+	//that is up to date with both the ontology and xrefs files
+	private boolean openStore(String path, String refName)
+	{
+		File store = new File(path + EXTENSION);
+		File index = new File(path + MediatorIndex.EXTENSION);
+		if(!store.exists() || !index.exists())
+			return false;
+		long stored = Math.min(store.lastModified(), index.lastModified());
+		File ont = new File(path);
+		File xrefs = new File(refName);
+		if((ont.exists() && ont.lastModified() > stored) ||
+				(xrefs.exists() && xrefs.lastModified() > stored))
+			return false;
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(store),1 << 16));
+			if(in.readInt() != FORMAT)
+				return false;
+			uri = OntologySnapshot.readString(in);
+			int terms = in.readInt();
+			for(int i = 0; i < terms; i++)
+			{
+				int term = in.readInt();
+				int count = in.readInt();
+				for(int j = 0; j < count; j++)
+					refs.add(term, OntologySnapshot.readString(in));
+			}
+			lex = new MediatorIndex(index.getPath());
+			return true;
+		}
+		catch(IOException e)
+		{
+			System.out.println("Unable to read store " + store + ": " + e.getMessage());
+			uri = null;
+			refs = new ReferenceMap();
+			return false;
+		}
+		finally
+		{
+			try
+			{
+				if(in != null)
+					in.close();
+			}
+			catch(IOException e)
+			{
+				//Nothing to do
+			}
+		}
+	}
+	
+	//Saves the lexicon and cross-references of the ontology in the given path
+	//to its store, so that it needn't be parsed again
+	private void saveStore(String path, MediatorLexicon lexicon)
+	{
+		File store = new File(path + EXTENSION);
+		//Remove the store first, so that it is never read with
+		//an incomplete index
+		store.delete();
+		File temp = new File(store.getPath() + ".tmp");
+		try
+		{
+			MediatorIndex.compile(lexicon, path + MediatorIndex.EXTENSION);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp),1 << 16));
+			boolean written = false;
+			try
+			{
+				out.writeInt(FORMAT);
+				OntologySnapshot.writeString(out, uri);
+				out.writeInt(refs.termCount());
+				for(Integer t : refs.getTerms())
+				{
+					Set<String> r = refs.get(t);
+					out.writeInt(t);
+					out.writeInt(r.size());
+					for(String s : r)
+						OntologySnapshot.writeString(out, s);
+				}
+				written = true;
+			}
+			finally
+			{
+				out.close();
+				if(!written)
+					temp.delete();
+			}
+			if(!temp.renameTo(store))
+				throw new IOException("unable to rename " + temp);
+		}
+		catch(IOException e)
+		{
+			System.out.println("Unable to save store " + store + ": " + e.getMessage());
+		}
+	}
 }
\ No newline at end of file
@@ -52,5 +52,6 @@ public class UMLSParser
 		}
 		inStream.close();
 		med.save("store/knowledge/UMLS.lexicon");
+		MediatorIndex.compile(med, "store/knowledge/UMLS.lexicon" + MediatorIndex.EXTENSION);
 	}
 }
\ No newline at end of file
@@ -47,7 +47,7 @@ import aml.ontology.URIMap;
 import aml.settings.EntityType;
 import aml.settings.MappingRelation;
 import aml.settings.MappingStatus;
-import aml.util.Table2Map;
+import aml.util.IntTable2Map;
 
 public class Alignment implements Collection<Mapping>
 {
@@ -57,9 +57,9 @@ public class Alignment implements Collection<Mapping>
 	//Term mappings organized in list
 	private Vector<Mapping> maps;
 	//Term mappings organized by source class (Source Id, Target Id, Mapping)
-	private Table2Map<Integer,Integer,Mapping> sourceMaps;
+	private IntTable2Map<Mapping> sourceMaps;
 	//Term mappings organized by target class (Target Id, Source Id, Mapping)
-	private Table2Map<Integer,Integer,Mapping> targetMaps;
+	private IntTable2Map<Mapping> targetMaps;
 	//Link to AML and the Ontologies
 	private AML aml;
 	private Ontology source;
@@ -75,8 +75,8 @@ public class Alignment implements Collection<Mapping>
 	public Alignment()
 	{
 		maps = new Vector<Mapping>(0,1);
-		sourceMaps = new Table2Map<Integer,Integer,Mapping>();
-		targetMaps = new Table2Map<Integer,Integer,Mapping>();
+		sourceMaps = new IntTable2Map<Mapping>();
+		targetMaps = new IntTable2Map<Mapping>();
 		aml = AML.getInstance();
 		source = aml.getSource();
 		target = aml.getTarget();
@@ -305,8 +305,8 @@ public class Alignment implements Collection<Mapping>
 	public void clear()
 	{
 		maps = new Vector<Mapping>(0,1);
-		sourceMaps = new Table2Map<Integer,Integer,Mapping>();
-		targetMaps = new Table2Map<Integer,Integer,Mapping>();		
+		sourceMaps = new IntTable2Map<Mapping>();
+		targetMaps = new IntTable2Map<Mapping>();		
 	}
 	
 	/**
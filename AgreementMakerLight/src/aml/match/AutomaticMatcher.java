@@ -31,7 +31,8 @@ import aml.filter.InteractiveFilterer;
 import aml.filter.ObsoleteFilterer;
 import aml.filter.Repairer;
 import aml.filter.Selector;
-import aml.knowledge.MediatorLexicon;
+import aml.knowledge.MediatorIndex;
+import aml.knowledge.MediatorLookup;
 import aml.ontology.Ontology;
 import aml.settings.EntityType;
 import aml.settings.InstanceMatchingCategory;
@@ -178,7 +179,7 @@ public class AutomaticMatcher
 					{
 						try
 						{
-							MediatorLexicon ml = new MediatorLexicon(BK_PATH + bk);
+							MediatorLookup ml = MediatorIndex.open(BK_PATH + bk);
 							MediatingMatcher mm = new MediatingMatcher(ml, BK_PATH + bk);
 							Alignment med = mm.match(EntityType.CLASS, thresh);
 							double gain = med.gain(lex);
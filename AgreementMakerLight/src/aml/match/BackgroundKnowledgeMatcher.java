@@ -32,7 +32,8 @@ import java.util.Vector;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 
 import aml.AML;
-import aml.knowledge.MediatorLexicon;
+import aml.knowledge.MediatorIndex;
+import aml.knowledge.MediatorLookup;
 import aml.knowledge.MediatorOntology;
 import aml.settings.EntityType;
 import aml.settings.SelectionType;
@@ -119,7 +120,7 @@ public class BackgroundKnowledgeMatcher implements PrimaryMatcher
 			{
 				try
 				{
-					MediatorLexicon ml = new MediatorLexicon(path + s);
+					MediatorLookup ml = MediatorIndex.open(path + s);
 					MediatingMatcher mm = new MediatingMatcher(ml, (new File(path + s)).toURI().toString());
 					temp = mm.match(e,thresh);
 				}
@@ -0,0 +1,33 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A candidate generation stage for matchers that compare entities pairwise,   *
+* which restricts the target entities that need to be scored for each source  *
+* entity to those that can possibly reach the similarity threshold.           *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.match;
+
+import java.util.Set;
+
+public interface CandidateGenerator
+{
+	/**
+	 * @param sourceId: the index of the source entity to match
+	 * @return the set of target entities that are candidates for
+	 * matching with the given source entity
+	 */
+	public Set<Integer> getCandidates(int sourceId);
+}
@@ -0,0 +1,50 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A CandidateGenerator that proposes all target entities for every source     *
+* entity (i.e., a full source x target scan), for use with similarity         *
+* measures that have no blocking strategy.                                    *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.match;
+
+import java.util.Set;
+
+public class ExhaustiveCandidateGenerator implements CandidateGenerator
+{
+
+//Attributes
+	
+	private Set<Integer> targets;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new ExhaustiveCandidateGenerator
+	 * @param t: the set of target entities to propose
+	 */
+	public ExhaustiveCandidateGenerator(Set<Integer> t)
+	{
+		targets = t;
+	}
+	
+//Public Methods
+	
+	@Override
+	public Set<Integer> getCandidates(int sourceId)
+	{
+		return targets;
+	}
+}
@@ -26,7 +26,7 @@ import java.util.Set;
 
 import aml.AML;
 import aml.ext.LexiconExtender;
-import aml.knowledge.MediatorLexicon;
+import aml.knowledge.MediatorLookup;
 import aml.knowledge.MediatorOntology;
 import aml.ontology.Lexicon;
 import aml.settings.EntityType;
@@ -45,8 +45,8 @@ public class MediatingMatcher implements LexiconExtender, PrimaryMatcher
 			  								  "knowledge source.";
 	private static final String NAME = "Mediating Matcher";
 	private static final EntityType[] SUPPORT = {EntityType.CLASS};
-	//The MediatorLexicon used by this matcher
-	protected MediatorLexicon ext;
+	//The MediatorLexicon (or MediatorIndex) used by this matcher
+	protected MediatorLookup ext;
 	protected String uri;
 	//The type of lexical entry generated by this Lexicon extender
 	protected final LexicalType TYPE = LexicalType.EXTERNAL_MATCH;
@@ -64,11 +64,11 @@ public class MediatingMatcher implements LexiconExtender, PrimaryMatcher
 	}
 	
 	/**
-	 * Constructs a MediatingMatcher with the given MediatorLexicon
-	 * @param x: the MediatorLexicon
-	 * @param u: the URI of the MediatorLexicon
+	 * Constructs a MediatingMatcher with the given MediatorLexicon or MediatorIndex
+	 * @param x: the MediatorLexicon or MediatorIndex
+	 * @param u: the URI of the MediatorLexicon or MediatorIndex
 	 */
-	public MediatingMatcher(MediatorLexicon x, String u)
+	public MediatingMatcher(MediatorLookup x, String u)
 	{
 		ext = x;
 		uri = u;
@@ -19,15 +19,10 @@
 ******************************************************************************/
 package aml.match;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import aml.AML;
+import aml.ontology.ClosureIndex;
 import aml.ontology.RelationshipMap;
 import aml.settings.EntityType;
 import aml.settings.NeighborSimilarityStrategy;
@@ -46,11 +41,11 @@ public class NeighborSimilarityMatcher implements SecondaryMatcher, Rematcher
 	//Links to ontology data structures
 	private AML aml;
 	private RelationshipMap rels;
+	private ClosureIndex ancestors;
+	private ClosureIndex descendants;
 	private Alignment input;
 	private NeighborSimilarityStrategy strat;
 	private boolean direct;
-	//The available CPU threads
-	private int threads;
 	
 //Constructors
 	
@@ -58,9 +53,10 @@ public class NeighborSimilarityMatcher implements SecondaryMatcher, Rematcher
 	{
 		aml = AML.getInstance();
 		rels = aml.getRelationshipMap();
+		ancestors = rels.getAncestorIndex();
+		descendants = rels.getDescendantIndex();
 		strat = NeighborSimilarityStrategy.MINIMUM;
 		direct = aml.directNeighbors();
-		threads = Runtime.getRuntime().availableProcessors();
 	}
 	
 	public NeighborSimilarityMatcher(NeighborSimilarityStrategy s, boolean direct)
@@ -179,78 +175,61 @@ public class NeighborSimilarityMatcher implements SecondaryMatcher, Rematcher
 			throw new UnsupportedEntityTypeException(e.toString());
 	}
 	
-	//Maps a table of classes in parallel, using all available threads
+	//Maps a table of classes in parallel, using the AML TaskScheduler
 	private Alignment mapInParallel(Table2Set<Integer,Integer> toMap, double thresh)
 	{
-		Alignment maps = new Alignment();
-		ArrayList<MappingTask> tasks = new ArrayList<MappingTask>();
-		for(Integer i : toMap.keySet())
-			for(Integer j : toMap.get(i))
-				tasks.add(new MappingTask(i,j));
-        List<Future<Mapping>> results;
-		ExecutorService exec = Executors.newFixedThreadPool(threads);
-		try
-		{
-			results = exec.invokeAll(tasks);
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-	        results = new ArrayList<Future<Mapping>>();
-		}
-		exec.shutdown();
-		for(Future<Mapping> fm : results)
-		{
-			try
-			{
-				Mapping m = fm.get();
-				if(m.getSimilarity() >= thresh)
-					maps.add(m);
-			}
-			catch(Exception e)
-			{
-				e.printStackTrace();
-			}
-		}
-		return maps;
+		return ParallelMapper.map(new MappingScorer(), toMap, thresh);
 	}
 	
 	//Computes the neighbor structural similarity between two terms by
 	//checking for mappings between all their ancestors and descendants
+	//(iterating over the 'is_a' relationships in the ClosureIndexes, at
+	//distance 1 if only direct neighbors are used)
 	private double mapTwoTerms(int sId, int tId)
 	{
 		double parentSim = 0.0;
 		double childrenSim = 0.0;
+		int distance = direct ? 1 : -1;
 		if(!strat.equals(NeighborSimilarityStrategy.DESCENDANTS))
 		{
 			double parentTotal = 0.0;
-			Set<Integer> sourceParents = rels.getSuperClasses(sId,direct);
-			Set<Integer> targetParents = rels.getSuperClasses(tId,direct);
-			for(Integer i : sourceParents)
+			for(int k = ancestors.next(sId,ancestors.begin(sId),distance,-1); k < ancestors.end(sId);
+					k = ancestors.next(sId,k+1,distance,-1))
 			{
+				int i = ancestors.getRelated(k);
 				parentTotal += 0.5 / rels.getDistance(sId,i);
-				for(Integer j : targetParents)
+				for(int l = ancestors.next(tId,ancestors.begin(tId),distance,-1); l < ancestors.end(tId);
+						l = ancestors.next(tId,l+1,distance,-1))
+				{
+					int j = ancestors.getRelated(l);
 					parentSim += input.getSimilarity(i,j) /
 						Math.sqrt(rels.getDistance(sId,i) * rels.getDistance(tId, j));
+				}
 			}
-			for(Integer i : targetParents)
-				parentTotal += 0.5 / rels.getDistance(tId,i);
+			for(int l = ancestors.next(tId,ancestors.begin(tId),distance,-1); l < ancestors.end(tId);
+					l = ancestors.next(tId,l+1,distance,-1))
+				parentTotal += 0.5 / rels.getDistance(tId,ancestors.getRelated(l));
 			parentSim /= parentTotal;
 		}
 		if(!strat.equals(NeighborSimilarityStrategy.ANCESTORS))
 		{
 			double childrenTotal = 0.0;
-			Set<Integer> sourceChildren = rels.getSubClasses(sId,direct);
-			Set<Integer> targetChildren = rels.getSubClasses(tId,direct);
-			for(Integer i : sourceChildren)
+			for(int k = descendants.next(sId,descendants.begin(sId),distance,-1); k < descendants.end(sId);
+					k = descendants.next(sId,k+1,distance,-1))
 			{
+				int i = descendants.getRelated(k);
 				childrenTotal += 0.5 / rels.getDistance(i,sId);
-				for(Integer j : targetChildren)
+				for(int l = descendants.next(tId,descendants.begin(tId),distance,-1); l < descendants.end(tId);
+						l = descendants.next(tId,l+1,distance,-1))
+				{
+					int j = descendants.getRelated(l);
 					childrenSim += input.getSimilarity(i,j) /
 						Math.sqrt(rels.getDistance(i,sId) * rels.getDistance(j,tId));
+				}
 			}
-			for(Integer i : targetChildren)
-				childrenTotal += 0.5 / rels.getDistance(i,tId);
+			for(int l = descendants.next(tId,descendants.begin(tId),distance,-1); l < descendants.end(tId);
+					l = descendants.next(tId,l+1,distance,-1))
+				childrenTotal += 0.5 / rels.getDistance(descendants.getRelated(l),tId);
 			childrenSim /= childrenTotal;
 		}
 		if(strat.equals(NeighborSimilarityStrategy.ANCESTORS))
@@ -265,22 +244,13 @@ public class NeighborSimilarityMatcher implements SecondaryMatcher, Rematcher
 			return (parentSim + childrenSim)*0.5;
 	}
 	
-	//Callable class for mapping two classes
-	private class MappingTask implements Callable<Mapping>
+	//PairScorer class for mapping two classes
+	private class MappingScorer implements PairScorer
 	{
-		private int source;
-		private int target;
-		
-		MappingTask(int s, int t)
-	    {
-			source = s;
-	        target = t;
-	    }
-	        
-	    @Override
-	    public Mapping call()
-	    {
-       		return new Mapping(source,target,mapTwoTerms(source,target));
-        }
+		@Override
+		public double score(int source, int target)
+		{
+			return mapTwoTerms(source,target);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Scores pairs of entities in parallel, using a PairScorer and the AML        *
+* TaskScheduler. Pairs are streamed into fixed-size chunks, each of which is  *
+* scored by a single task, and the number of chunks in flight is bounded so   *
+* that memory use doesn't grow with the number of pairs. Mappings are only    *
+* created for pairs with similarity at or above the threshold.                *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.match;
+
+import java.util.LinkedList;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import aml.AML;
+import aml.util.Table2Set;
+import aml.util.TaskScheduler;
+
+public class ParallelMapper
+{
+
+//Attributes
+	
+	//The maximum number of pairs scored by each task
+	private static final int MAX_CHUNK_SIZE = 1000;
+	private PairScorer scorer;
+	private double thresh;
+	private TaskScheduler scheduler;
+	//The maximum number of tasks in flight
+	private int maxInFlight;
+	//The tasks in flight, in order of submission
+	private LinkedList<Future<Vector<Mapping>>> inFlight;
+	//The chunk currently being filled
+	private int chunkSize;
+	private int[] sources;
+	private int[] targets;
+	private int count;
+	//The alignment with the results of the finished tasks
+	private Alignment maps;
+	//Whether a task failed or was interrupted (after which no more
+	//pairs are scored)
+	private boolean stopped;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new ParallelMapper
+	 * @param s: the PairScorer with which to compute similarities
+	 * @param t: the similarity threshold
+	 */
+	public ParallelMapper(PairScorer s, double t)
+	{
+		this(s,t,Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Constructs a new ParallelMapper for a known number of pairs,
+	 * adapting the chunk size so that all threads get work
+	 * @param s: the PairScorer with which to compute similarities
+	 * @param t: the similarity threshold
+	 * @param pairs: the expected number of pairs to score
+	 */
+	public ParallelMapper(PairScorer s, double t, int pairs)
+	{
+		AML aml = AML.getInstance();
+		scorer = s;
+		thresh = t;
+		scheduler = aml.getScheduler();
+		maxInFlight = aml.getMaxInFlightTasks();
+		inFlight = new LinkedList<Future<Vector<Mapping>>>();
+		chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, pairs / (4 * scheduler.getParallelism())));
+		newChunk();
+		maps = new Alignment();
+	}
+	
+//Public Methods
+	
+	/**
+	 * Adds a pair of entities to score
+	 * @param sourceId: the index of the source entity
+	 * @param targetId: the index of the target entity
+	 */
+	public void add(int sourceId, int targetId)
+	{
+		checkNotStopped();
+		sources[count] = sourceId;
+		targets[count] = targetId;
+		count++;
+		if(count == chunkSize)
+			submitChunk();
+	}
+	
+	/**
+	 * Adds all pairs of entities in the given table to score
+	 * @param toMap: the table of source entities to target entities
+	 */
+	public void addAll(Table2Set<Integer,Integer> toMap)
+	{
+		for(Integer i : toMap.keySet())
+			for(Integer j : toMap.get(i))
+				add(i,j);
+	}
+	
+	/**
+	 * Waits until all pairs are scored
+	 * @return the Alignment with the pairs that have similarity
+	 * at or above the threshold, in the order they were added
+	 */
+	public Alignment getAlignment()
+	{
+		checkNotStopped();
+		if(count > 0)
+			submitChunk();
+		while(!inFlight.isEmpty())
+			collect();
+		return maps;
+	}
+	
+	/**
+	 * Scores all pairs in the given table in parallel
+	 * @param s: the PairScorer with which to compute similarities
+	 * @param toMap: the table of source entities to target entities
+	 * @param thresh: the similarity threshold
+	 * @return the Alignment with the pairs that have similarity
+	 * at or above the threshold
+	 */
+	public static Alignment map(PairScorer s, Table2Set<Integer,Integer> toMap, double thresh)
+	{
+		ParallelMapper pm = new ParallelMapper(s,thresh,toMap.size());
+		pm.addAll(toMap);
+		return pm.getAlignment();
+	}
+	
+//Private Methods
+	
+	//Cancels the tasks in flight and stops taking new pairs
+	private void cancel()
+	{
+		for(Future<Vector<Mapping>> f : inFlight)
+			f.cancel(true);
+		inFlight.clear();
+		stopped = true;
+	}
+	
+	//Checks that no task has failed or been interrupted, as the
+	//alignment would otherwise be missing the pairs of that task
+	private void checkNotStopped()
+	{
+		if(stopped)
+			throw new IllegalStateException("The ParallelMapper was stopped by a failed or interrupted task");
+	}
+	
+	//Gets the results of the oldest task in flight (if it failed or
+	//the wait is interrupted, the tasks in flight are cancelled and
+	//the failure is passed on rather than losing the pairs of the task)
+	private void collect()
+	{
+		Future<Vector<Mapping>> f = inFlight.removeFirst();
+		try
+		{
+			maps.addAll(f.get());
+		}
+		catch(InterruptedException e)
+		{
+			f.cancel(true);
+			cancel();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Pair scoring interrupted", e);
+		}
+		catch(ExecutionException e)
+		{
+			cancel();
+			throw new RuntimeException("Pair scoring failed", e.getCause());
+		}
+	}
+	
+	private void newChunk()
+	{
+		sources = new int[chunkSize];
+		targets = new int[chunkSize];
+		count = 0;
+	}
+	
+	//Submits the current chunk, waiting for the oldest task first
+	//if the maximum number of tasks in flight is reached
+	private void submitChunk()
+	{
+		while(inFlight.size() >= maxInFlight)
+			collect();
+		inFlight.add(scheduler.submit(new ChunkTask(sources,targets,count)));
+		newChunk();
+	}
+	
+	//Callable class for scoring a chunk of pairs
+	private class ChunkTask implements Callable<Vector<Mapping>>
+	{
+		private int[] sourceIds;
+		private int[] targetIds;
+		private int size;
+		
+		ChunkTask(int[] s, int[] t, int n)
+		{
+			sourceIds = s;
+			targetIds = t;
+			size = n;
+		}
+		
+		@Override
+		public Vector<Mapping> call()
+		{
+			Vector<Mapping> results = new Vector<Mapping>();
+			for(int i = 0; i < size; i++)
+			{
+				double sim = scorer.score(sourceIds[i], targetIds[i]);
+				//Mappings round their similarity, so the threshold
+				//is checked against the rounded value
+				if(Math.round(sim*10000)/10000.0 >= thresh)
+					results.add(new Mapping(sourceIds[i], targetIds[i], sim));
+			}
+			return results;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A CandidateGenerator based on an inverted index of the character q-grams    *
+* (trigrams) of the Lexicon entries of the target entities. When the          *
+* similarity threshold is positive, a target entity is proposed for a source  *
+* entity only if their (non-formula) names share at least one q-gram.         *
+*                                                                             *
+* Because the ISub measure only counts common substrings of 3 or more         *
+* characters, and yields a similarity of 0 when two names share no such       *
+* substring, any pair of entities with a positive ISub-based similarity must  *
+* share at least one trigram, so this blocking is lossless for ISub.          *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.match;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+
+import aml.ontology.Lexicon;
+import aml.settings.LexicalType;
+
+public class QGramCandidateGenerator implements CandidateGenerator
+{
+
+//Attributes
+	
+	//The size of the q-grams
+	private static final int Q = 3;
+	//The source Lexicon
+	private Lexicon sLex;
+	//The set of target entities (returned when no blocking is possible)
+	private Set<Integer> targets;
+	//The inverted index of q-grams (String) to target entities (Integer),
+	//which is null when no blocking is possible
+	private HashMap<String,Vector<Integer>> qGramIndex;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new QGramCandidateGenerator, indexing the names
+	 * of the given target entities
+	 * @param s: the source Lexicon
+	 * @param t: the target Lexicon
+	 * @param targetIds: the set of target entities to index
+	 * @param thresh: the similarity threshold of the matching
+	 */
+	public QGramCandidateGenerator(Lexicon s, Lexicon t, Set<Integer> targetIds, double thresh)
+	{
+		sLex = s;
+		targets = targetIds;
+		//Any pair with a positive similarity shares at least one q-gram,
+		//so blocking is only possible when the threshold is positive
+		//(a higher threshold doesn't require more shared q-grams, as ISub
+		//counts common characters rather than distinct q-grams)
+		if(thresh <= 0)
+			return;
+		qGramIndex = new HashMap<String,Vector<Integer>>();
+		for(Integer j : targets)
+		{
+			for(String g : getQGrams(t,j))
+			{
+				Vector<Integer> entities = qGramIndex.get(g);
+				if(entities == null)
+				{
+					entities = new Vector<Integer>(1,1);
+					qGramIndex.put(g, entities);
+				}
+				entities.add(j);
+			}
+		}
+	}
+	
+//Public Methods
+	
+	@Override
+	public Set<Integer> getCandidates(int sourceId)
+	{
+		if(qGramIndex == null)
+			return targets;
+		HashSet<Integer> candidates = new HashSet<Integer>();
+		for(String g : getQGrams(sLex,sourceId))
+		{
+			Vector<Integer> entities = qGramIndex.get(g);
+			if(entities != null)
+				candidates.addAll(entities);
+		}
+		return candidates;
+	}
+	
+//Private Methods
+	
+	//Gets the set of distinct q-grams in the non-formula names of an entity
+	private Set<String> getQGrams(Lexicon lex, int id)
+	{
+		HashSet<String> qGrams = new HashSet<String>();
+		for(String n : lex.getNames(id))
+		{
+			if(n.length() < Q || lex.getTypes(n,id).contains(LexicalType.FORMULA))
+				continue;
+			for(int i = 0; i + Q <= n.length(); i++)
+				qGrams.add(n.substring(i, i+Q));
+		}
+		return qGrams;
+	}
+}
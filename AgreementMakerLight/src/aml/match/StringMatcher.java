@@ -22,17 +22,11 @@
 ******************************************************************************/
 package aml.match;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
-import uk.ac.shef.wit.simmetrics.similaritymetrics.JaroWinkler;
-import uk.ac.shef.wit.simmetrics.similaritymetrics.Levenshtein;
-import uk.ac.shef.wit.simmetrics.similaritymetrics.QGramsDistance;
 import aml.AML;
 import aml.ontology.Ontology;
 import aml.ontology.Lexicon;
@@ -43,7 +37,8 @@ import aml.settings.LanguageSetting;
 import aml.settings.LexicalType;
 import aml.settings.MappingRelation;
 import aml.settings.StringSimMeasure;
-import aml.util.ISub;
+import aml.util.ISubMeasure;
+import aml.util.StringSimilarityMeasure;
 import aml.util.Table2Set;
 
 public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatcher
@@ -64,14 +59,19 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 	private Lexicon tLex;
 	//Language setting and languages
 	private LanguageSetting lSet;
-	private Set<String> languages;
+	private String[] languages;
 	//Similarity measure
-	private StringSimMeasure measure = StringSimMeasure.ISUB;
+	private StringSimilarityMeasure measure = StringSimMeasure.ISUB.getMeasure();
 	//Correction factor (to make string similarity values comparable to word similarity values
 	//and thus enable their combination and proper selection; 0.8 is optimized for the ISub measure)
 	private final double CORRECTION = 0.80;
-	//The available CPU threads
-	private int threads;
+	//Margins for skipping pairs of names: mapping similarities are rounded
+	//to 4 decimal places, and the similarity bounds must tolerate rounding
+	private final double ROUNDING = 0.0001;
+	private final double MARGIN = 0.000001;
+	//Names of the source and target entities sorted by weight, per language
+	private ConcurrentHashMap<Integer,WeightedName[][]> sourceCache = new ConcurrentHashMap<Integer,WeightedName[][]>();
+	private ConcurrentHashMap<Integer,WeightedName[][]> targetCache = new ConcurrentHashMap<Integer,WeightedName[][]>();
 
 //Constructors
 	
@@ -81,14 +81,13 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 	 */
 	public StringMatcher()
 	{
-		threads = Runtime.getRuntime().availableProcessors();
 		aml = AML.getInstance();
 		source = aml.getSource();
 		target = aml.getTarget();
 		sLex = source.getLexicon();
 		tLex = target.getLexicon();
 		lSet = AML.getInstance().getLanguageSetting();
-		languages = aml.getLanguages();
+		languages = aml.getLanguages().toArray(new String[0]);
 	}
 
 	/**
@@ -96,6 +95,16 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 	 * @args m: the string similarity measure
 	 */
 	public StringMatcher(StringSimMeasure m)
+	{
+		this(m.getMeasure());
+	}
+	
+	/**
+	 * Constructs a new ParametricStringMatcher with the given String similarity
+	 * measure implementation (e.g., one registered in StringSimilarityMeasures)
+	 * @args m: the string similarity measure
+	 */
+	public StringMatcher(StringSimilarityMeasure m)
 	{
 		this();
 		measure = m;
@@ -164,22 +173,29 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 		long time = System.currentTimeMillis()/1000;
 		Set<Integer> sources = sLex.getEntities(e);
 		Set<Integer> targets = tLex.getEntities(e);
-		Alignment a = new Alignment();
+		//Only the ISub measure supports blocking, so the other measures
+		//require a full scan of the target entities
+		CandidateGenerator cands;
+		if(measure instanceof ISubMeasure)
+			cands = new QGramCandidateGenerator(sLex,tLex,targets,thresh);
+		else
+			cands = new ExhaustiveCandidateGenerator(targets);
+		//The candidate pairs are streamed to the mapper as they are generated
+		ParallelMapper pm = new ParallelMapper(new MappingScorer(thresh),thresh);
 		for(Integer i : sources)
 		{
 			if(e.equals(EntityType.INDIVIDUAL) && !aml.isToMatchSource(i))
 				continue;
-			Table2Set<Integer,Integer> toMap = new Table2Set<Integer,Integer>();
-			for(Integer j : targets)
+			for(Integer j : cands.getCandidates(i))
 			{
 				if(e.equals(EntityType.INDIVIDUAL) && (!aml.isToMatchTarget(j) ||
 						(aml.getInstanceMatchingCategory().equals(InstanceMatchingCategory.SAME_CLASSES) &&
 						!aml.getRelationshipMap().shareClass(i,j))))
 					continue;
-				toMap.add(i,j);
+				pm.add(i,j);
 			}
-			a.addAll(mapInParallel(toMap,thresh));
 		}
+		Alignment a = pm.getAlignment();
 		time = System.currentTimeMillis()/1000 - time;
 		System.out.println("Finished in " + time + " seconds");
 		return a;
@@ -354,94 +370,41 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 		return mapInParallel(toMap,thresh);
 	}
 	
-	//Maps a table of classes in parallel, using all available threads
+	//Maps a table of classes in parallel, using the AML TaskScheduler
 	private Alignment mapInParallel(Table2Set<Integer,Integer> toMap, double thresh)
 	{
-		Alignment maps = new Alignment();
-		ArrayList<MappingTask> tasks = new ArrayList<MappingTask>();
-		for(Integer i : toMap.keySet())
-			for(Integer j : toMap.get(i))
-				tasks.add(new MappingTask(i,j));
-        List<Future<Mapping>> results;
-		ExecutorService exec = Executors.newFixedThreadPool(threads);
-		try
-		{
-			results = exec.invokeAll(tasks);
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-	        results = new ArrayList<Future<Mapping>>();
-		}
-		exec.shutdown();
-		for(Future<Mapping> fm : results)
-		{
-			try
-			{
-				Mapping m = fm.get();
-				if(m.getSimilarity() >= thresh)
-					maps.add(m);
-			}
-			catch(Exception e)
-			{
-				e.printStackTrace();
-			}
-		}
-		return maps;
+		return ParallelMapper.map(new MappingScorer(thresh), toMap, thresh);
 	}
 	
 	//Computes the maximum String similarity between two Classes by doing a
-	//pairwise comparison of all their names
-	private double mapTwoEntities(int sId, int tId)
+	//pairwise comparison of all their names, skipping the pairs of names
+	//that can neither beat the current maximum nor reach the threshold
+	private double mapTwoEntities(int sId, int tId, double thresh)
 	{
+		//Mappings round their similarity, so a value slightly below
+		//the threshold may still yield a mapping
+		double cut = thresh - ROUNDING;
 		double maxSim = 0.0;
-		double sim, weight;
-		
-		if(lSet.equals(LanguageSetting.MULTI))
+		WeightedName[][] sourceNames = getWeightedNames(sLex, sourceCache, sId);
+		WeightedName[][] targetNames = getWeightedNames(tLex, targetCache, tId);
+		for(int l = 0; l < sourceNames.length; l++)
 		{
-			for(String l : languages)
+			for(WeightedName s : sourceNames[l])
 			{
-				Set<String> sourceNames = sLex.getNamesWithLanguage(sId,l);
-				Set<String> targetNames = tLex.getNamesWithLanguage(tId,l);
-				if(sourceNames == null || targetNames == null)
-					continue;
-			
-				for(String s : sourceNames)
+				for(WeightedName t : targetNames[l])
 				{
-					if(sLex.getTypes(s,sId).contains(LexicalType.FORMULA))
-						continue;
-					weight = sLex.getCorrectedWeight(s, sId, l);
-					
-					for(String t : targetNames)
+					double weight = s.weight * t.weight;
+					//The corrected String similarity is at most CORRECTION
+					double bound = weight * CORRECTION;
+					if(bound <= maxSim || bound < cut)
 					{
-						if(tLex.getTypes(t,tId).contains(LexicalType.FORMULA))
-							continue;
-						sim = weight * tLex.getCorrectedWeight(t, tId, l);
-						sim *= stringSimilarity(s,t);
-						if(sim > maxSim)
-							maxSim = sim;
-					}
-				}
-			}
-		}
-		else
-		{
-			Set<String> sourceNames = sLex.getNames(sId);
-			Set<String> targetNames = tLex.getNames(tId);
-			if(sourceNames == null || targetNames == null)
-				return maxSim;
-			for(String s : sourceNames)
-			{
-				if(sLex.getTypes(s,sId).contains(LexicalType.FORMULA))
-					continue;
-				weight = sLex.getCorrectedWeight(s, sId);
-				
-				for(String t : targetNames)
-				{
-					if(tLex.getTypes(t,tId).contains(LexicalType.FORMULA))
+						//Names are sorted by decreasing weight, so if the source
+						//weight is not negative, no other target name can do better
+						if(s.weight >= 0)
+							break;
 						continue;
-					sim = weight * tLex.getCorrectedWeight(t, tId);
-					sim *= stringSimilarity(s,t);
+					}
+					double sim = weight * stringSimilarity(s.name, t.name, Math.max(maxSim, cut) / bound);
 					if(sim > maxSim)
 						maxSim = sim;
 				}
@@ -450,47 +413,84 @@ public class StringMatcher implements PrimaryMatcher, Rematcher, SecondaryMatche
 		return maxSim;
 	}
 	
-	// Computes the string the similarity between two Strings
-	private double stringSimilarity(String s, String t)
+	//Gets the non-formula names of an entity (per language, in MULTI setting)
+	//sorted by decreasing corrected weight, computing them on the first call
+	private WeightedName[][] getWeightedNames(Lexicon lex, ConcurrentHashMap<Integer,WeightedName[][]> cache, int id)
+	{
+		WeightedName[][] names = cache.get(id);
+		if(names != null)
+			return names;
+		if(lSet.equals(LanguageSetting.MULTI))
+		{
+			names = new WeightedName[languages.length][];
+			for(int l = 0; l < languages.length; l++)
+				names[l] = getWeightedNames(lex, id, lex.getNamesWithLanguage(id,languages[l]), languages[l]);
+		}
+		else
+		{
+			names = new WeightedName[1][];
+			names[0] = getWeightedNames(lex, id, lex.getNames(id), null);
+		}
+		cache.put(id, names);
+		return names;
+	}
+	
+	private WeightedName[] getWeightedNames(Lexicon lex, int id, Set<String> names, String lang)
 	{
-		double sim = 0.0;
-		if(measure.equals(StringSimMeasure.ISUB))
-			sim = ISub.stringSimilarity(s,t);
-		else if(measure.equals(StringSimMeasure.EDIT))
+		Vector<WeightedName> weighted = new Vector<WeightedName>(names.size());
+		for(String n : names)
 		{
-			Levenshtein lv = new Levenshtein();
-			sim = lv.getSimilarity(s, t);
+			if(lex.getTypes(n,id).contains(LexicalType.FORMULA))
+				continue;
+			if(lang == null)
+				weighted.add(new WeightedName(n, lex.getCorrectedWeight(n, id)));
+			else
+				weighted.add(new WeightedName(n, lex.getCorrectedWeight(n, id, lang)));
 		}
-		else if(measure.equals(StringSimMeasure.JW))
+		Collections.sort(weighted);
+		return weighted.toArray(new WeightedName[weighted.size()]);
+	}
+	
+	// Computes the string the similarity between two Strings, or returns 0
+	// if it is certainly below the given minimum (before correction)
+	private double stringSimilarity(String s, String t, double min)
+	{
+		return measure.getSimilarity(s, t, Math.max(min - MARGIN, 0)) * CORRECTION;
+	}
+	
+	//A name of an entity with its corrected weight
+	private static class WeightedName implements Comparable<WeightedName>
+	{
+		private String name;
+		private double weight;
+		
+		private WeightedName(String n, double w)
 		{
-			JaroWinkler jv = new JaroWinkler();
-			sim = jv.getSimilarity(s, t);
+			name = n;
+			weight = w;
 		}
-		else if(measure.equals(StringSimMeasure.QGRAM))
+
+		@Override
+		public int compareTo(WeightedName o)
 		{
-			QGramsDistance q = new QGramsDistance();
-			sim = q.getSimilarity(s, t);
+			return Double.compare(o.weight, weight);
 		}
-		sim *= CORRECTION;
-		return sim;
 	}
 	
-	//Callable class for mapping two classes
-	private class MappingTask implements Callable<Mapping>
+	//PairScorer class for mapping two classes
+	private class MappingScorer implements PairScorer
 	{
-		private int source;
-		private int target;
+		private double thresh;
 		
-		MappingTask(int s, int t)
-	    {
-			source = s;
-	        target = t;
-	    }
-	        
-	    @Override
-	    public Mapping call()
-	    {
-       		return new Mapping(source,target,mapTwoEntities(source,target));
-        }
+		public MappingScorer(double thresh)
+		{
+			this.thresh = thresh;
+		}
+		
+		@Override
+		public double score(int source, int target)
+		{
+			return mapTwoEntities(source,target,thresh);
+		}
 	}
 }
\ No newline at end of file
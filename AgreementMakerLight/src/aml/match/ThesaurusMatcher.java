@@ -26,6 +26,8 @@ import java.util.Vector;
 
 import aml.AML;
 import aml.ontology.Lexicon;
+import aml.ontology.NameDictionary;
+import aml.ontology.NameDictionary.WordScope;
 import aml.settings.EntityType;
 import aml.settings.InstanceMatchingCategory;
 import aml.settings.LexicalType;
@@ -51,6 +53,8 @@ public class ThesaurusMatcher implements PrimaryMatcher
 	private final double CONFIDENCE = 0.9;
 	//The Thesaurus of synonym words (String,String)
 	public Table2List<String,String> thesaurus;
+	//The NameDictionary with the words of the names
+	private NameDictionary dictionary;
 	
 //Constructors
 	
@@ -83,6 +87,7 @@ public class ThesaurusMatcher implements PrimaryMatcher
 		System.out.println("Running Thesaurus Matcher");
 		long time = System.currentTimeMillis()/1000;
 		AML aml = AML.getInstance();
+		dictionary = aml.getNameDictionary();
 		Lexicon source = new Lexicon(aml.getSource().getLexicon());
 		Lexicon target = new Lexicon(aml.getTarget().getLexicon());
 		extendLexicon(source,e,thresh);
@@ -129,9 +134,10 @@ public class ThesaurusMatcher implements PrimaryMatcher
 			return;
 			
 		//Step 1. Setup
-		//Split the synonyms
-		String[] words1 = synonym1.split(" ");
-		String[] words2 = synonym2.split(" ");
+		//Get the words of the synonyms from the NameDictionary
+		WordScope words = dictionary.newWordScope();
+		int[] words1 = words.getWords(synonym1);
+		int[] words2 = words.getWords(synonym2);
 		//Check if they have the same number of words
 		if(words1.length != words2.length)
 			return;
@@ -149,7 +155,7 @@ public class ThesaurusMatcher implements PrimaryMatcher
 		int index = -1;
 		for(int i = 0; i < words1.length; i++)
 		{
-			if(!words1[i].equals(words2[i]))
+			if(words1[i] != words2[i])
 			{
 				//More than one mismatch
 				if(index != -1)
@@ -158,10 +164,14 @@ public class ThesaurusMatcher implements PrimaryMatcher
 					index = i;
 			}
 		}
-		if(index != -1 && words1[index].length() > 2 && words2[index].length() > 2)
+		if(index == -1)
+			return;
+		String word1 = words.getWord(words1[index]);
+		String word2 = words.getWord(words2[index]);
+		if(word1.length() > 2 && word2.length() > 2)
 		{
-			thesaurus.add(words1[index], words2[index]);
-			thesaurus.add(words2[index], words1[index]);
+			thesaurus.add(word1, word2);
+			thesaurus.add(word2, word1);
 		}
 	}
 	
@@ -19,13 +19,7 @@
 ******************************************************************************/
 package aml.match;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import aml.AML;
 import aml.match.Alignment;
@@ -54,8 +48,6 @@ public class ValueStringMatcher implements PrimaryMatcher, SecondaryMatcher, Rem
 	private ValueMap sVal;
 	private ValueMap tVal;
 	private NameSimilarity ns = null;
-	//The available CPU threads
-	private int threads;
 	
 //Constructors
 	
@@ -67,7 +59,6 @@ public class ValueStringMatcher implements PrimaryMatcher, SecondaryMatcher, Rem
 		target = aml.getTarget();
 		sVal = source.getValueMap();
 		tVal = target.getValueMap();
-		threads = Runtime.getRuntime().availableProcessors();
 	}
 	
 //Public Methods
@@ -230,40 +221,10 @@ public class ValueStringMatcher implements PrimaryMatcher, SecondaryMatcher, Rem
 			throw new UnsupportedEntityTypeException(e.toString());
 	}
 	
-	//Maps a table of classes in parallel, using all available threads
+	//Maps a table of classes in parallel, using the AML TaskScheduler
 	private Alignment mapInParallel(Table2Set<Integer,Integer> toMap, double thresh)
 	{
-		Alignment maps = new Alignment();
-		ArrayList<MappingTask> tasks = new ArrayList<MappingTask>();
-		for(Integer i : toMap.keySet())
-			for(Integer j : toMap.get(i))
-				tasks.add(new MappingTask(i,j,thresh));
-        List<Future<Mapping>> results;
-		ExecutorService exec = Executors.newFixedThreadPool(threads);
-		try
-		{
-			results = exec.invokeAll(tasks);
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-	        results = new ArrayList<Future<Mapping>>();
-		}
-		exec.shutdown();
-		for(Future<Mapping> fm : results)
-		{
-			try
-			{
-				Mapping m = fm.get();
-				if(m.getSimilarity() >= thresh)
-					maps.add(m);
-			}
-			catch(Exception e)
-			{
-				e.printStackTrace();
-			}
-		}
-		return maps;
+		return ParallelMapper.map(new MappingScorer(thresh), toMap, thresh);
 	}
 	
 	//Computes the maximum String similarity between two Classes by doing a
@@ -286,24 +247,20 @@ public class ValueStringMatcher implements PrimaryMatcher, SecondaryMatcher, Rem
 		return dataSim;
 	}
 	
-	//Callable class for mapping two classes
-	private class MappingTask implements Callable<Mapping>
+	//PairScorer class for mapping two classes
+	private class MappingScorer implements PairScorer
 	{
-		private int source;
-		private int target;
 		private double threshold;
 		
-		MappingTask(int s, int t, double thresh)
-	    {
-			source = s;
-	        target = t;
-	        threshold = thresh;
-	    }
-	        
-	    @Override
-	    public Mapping call()
-	    {
-       		return new Mapping(source,target,mapTwoEntities(source,target,threshold));
-        }
+		MappingScorer(double thresh)
+		{
+			threshold = thresh;
+		}
+		
+		@Override
+		public double score(int source, int target)
+		{
+			return mapTwoEntities(source,target,threshold);
+		}
 	}
 }
\ No newline at end of file
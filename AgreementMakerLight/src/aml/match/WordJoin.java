@@ -0,0 +1,336 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Exact threshold-aware join of two WordLexicon blocks, under the weighted    *
+* Jaccard similarity used by the WordMatcher. The words shared by the blocks  *
+* are ordered by decreasing evidence content, and each entity is indexed only *
+* by the prefix of its words that could still make it reach the threshold, so *
+* that frequent low-EC words don't generate candidates. Candidates that pass  *
+* the size filter are then verified with their full word lists.               *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.match;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+
+import aml.AML;
+import aml.ontology.RelationshipMap;
+import aml.ontology.WordLexicon;
+import aml.settings.EntityType;
+import aml.settings.InstanceMatchingCategory;
+import aml.util.Table2Set;
+
+public class WordJoin
+{
+
+//Attributes
+	
+	//The relative margin applied to the filters, so that rounding
+	//errors never prune a pair that reaches the threshold
+	private static final double MARGIN = 1e-9;
+	private WordLexicon sourceLex;
+	private WordLexicon targetLex;
+	//The words shared by both blocks, in their iteration order
+	private Vector<String> shared;
+	//The EC of each shared word in each WordLexicon, and their product
+	private double[] sourceWordECs;
+	private double[] targetWordECs;
+	private double[] ecs;
+	//The position of each shared word in the order by decreasing EC
+	private int[] rank;
+	//The entities of each block, sorted, and their ECs
+	private int[] sourceIds;
+	private int[] targetIds;
+	private double[] sourceECs;
+	private double[] targetECs;
+	//The shared words of each entity (sorted) and their weights, stored
+	//in contiguous arrays and delimited by the start arrays
+	private int[] sourceStart;
+	private int[] sourceWords;
+	private double[] sourceWeights;
+	private int[] targetStart;
+	private int[] targetWords;
+	private double[] targetWeights;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new WordJoin between two WordLexicon blocks
+	 * @param sLex: the source WordLexicon
+	 * @param tLex: the target WordLexicon
+	 * @param sWLex: the word table of the source block
+	 * @param tWLex: the word table of the target block
+	 */
+	public WordJoin(WordLexicon sLex, WordLexicon tLex,
+			Table2Set<String,Integer> sWLex, Table2Set<String,Integer> tWLex)
+	{
+		sourceLex = sLex;
+		targetLex = tLex;
+		//To minimize iterations, we want to iterate through the smallest Lexicon
+		Set<String> words;
+		if(sWLex.keyCount() <= tWLex.keyCount())
+			words = sWLex.keySet();
+		else
+			words = tWLex.keySet();
+		shared = new Vector<String>();
+		for(String s : words)
+			if(sWLex.contains(s) && tWLex.contains(s))
+				shared.add(s);
+		sourceWordECs = new double[shared.size()];
+		targetWordECs = new double[shared.size()];
+		ecs = new double[shared.size()];
+		for(int w = 0; w < shared.size(); w++)
+		{
+			sourceWordECs[w] = sourceLex.getWordEC(shared.get(w));
+			targetWordECs[w] = targetLex.getWordEC(shared.get(w));
+			ecs[w] = sourceWordECs[w] * targetWordECs[w];
+		}
+		rankWords();
+		sourceIds = entities(sWLex);
+		targetIds = entities(tWLex);
+		sourceECs = new double[sourceIds.length];
+		for(int i = 0; i < sourceIds.length; i++)
+			sourceECs[i] = sourceLex.getEntityEC(sourceIds[i]);
+		targetECs = new double[targetIds.length];
+		for(int j = 0; j < targetIds.length; j++)
+			targetECs[j] = targetLex.getEntityEC(targetIds[j]);
+		sourceStart = new int[sourceIds.length+1];
+		sourceWords = index(sWLex,sourceIds,sourceStart);
+		sourceWeights = weights(sourceLex,sourceIds,sourceStart,sourceWords);
+		targetStart = new int[targetIds.length+1];
+		targetWords = index(tWLex,targetIds,targetStart);
+		targetWeights = weights(targetLex,targetIds,targetStart,targetWords);
+	}
+	
+//Public Methods
+	
+	/**
+	 * Finds all pairs of entities from the two blocks that have a
+	 * weighted Jaccard similarity at or above the threshold
+	 * @param e: the EntityType of the entities to match
+	 * @param thresh: the similarity threshold
+	 * @return the list of mappings between the entities of the blocks
+	 */
+	public Vector<Mapping> join(EntityType e, double thresh)
+	{
+		AML aml = AML.getInstance();
+		RelationshipMap rels = aml.getRelationshipMap();
+		boolean individuals = e.equals(EntityType.INDIVIDUAL);
+		boolean sameClasses = individuals &&
+				aml.getInstanceMatchingCategory().equals(InstanceMatchingCategory.SAME_CLASSES);
+		//A pair can only reach the threshold if its shared evidence is at least
+		//thresh*(ec1+ec2)/(1+thresh) and, by the Cauchy-Schwarz inequality, that
+		//evidence is at most sqrt(ec1*ec2), which gives the size filter.
+		//If all the words the pair shares are in the suffix of an entity, the
+		//evidence is at most sqrt(suffix*ec2), which can only reach the bound
+		//if suffix >= 4*thresh^2/(1+thresh)^2 * ec1, which gives the prefixes.
+		double bound = thresh / (1 + thresh);
+		double suffix = 4 * bound * bound;
+		int[] sourceCut = prefixes(sourceStart,sourceWords,sourceWeights,sourceWordECs,sourceECs,suffix);
+		int[] targetCut = prefixes(targetStart,targetWords,targetWeights,targetWordECs,targetECs,suffix);
+		
+		//Index the targets by the words in their prefixes
+		int[] postingStart = new int[shared.size()+1];
+		for(int j = 0; j < targetIds.length; j++)
+		{
+			if(individuals && !aml.isToMatchTarget(targetIds[j]))
+				continue;
+			for(int k = targetStart[j]; k < targetStart[j+1]; k++)
+				if(rank[targetWords[k]] <= targetCut[j])
+					postingStart[targetWords[k]+1]++;
+		}
+		for(int w = 0; w < shared.size(); w++)
+			postingStart[w+1] += postingStart[w];
+		int[] postings = new int[postingStart[shared.size()]];
+		int[] fill = Arrays.copyOf(postingStart,shared.size());
+		for(int j = 0; j < targetIds.length; j++)
+		{
+			if(individuals && !aml.isToMatchTarget(targetIds[j]))
+				continue;
+			for(int k = targetStart[j]; k < targetStart[j+1]; k++)
+				if(rank[targetWords[k]] <= targetCut[j])
+					postings[fill[targetWords[k]]++] = j;
+		}
+		
+		//Probe the index with the prefix of each source, and verify
+		//the candidates that pass the size filter
+		Vector<Mapping> a = new Vector<Mapping>();
+		int[] candidates = new int[targetIds.length];
+		int[] lastSource = new int[targetIds.length];
+		Arrays.fill(lastSource,-1);
+		for(int i = 0; i < sourceIds.length; i++)
+		{
+			if(individuals && !aml.isToMatchSource(sourceIds[i]))
+				continue;
+			int count = 0;
+			for(int k = sourceStart[i]; k < sourceStart[i+1]; k++)
+			{
+				int w = sourceWords[k];
+				if(rank[w] > sourceCut[i])
+					continue;
+				for(int l = postingStart[w]; l < postingStart[w+1]; l++)
+				{
+					int j = postings[l];
+					if(lastSource[j] != i)
+					{
+						lastSource[j] = i;
+						candidates[count++] = j;
+					}
+				}
+			}
+			for(int c = 0; c < count; c++)
+			{
+				int j = candidates[c];
+				double union = sourceECs[i] + targetECs[j];
+				if(Math.sqrt(sourceECs[i] * targetECs[j]) < bound * union * (1 - MARGIN))
+					continue;
+				if(sameClasses && !rels.shareClass(sourceIds[i],targetIds[j]))
+					continue;
+				double sim = overlap(i,j);
+				sim /= union - sim;
+				if(sim >= thresh)
+					a.add(new Mapping(sourceIds[i], targetIds[j], sim));
+			}
+		}
+		return a;
+	}
+	
+//Private Methods
+	
+	//Returns the sorted ids of the entities of a block that have
+	//at least one of the shared words
+	private int[] entities(Table2Set<String,Integer> wLex)
+	{
+		HashSet<Integer> ids = new HashSet<Integer>();
+		for(String s : shared)
+			ids.addAll(wLex.get(s));
+		int[] entities = new int[ids.size()];
+		int k = 0;
+		for(Integer i : ids)
+			entities[k++] = i;
+		Arrays.sort(entities);
+		return entities;
+	}
+	
+	//Lists the shared words of each entity, filling the start array
+	//and returning the words, which are sorted for each entity
+	private int[] index(Table2Set<String,Integer> wLex, int[] ids, int[] start)
+	{
+		for(String s : shared)
+			for(Integer i : wLex.get(s))
+				start[Arrays.binarySearch(ids,i)+1]++;
+		for(int k = 0; k < ids.length; k++)
+			start[k+1] += start[k];
+		int[] words = new int[start[ids.length]];
+		int[] fill = Arrays.copyOf(start,ids.length);
+		for(int w = 0; w < shared.size(); w++)
+			for(Integer i : wLex.get(shared.get(w)))
+				words[fill[Arrays.binarySearch(ids,i)]++] = w;
+		return words;
+	}
+	
+	//Computes the shared evidence of a pair of entities by merging their
+	//word lists, adding the words up in the same order as they are shared
+	private double overlap(int i, int j)
+	{
+		double sim = 0.0;
+		int k = sourceStart[i];
+		int l = targetStart[j];
+		while(k < sourceStart[i+1] && l < targetStart[j+1])
+		{
+			if(sourceWords[k] < targetWords[l])
+				k++;
+			else if(sourceWords[k] > targetWords[l])
+				l++;
+			else
+			{
+				sim += Math.sqrt(ecs[sourceWords[k]] * sourceWeights[k] * targetWeights[l]);
+				k++;
+				l++;
+			}
+		}
+		return sim;
+	}
+	
+	//Computes the rank of the last prefix word of each entity, i.e., the
+	//largest rank such that the words after it have less than the given
+	//fraction of the entity's EC (or -1 if no word is needed)
+	private int[] prefixes(int[] start, int[] words, double[] weights,
+			double[] wordECs, double[] entityECs, double fraction)
+	{
+		int[] cut = new int[entityECs.length];
+		long[] order = new long[0];
+		for(int i = 0; i < entityECs.length; i++)
+		{
+			int size = start[i+1] - start[i];
+			if(order.length < size)
+				order = new long[size];
+			for(int k = 0; k < size; k++)
+				order[k] = ((long)rank[words[start[i]+k]] << 32) | k;
+			Arrays.sort(order,0,size);
+			double max = fraction * entityECs[i] * (1 - MARGIN);
+			double suffix = 0.0;
+			cut[i] = -1;
+			for(int k = size-1; k >= 0; k--)
+			{
+				int pos = start[i] + (int)order[k];
+				suffix += wordECs[words[pos]] * weights[pos];
+				if(suffix >= max)
+				{
+					cut[i] = (int)(order[k] >>> 32);
+					break;
+				}
+			}
+		}
+		return cut;
+	}
+	
+	//Orders the shared words by decreasing EC product, so that the
+	//most frequent words fall in the suffixes of the entities
+	private void rankWords()
+	{
+		Integer[] order = new Integer[shared.size()];
+		for(int w = 0; w < order.length; w++)
+			order[w] = w;
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer w1, Integer w2)
+			{
+				int c = Double.compare(ecs[w2],ecs[w1]);
+				if(c == 0)
+					c = w1.compareTo(w2);
+				return c;
+			}
+		});
+		rank = new int[order.length];
+		for(int r = 0; r < order.length; r++)
+			rank[order[r]] = r;
+	}
+	
+	//Gets the weights of the shared words of each entity
+	private double[] weights(WordLexicon lex, int[] ids, int[] start, int[] words)
+	{
+		double[] weights = new double[words.length];
+		for(int i = 0; i < ids.length; i++)
+			for(int k = start[i]; k < start[i+1]; k++)
+				weights[k] = lex.getWordWeight(shared.get(words[k]),ids[i]);
+		return weights;
+	}
+}
@@ -19,18 +19,21 @@
 ******************************************************************************/
 package aml.match;
 
+import java.util.LinkedList;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import aml.AML;
 import aml.ontology.RelationshipMap;
 import aml.ontology.WordLexicon;
 import aml.settings.EntityType;
-import aml.settings.InstanceMatchingCategory;
 import aml.settings.MappingRelation;
 import aml.settings.WordMatchStrategy;
-import aml.util.Table2Map;
 import aml.util.Table2Set;
+import aml.util.TaskScheduler;
 
 public class WordMatcher implements PrimaryMatcher, SecondaryMatcher, Rematcher
 {
@@ -186,43 +189,62 @@ public class WordMatcher implements PrimaryMatcher, SecondaryMatcher, Rematcher
 		//Global matching is done by chunks so as not to overload the memory
 		System.out.println("Blocks to match: " + sourceLex.blockCount() +
 				"x" + targetLex.blockCount());
-		//Match each chunk of both WordLexicons
-		for(int i = 0; i < sourceLex.blockCount(); i++)
+		int blocks = sourceLex.blockCount() * targetLex.blockCount();
+		TaskScheduler scheduler = aml.getScheduler();
+		if(scheduler.getParallelism() == 1 || blocks == 1)
 		{
-			//The word table (words->String, class indexes->Integer) for the current block
-			Table2Set<String,Integer> sWLex = sourceLex.getWordTable(i);
-			for(int j = 0; j < targetLex.blockCount(); j++)
+			//Match each chunk of both WordLexicons
+			for(int i = 0; i < sourceLex.blockCount(); i++)
 			{
-				//The word table (words->String, class indexes->Integer) for the current block
-				Table2Set<String,Integer> tWLex = targetLex.getWordTable(j);
-				Vector<Mapping> temp = matchBlocks(sWLex,tWLex,e,t);
-				//If the strategy is BY_CLASS, just add the alignment
-				if(strategy.equals(WordMatchStrategy.BY_CLASS))
-					a.addAll(temp);
-				//Otherwise, update the similarity according to the strategy
-				else
+				for(int j = 0; j < targetLex.blockCount(); j++)
 				{
-					for(Mapping m : temp)
+					a.addAll(matchBlockPair(i,j,e,t,thresh));
+					System.out.print(".");
+				}
+				System.out.println();
+			}
+		}
+		else
+		{
+			//Match the block pairs in parallel, with at most maxBlocks pairs
+			//in flight at a time, and add their mappings in the same order as
+			//the sequential run (if a block pair fails or the matching is
+			//interrupted, the pairs in flight are cancelled and the failure
+			//is passed on rather than returning a partial alignment)
+			int maxBlocks = aml.getMaxConcurrentBlocks();
+			LinkedList<Future<Vector<Mapping>>> inFlight = new LinkedList<Future<Vector<Mapping>>>();
+			int submitted = 0;
+			int collected = 0;
+			try
+			{
+				while(collected < blocks)
+				{
+					while(submitted < blocks && inFlight.size() < maxBlocks)
 					{
-						//First compute the name similarity
-						double nameSim = nameSimilarity(m.getSourceId(),m.getTargetId());
-						//Then update the final similarity according to the strategy
-						double sim = m.getSimilarity();
-						if(strategy.equals(WordMatchStrategy.BY_NAME))
-							sim = nameSim;
-						else if(strategy.equals(WordMatchStrategy.AVERAGE))
-							sim = Math.sqrt(nameSim * sim);
-						else if(strategy.equals(WordMatchStrategy.MAXIMUM))
-							sim = Math.max(nameSim,sim);
-						else if(strategy.equals(WordMatchStrategy.MINIMUM))
-							sim = Math.min(nameSim,sim);
-						if(sim >= thresh)
-							a.add(m.getSourceId(),m.getTargetId(),sim);
+						inFlight.add(scheduler.submit(new BlockTask(submitted / targetLex.blockCount(),
+								submitted % targetLex.blockCount(),e,t,thresh)));
+						submitted++;
 					}
+					a.addAll(inFlight.removeFirst().get());
+					collected++;
+					System.out.print(".");
+					if(collected % targetLex.blockCount() == 0)
+						System.out.println();
 				}
-				System.out.print(".");
 			}
-			System.out.println();
+			catch(InterruptedException x)
+			{
+				for(Future<Vector<Mapping>> f : inFlight)
+					f.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Word matching interrupted", x);
+			}
+			catch(ExecutionException x)
+			{
+				for(Future<Vector<Mapping>> f : inFlight)
+					f.cancel(true);
+				throw new RuntimeException("Word matching failed", x.getCause());
+			}
 		}
 		time = System.currentTimeMillis()/1000 - time;
 		System.out.println("Finished in " + time + " seconds");
@@ -452,64 +474,41 @@ public class WordMatcher implements PrimaryMatcher, SecondaryMatcher, Rematcher
 		return ext;
 	}
 	
-	//Matches two WordLexicon blocks by class.
-	//Used by match() method either to compute the final BY_CLASS alignment
-	//or to compute a preliminary alignment which is then refined according
-	//to the WordMatchStrategy.
-	private Vector<Mapping> matchBlocks(Table2Set<String,Integer> sWLex,
-			Table2Set<String,Integer> tWLex, EntityType e, double thresh)
+	//Matches a pair of WordLexicon blocks and updates the similarity of the
+	//resulting mappings according to the WordMatchStrategy.
+	//Used by match() for each cell of the block grid.
+	private Vector<Mapping> matchBlockPair(int sourceBlock, int targetBlock, EntityType e,
+			double blockThresh, double thresh)
 	{
-		AML aml = AML.getInstance();
-		Table2Map<Integer,Integer,Double> maps = new Table2Map<Integer,Integer,Double>();
-		//To minimize iterations, we want to iterate through the smallest Lexicon
-		boolean sourceIsSmaller = (sWLex.keyCount() <= tWLex.keyCount());
-		Set<String> words;
-		if(sourceIsSmaller)
-			words = sWLex.keySet();
-		else
-			words = tWLex.keySet();
-		
-		for(String s : words)
-		{
-			Set<Integer> sourceIndexes = sWLex.get(s);
-			Set<Integer> targetIndexes = tWLex.get(s);
-			if(sourceIndexes == null || targetIndexes == null)
-				continue;
-			double ec = sourceLex.getWordEC(s) * targetLex.getWordEC(s);
-			for(Integer i : sourceIndexes)
-			{
-				if(e.equals(EntityType.INDIVIDUAL) && !aml.isToMatchSource(i))
-					continue;
-				double sim = ec * sourceLex.getWordWeight(s,i);
-				for(Integer j : targetIndexes)
-				{
-					if(e.equals(EntityType.INDIVIDUAL) && (!aml.isToMatchTarget(j) ||
-							(aml.getInstanceMatchingCategory().equals(InstanceMatchingCategory.SAME_CLASSES) &&
-							!aml.getRelationshipMap().shareClass(i,j))))
-						continue;
-					double finalSim = Math.sqrt(sim * targetLex.getWordWeight(s,j));
-					Double previousSim = maps.get(i,j);
-					if(previousSim == null)
-						previousSim = 0.0;
-					finalSim += previousSim;
-					maps.add(i,j,finalSim);
-				}
-			}
-		}
-		Set<Integer> sources = maps.keySet();
-		Vector<Mapping> a = new Vector<Mapping>();
-		for(Integer i : sources)
+		//The word tables (words->String, class indexes->Integer) for the current blocks
+		Table2Set<String,Integer> sWLex = sourceLex.getWordTable(sourceBlock);
+		Table2Set<String,Integer> tWLex = targetLex.getWordTable(targetBlock);
+		//Matches the blocks by class, either to compute the final BY_CLASS
+		//alignment or a preliminary alignment that is then refined
+		Vector<Mapping> temp = new WordJoin(sourceLex,targetLex,sWLex,tWLex).join(e,blockThresh);
+		//If the strategy is BY_CLASS, just return the mappings
+		if(strategy.equals(WordMatchStrategy.BY_CLASS))
+			return temp;
+		//Otherwise, update the similarity according to the strategy
+		Vector<Mapping> maps = new Vector<Mapping>();
+		for(Mapping m : temp)
 		{
-			Set<Integer> targets = maps.keySet(i);
-			for(Integer j : targets)
-			{
-				double sim = maps.get(i,j);
-				sim /= sourceLex.getEntityEC(i) + targetLex.getEntityEC(j) - sim;
-				if(sim >= thresh)
-					a.add(new Mapping(i, j, sim));
-			}
+			//First compute the name similarity
+			double nameSim = nameSimilarity(m.getSourceId(),m.getTargetId());
+			//Then update the final similarity according to the strategy
+			double sim = m.getSimilarity();
+			if(strategy.equals(WordMatchStrategy.BY_NAME))
+				sim = nameSim;
+			else if(strategy.equals(WordMatchStrategy.AVERAGE))
+				sim = Math.sqrt(nameSim * sim);
+			else if(strategy.equals(WordMatchStrategy.MAXIMUM))
+				sim = Math.max(nameSim,sim);
+			else if(strategy.equals(WordMatchStrategy.MINIMUM))
+				sim = Math.min(nameSim,sim);
+			if(sim >= thresh)
+				maps.add(new Mapping(m.getSourceId(),m.getTargetId(),sim));
 		}
-		return a;
+		return maps;
 	}
 	
 	//Maps two classes according to the selected strategy.
@@ -582,4 +581,29 @@ public class WordMatcher implements PrimaryMatcher, SecondaryMatcher, Rematcher
 		union -= intersection;
 		return intersection/union;
 	}
+	
+	//Callable class for matching a pair of WordLexicon blocks
+	private class BlockTask implements Callable<Vector<Mapping>>
+	{
+		private int sourceBlock;
+		private int targetBlock;
+		private EntityType type;
+		private double blockThresh;
+		private double thresh;
+		
+		BlockTask(int s, int t, EntityType e, double bt, double th)
+		{
+			sourceBlock = s;
+			targetBlock = t;
+			type = e;
+			blockThresh = bt;
+			thresh = th;
+		}
+		
+		@Override
+		public Vector<Mapping> call()
+		{
+			return matchBlockPair(sourceBlock,targetBlock,type,blockThresh,thresh);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,331 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A frozen, read-only copy of one direction (ancestors or descendants) of the *
+* class hierarchy in the RelationshipMap, in compressed sparse row layout.    *
+* The relationships of each class are sorted by related class, and their      *
+* distance, property and restriction are packed in a single long, so that     *
+* iteration and lookups (by binary search) do not allocate any objects.       *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.ontology;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+import aml.util.IntTable2List;
+import aml.util.IntTable3List;
+
+public class ClosureIndex
+{
+
+//Attributes
+	
+	//The start of the row of each class in the related and relationships arrays
+	//(the row of class i spans positions offsets[i] to offsets[i+1]-1)
+	private int[] offsets;
+	//The related classes, sorted within each row
+	private int[] related;
+	//The packed relationships: property in the upper 32 bits,
+	//distance in the next 31 bits and restriction in the lowest bit
+	private long[] relationships;
+	
+//Constructors
+	
+	/**
+	 * Builds a ClosureIndex from a table of relationships
+	 * @param table: the table to index (Class -> Related Class -> Relationship)
+	 */
+	public ClosureIndex(IntTable3List<Relationship> table)
+	{
+		int maxId = -1;
+		for(int i : table.keySet())
+			if(i > maxId)
+				maxId = i;
+		offsets = new int[maxId + 2];
+		related = new int[table.size()];
+		relationships = new long[table.size()];
+		int pos = 0;
+		for(int i = 0; i <= maxId; i++)
+		{
+			offsets[i] = pos;
+			IntTable2List<Relationship> row = table.get(i);
+			if(row == null)
+				continue;
+			int[] keys = new int[row.keyCount()];
+			int k = 0;
+			for(int j : row.keySet())
+				keys[k++] = j;
+			Arrays.sort(keys);
+			for(int j : keys)
+			{
+				List<Relationship> rels = row.get(j);
+				for(Relationship r : rels)
+				{
+					related[pos] = j;
+					relationships[pos] = pack(r);
+					pos++;
+				}
+			}
+		}
+		offsets[maxId + 1] = pos;
+	}
+	
+//Public Methods
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @return the first position of the row of classId
+	 */
+	public int begin(int classId)
+	{
+		if(classId < 0 || classId >= offsets.length - 1)
+			return 0;
+		return offsets[classId];
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @param relatedId: the related class to search in the row of classId
+	 * @return whether the index contains a relationship between the classes
+	 */
+	public boolean contains(int classId, int relatedId)
+	{
+		return indexOf(classId, relatedId) > -1;
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @return the position after the last position of the row of classId
+	 */
+	public int end(int classId)
+	{
+		if(classId < 0 || classId >= offsets.length - 1)
+			return 0;
+		return offsets[classId + 1];
+	}
+	
+	/**
+	 * @param pos: a position in the index
+	 * @return the distance of the relationship at pos
+	 */
+	public int getDistance(int pos)
+	{
+		return ((int)relationships[pos]) >>> 1;
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @param relatedId: the related class to search in the row of classId
+	 * @return the minimal distance between the classes or -1
+	 * if they aren't related
+	 */
+	public int getDistance(int classId, int relatedId)
+	{
+		int pos = indexOf(classId, relatedId);
+		if(pos == -1)
+			return -1;
+		int distance = getDistance(pos);
+		for(int end = offsets[classId + 1]; pos < end && related[pos] == relatedId; pos++)
+			if(getDistance(pos) < distance)
+				distance = getDistance(pos);
+		return distance;
+	}
+	
+	/**
+	 * @param pos: a position in the index
+	 * @return the property of the relationship at pos
+	 */
+	public int getProperty(int pos)
+	{
+		return (int)(relationships[pos] >> 32);
+	}
+	
+	/**
+	 * @param pos: a position in the index
+	 * @return the related class at pos
+	 */
+	public int getRelated(int pos)
+	{
+		return related[pos];
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @param relatedId: the related class to search in the row of classId
+	 * @return a new list with the relationships between the classes,
+	 * or null if they aren't related
+	 */
+	public List<Relationship> getRelationships(int classId, int relatedId)
+	{
+		int pos = indexOf(classId, relatedId);
+		if(pos == -1)
+			return null;
+		Vector<Relationship> rels = new Vector<Relationship>();
+		for(int end = offsets[classId + 1]; pos < end && related[pos] == relatedId; pos++)
+			rels.add(new Relationship(getDistance(pos),getProperty(pos),getRestriction(pos)));
+		return rels;
+	}
+	
+	/**
+	 * @param pos: a position in the index
+	 * @return the restriction of the relationship at pos
+	 */
+	public boolean getRestriction(int pos)
+	{
+		return (relationships[pos] & 1) == 1;
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @param relatedId: the related class to search in the row of classId
+	 * @param prop: the property to search
+	 * @return whether there is a relationship between the classes
+	 * with the given property
+	 */
+	public boolean hasProperty(int classId, int relatedId, int prop)
+	{
+		int pos = indexOf(classId, relatedId);
+		if(pos == -1)
+			return false;
+		for(int end = offsets[classId + 1]; pos < end && related[pos] == relatedId; pos++)
+			if(getProperty(pos) == prop)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @param relatedId: the related class to search in the row of classId
+	 * @return the first position of relatedId in the row of classId,
+	 * or -1 if the classes aren't related
+	 */
+	public int indexOf(int classId, int relatedId)
+	{
+		int lo = begin(classId);
+		int hi = end(classId) - 1;
+		while(lo <= hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if(related[mid] < relatedId)
+				lo = mid + 1;
+			else if(related[mid] > relatedId)
+				hi = mid - 1;
+			else
+			{
+				while(mid > lo && related[mid - 1] == relatedId)
+					mid--;
+				return mid;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return a new set with the classes that have relationships in the index
+	 */
+	public Set<Integer> keySet()
+	{
+		HashSet<Integer> keys = new HashSet<Integer>();
+		for(int i = 0; i < offsets.length - 1; i++)
+			if(offsets[i] < offsets[i + 1])
+				keys.add(i);
+		return keys;
+	}
+	
+	/**
+	 * @param classId: the class to search in the index
+	 * @return a new set with the classes related to classId
+	 */
+	public Set<Integer> keySet(int classId)
+	{
+		HashSet<Integer> rel = new HashSet<Integer>();
+		for(int k = begin(classId); k < end(classId); k++)
+			rel.add(related[k]);
+		return rel;
+	}
+	
+	/**
+	 * Finds the next class related to classId with a relationship with the
+	 * given property, so that the related classes can be iterated without
+	 * allocating objects, each one only once:
+	 * for(int k = next(c,begin(c),p); k < end(c); k = next(c,k+1,p))
+	 * @param classId: the class to search in the index
+	 * @param pos: the position in the row of classId from which to search
+	 * @param prop: the property to search
+	 * @return the first position from pos of a class related to classId with
+	 * the given property (not found before pos) or end(classId) if there is none
+	 */
+	public int next(int classId, int pos, int prop)
+	{
+		return next(classId, pos, -1, prop);
+	}
+	
+	/**
+	 * Finds the next class related to classId with a relationship with the
+	 * given distance and property, as in next(int,int,int)
+	 * @param classId: the class to search in the index
+	 * @param pos: the position in the row of classId from which to search
+	 * @param distance: the distance to search (or -1 for any distance)
+	 * @param prop: the property to search
+	 * @return the first position from pos of a class related to classId with
+	 * the given distance and property (not found before pos) or end(classId)
+	 * if there is none
+	 */
+	public int next(int classId, int pos, int distance, int prop)
+	{
+		int begin = begin(classId);
+		int end = end(classId);
+		for(; pos < end; pos++)
+		{
+			if(!matches(pos, distance, prop))
+				continue;
+			//Skip classes that were already found in a previous position
+			boolean found = false;
+			for(int k = pos - 1; k >= begin && related[k] == related[pos] && !found; k--)
+				found = matches(k, distance, prop);
+			if(!found)
+				return pos;
+		}
+		return end;
+	}
+	
+	/**
+	 * @return the number of relationships in the index
+	 */
+	public int size()
+	{
+		return related.length;
+	}
+	
+//Private Methods
+	
+	private boolean matches(int pos, int distance, int prop)
+	{
+		return getProperty(pos) == prop && (distance == -1 || getDistance(pos) == distance);
+	}
+	
+	private static long pack(Relationship r)
+	{
+		long packed = ((long)r.getProperty()) << 32;
+		packed |= ((long)r.getDistance() << 1) & 0xFFFFFFFFL;
+		if(r.getRestriction())
+			packed |= 1;
+		return packed;
+	}
+}
@@ -19,14 +19,21 @@
 ******************************************************************************/
 package aml.ontology;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
 import aml.AML;
-import aml.util.Table3List;
+import aml.util.IntTable2List;
+import aml.util.IntTable2Set;
+import aml.util.IntTable3List;
 import aml.settings.EntityType;
 import aml.settings.LexicalType;
 import aml.util.MapSorter;
@@ -38,14 +45,24 @@ public class Lexicon
 
 //Attributes
 	
-	//The table of entity names (String) to indexes (Integer) organized by EntityType
-	private Table3List<String,Integer,Provenance>[] entityNames;
-	//The table of entity indexes (Integer) to names (String) organized by EntityType
-	private Table3List<Integer,String,Provenance>[] nameEntities;
+	//The table of entity names (by their id in the NameDictionary) to indexes
+	//organized by EntityType
+	private IntTable2Set[] entityNames;
+	//The table of entity indexes to names (by their id in the NameDictionary)
+	//and their provenances, organized by EntityType (most names have a single
+	//provenance, which the table stores without a list of its own)
+	private IntTable3List<Provenance>[] nameEntities;
+	//The Provenances of the entries, which are shared by all entries with the same values
+	private HashMap<Provenance.Key,Provenance> provenances;
 	//The language counts
 	private HashMap<String,Integer> langCount;
 	//The URIMap
 	private URIMap uris;
+	//The NameDictionary, which interns the names of all Lexicons
+	private NameDictionary dictionary;
+	//The number of entries added to the Lexicon, so that the structures
+	//derived from it (e.g. WordLexicons) can tell when they are outdated
+	private int version;
 	
 //Constructors
 
@@ -57,12 +74,14 @@ public class Lexicon
 	public Lexicon()
 	{
 		uris = AML.getInstance().getURIMap();
-		entityNames = new Table3List[EntityType.values().length];
+		dictionary = AML.getInstance().getNameDictionary();
+		entityNames = new IntTable2Set[EntityType.values().length];
 		for(int i = 0; i < entityNames.length; i++)
-			entityNames[i] = new Table3List<String,Integer,Provenance>();
-		nameEntities = new Table3List[EntityType.values().length];
+			entityNames[i] = new IntTable2Set();
+		nameEntities = new IntTable3List[EntityType.values().length];
 		for(int i = 0; i < nameEntities.length; i++)
-			nameEntities[i] = new Table3List<Integer,String,Provenance>();
+			nameEntities[i] = new IntTable3List<Provenance>();
+		provenances = new HashMap<Provenance.Key,Provenance>();
 		langCount = new HashMap<String,Integer>();
 	}
 	
@@ -74,12 +93,14 @@ public class Lexicon
 	public Lexicon(Lexicon l)
 	{
 		uris = AML.getInstance().getURIMap();
-		entityNames = new Table3List[EntityType.values().length];
+		dictionary = AML.getInstance().getNameDictionary();
+		entityNames = new IntTable2Set[EntityType.values().length];
 		for(int i = 0; i < entityNames.length; i++)
-			entityNames[i] = new Table3List<String,Integer,Provenance>(l.entityNames[i]);
-		nameEntities = new Table3List[EntityType.values().length];
+			entityNames[i] = new IntTable2Set(l.entityNames[i]);
+		nameEntities = new IntTable3List[EntityType.values().length];
 		for(int i = 0; i < nameEntities.length; i++)
-			nameEntities[i] = new Table3List<Integer,String,Provenance>(l.nameEntities[i]);
+			nameEntities[i] = new IntTable3List<Provenance>(l.nameEntities[i]);
+		provenances = new HashMap<Provenance.Key,Provenance>(l.provenances);
 		langCount = new HashMap<String,Integer>(l.langCount);
 	}
 	
@@ -114,36 +135,38 @@ public class Lexicon
 		if(!language.equals("en"))
 		{
 			s = StringParser.normalizeFormula(name);
-			p = new Provenance(type, source, language, weight);
+			p = getProvenance(type, source, language, weight);
 		}
 		//Otherwise
 		else
 		{
 			//If it doesn't contain Latin characters, don't add it
-			if(!name.matches(".*[a-zA-Z].*"))
+			if(!StringParser.containsLetter(name))
 				return;
 			//If it is a formula, parse it and label it as such
 			else if(StringParser.isFormula(name))
 			{
 				s = StringParser.normalizeFormula(name);
-				p = new Provenance(LexicalType.FORMULA, source, language, weight);
+				p = getProvenance(LexicalType.FORMULA, source, language, weight);
 			}
 			//If it is a property, parse it as such
 			else if(e.equals(EntityType.DATA) || e.equals(EntityType.OBJECT))
 			{
 				s = StringParser.normalizeProperty(name);
-				p = new Provenance(type, source, language, weight);
+				p = getProvenance(type, source, language, weight);
 			}
 			//Otherwise, parse it normally
 			else
 			{
 				s = StringParser.normalizeName(name);
-				p = new Provenance(type, source, language, weight);
+				p = getProvenance(type, source, language, weight);
 			}
 		}
-		//Then update the tables
-		entityNames[index].add(s,id,p);
-		nameEntities[index].add(id,s,p);
+		//Then intern the name and update the tables
+		int n = dictionary.getId(dictionary.intern(s));
+		entityNames[index].add(n,id);
+		nameEntities[index].add(id,n,p);
+		version++;
 		Integer i = langCount.get(language);
 		if(i == null)
 			langCount.put(language, 1);
@@ -158,7 +181,8 @@ public class Lexicon
 	 */
 	public boolean contains(EntityType e, String name)
 	{
-		return entityNames[getIndex(e)].contains(name);
+		int n = dictionary.getId(name);
+		return n > -1 && entityNames[getIndex(e)].contains(n);
 	}
 	
 	/**
@@ -168,7 +192,7 @@ public class Lexicon
 	 */
 	public boolean contains(int id, String name)
 	{
-		return nameEntities[getIndex(uris.getType(id))].contains(id, name);
+		return getProvenances(name, id) != null;
 	}
 	
 	/**
@@ -187,15 +211,14 @@ public class Lexicon
 	 */
 	public boolean containsNonSmallFormula(int id)
 	{
-		EntityType e = uris.getType(id);
-		int index = getIndex(e);
-		if(!nameEntities[index].contains(id))
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
+		if(names == null)
 			return false;
-		for(String n : nameEntities[index].keySet(id))
+		for(int n : names.keySet())
 		{
-			if(n.length() >= 10)
+			if(dictionary.getName(n).length() >= 10)
 				return true;
-			for(Provenance p : nameEntities[index].get(id,n))
+			for(Provenance p : names.get(n))
 				if(!p.getType().equals(LexicalType.FORMULA))
 					return true;
 		}
@@ -218,7 +241,10 @@ public class Lexicon
 	 */
 	public int entityCount(EntityType e, String name)
 	{
-		return entityNames[getIndex(e)].entryCount(name);
+		int n = dictionary.getId(name);
+		if(n == -1)
+			return 0;
+		return entityNames[getIndex(e)].entryCount(n);
 	}
 	
 	/**
@@ -241,20 +267,29 @@ public class Lexicon
 	 */
 	public int entityCount(EntityType e, String name, Provenance p)
 	{
-		return entityNames[getIndex(e)].entryCount(name, p);
+		int index = getIndex(e);
+		int n = dictionary.getId(name);
+		int count = 0;
+		if(n == -1 || !entityNames[index].contains(n))
+			return count;
+		for(int i : entityNames[index].get(n))
+			if(nameEntities[index].get(i,n).contains(p))
+				count++;
+		return count;
 	}
 	
 	/**
 	 * @param name: the name to search in the Lexicon
 	 * @param id: the index of the entity to search in the Lexicon
 	 * @return the provenances associated with the name,entity pair
+	 * (unmodifiable if there is only one)
 	 */	
-	public Vector<Provenance> get(String name, int id)
+	public List<Provenance> get(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
-		if(entityNames[index].contains(name, id))
-			return entityNames[index].get(name, id);
-		return new Vector<Provenance>();
+		List<Provenance> provs = getProvenances(name, id);
+		if(provs == null)
+			return new Vector<Provenance>();
+		return provs;
 	}
 	
 	/**
@@ -304,27 +339,27 @@ public class Lexicon
 	 */
 	public String getBestName(int id)
 	{
-		int index = getIndex(uris.getType(id));
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
 		String lang = AML.getInstance().getLabelLanguage();
 		Map<String,Provenance> results = new HashMap<String,Provenance>();
-		if(!nameEntities[index].contains(id))
+		if(names == null)
 			return "";
 
-		for(String n : nameEntities[index].keySet(id))
+		for(int n : names.keySet())
 		{
-			for(Provenance p : nameEntities[index].get(id, n))
+			for(Provenance p : names.get(n))
 			{
 				if(p.getLanguage().equals(lang))
 				{
-					results.put(n,p);
+					results.put(dictionary.getName(n),p);
 					break;
 				}
 			}
 		}
 		if(results.size() == 0)
 		{
-			for(String n : nameEntities[index].keySet(id))
-				results.put(n,nameEntities[index].get(id, n).iterator().next());
+			for(int n : names.keySet())
+				results.put(dictionary.getName(n),names.get(n).iterator().next());
 		}
 		results = MapSorter.sortDescending(results);
 		return results.keySet().iterator().next();
@@ -338,13 +373,12 @@ public class Lexicon
 	 */
 	public double getCorrectedWeight(String name, int id)
 	{
-		EntityType e = uris.getType(id);
-		int index = getIndex(e);
-		if(!entityNames[index].contains(name, id))
+		List<Provenance> provs = getProvenances(name, id);
+		if(provs == null)
 			return 0.0;
 		double weight = 0.0;
 		double correction = 0.0;
-		for(Provenance p : entityNames[index].get(name, id))
+		for(Provenance p : provs)
 		{
 			if(p.getWeight() > weight)
 			{
@@ -365,9 +399,7 @@ public class Lexicon
 	 */
 	public double getCorrectedWeight(String name, int id, String lang)
 	{
-		EntityType e = uris.getType(id);
-		int index = getIndex(e);
-		Vector<Provenance> provs = entityNames[index].get(name, id);
+		List<Provenance> provs = getProvenances(name, id);
 		if(provs == null)
 			return 0.0;
 		for(Provenance p : provs)
@@ -397,7 +429,10 @@ public class Lexicon
 	 */
 	public Set<Integer> getEntities(EntityType e, String name)
 	{
-		return entityNames[getIndex(e)].keySet(name);
+		int n = dictionary.getId(name);
+		if(n == -1)
+			return null;
+		return entityNames[getIndex(e)].get(n);
 	}
 	
 	/**
@@ -409,12 +444,13 @@ public class Lexicon
 	public Set<Integer> getEntities(EntityType e, String name, String type)
 	{
 		int index = getIndex(e);
-		Set<Integer> hits = entityNames[index].keySet(name);
+		int n = dictionary.getId(name);
+		Set<Integer> hits = getEntities(e,name);
 		HashSet<Integer> entitiesType = new HashSet<Integer>();
 		if(hits == null)
 			return entitiesType;
 		for(Integer i : hits)
-			for(Provenance p : entityNames[index].get(name,i))
+			for(Provenance p : nameEntities[index].get(i,n))
 				if(p.getType().equals(type))
 					entitiesType.add(i);
 		return entitiesType;
@@ -430,12 +466,13 @@ public class Lexicon
 	public Set<Integer> getEntitiesWithLanguage(EntityType e, String name, String lang)
 	{
 		int index = getIndex(e);
-		Set<Integer> hits = entityNames[index].keySet(name);
+		int n = dictionary.getId(name);
+		Set<Integer> hits = getEntities(e,name);
 		HashSet<Integer> entitiesLang = new HashSet<Integer>();
 		if(hits == null)
 			return entitiesLang;
 		for(Integer i : hits)
-			for(Provenance p : entityNames[index].get(name,i))
+			for(Provenance p : nameEntities[index].get(i,n))
 				if(p.getLanguage().equals(lang))
 					entitiesLang.add(i);
 		return entitiesLang;
@@ -470,21 +507,53 @@ public class Lexicon
 		return extendedEntities;
 	}
 	
+	/**
+	 * @param e: the EntityType of the entries to hash
+	 * @return a hash of the entries of the given EntityType in the Lexicon,
+	 * which depends on the URIs of the entities but not on their indexes
+	 * or on the order in which the entries were added
+	 */
+	public long getFingerprint(EntityType e)
+	{
+		IntTable3List<Provenance> entries = nameEntities[getIndex(e)];
+		long fingerprint = 0;
+		for(int i : entries.keySet())
+		{
+			long uri = uris.getURI(i).hashCode();
+			IntTable2List<Provenance> names = entries.get(i);
+			for(int n : names.keySet())
+			{
+				long name = 31 * uri + dictionary.getName(n).hashCode();
+				for(Provenance p : names.get(n))
+				{
+					long h = 31 * name + p.getType().ordinal();
+					h = 31 * h + p.getLanguage().hashCode();
+					if(p.getSource() != null)
+						h = 31 * h + p.getSource().hashCode();
+					h = 31 * h + Double.doubleToLongBits(p.getWeight());
+					//Mix the bits so that the sum doesn't cancel out
+					h ^= h >>> 33;
+					h *= 0xff51afd7ed558ccdL;
+					h ^= h >>> 33;
+					fingerprint += h;
+				}
+			}
+		}
+		return fingerprint;
+	}
+	
 	/**
 	 * @param id: the index of the entity to search in the Lexicon
 	 * @return the list of local names associated with the class
 	 */
 	public Set<String> getInternalNames(int id)
 	{
-		int index = getIndex(uris.getType(id));
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
 		HashSet<String> localHits = new HashSet<String>();
-		if(nameEntities[index].contains(id))
-		{
-			Set<String> hits = nameEntities[index].keySet(id);
-			for(String s : hits)
-				if(!isExternal(s,id))
-					localHits.add(s);
-		}
+		if(names != null)
+			for(int n : names.keySet())
+				if(!isExternal(names.get(n)))
+					localHits.add(dictionary.getName(n));
 		return localHits;
 	}
 	
@@ -496,7 +565,7 @@ public class Lexicon
 	 */
 	public Set<Integer> getInternalEntities(EntityType e, String name)
 	{
-		Set<Integer> hits = entityNames[getIndex(e)].keySet(name);
+		Set<Integer> hits = getEntities(e,name);
 		HashSet<Integer> localHits = new HashSet<Integer>();
 		if(hits == null)
 			return localHits;
@@ -531,12 +600,13 @@ public class Lexicon
 	public Set<String> getLanguages(EntityType e, String name)
 	{
 		int index = getIndex(e);
-		Set<Integer> hits = entityNames[index].keySet(name);
+		int n = dictionary.getId(name);
+		Set<Integer> hits = getEntities(e,name);
 		HashSet<String> langs = new HashSet<String>();
 		if(hits == null)
 			return langs;
 		for(Integer i : hits)
-			for(Provenance p : entityNames[index].get(name,i))
+			for(Provenance p : nameEntities[index].get(i,n))
 				langs.add(p.getLanguage());
 		return langs;
 	}
@@ -548,8 +618,7 @@ public class Lexicon
 	 */
 	public Set<String> getLanguages(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
-		Vector<Provenance> hits = entityNames[index].get(name,id);
+		List<Provenance> hits = getProvenances(name, id);
 		HashSet<String> langs = new HashSet<String>();
 		if(hits == null)
 			return langs;
@@ -564,7 +633,7 @@ public class Lexicon
 	 */
 	public Set<String> getNames(EntityType e)
 	{
-		return entityNames[getIndex(e)].keySet();
+		return dictionary.getNames(entityNames[getIndex(e)].keySet());
 	}
 
 	/**
@@ -573,9 +642,9 @@ public class Lexicon
 	 */
 	public Set<String> getNames(int id)
 	{
-		int index = getIndex(uris.getType(id));
-		if(nameEntities[index].contains(id))
-			return nameEntities[index].keySet(id);
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
+		if(names != null)
+			return dictionary.getNames(names.keySet());
 		return new HashSet<String>();
 	}
 	
@@ -586,14 +655,14 @@ public class Lexicon
 	 */
 	public Set<String> getNames(int id, LexicalType type)
 	{
-		int index = getIndex(uris.getType(id));
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
 		HashSet<String> namesType = new HashSet<String>();
-		if(nameEntities[index].contains(id))
+		if(names != null)
 		{
-			for(String n : nameEntities[index].keySet(id))
-				for(Provenance p : nameEntities[index].get(id,n))
+			for(int n : names.keySet())
+				for(Provenance p : names.get(n))
 					if(p.getType().equals(type))
-						namesType.add(n);
+						namesType.add(dictionary.getName(n));
 		}
 		return namesType;
 	}
@@ -605,14 +674,14 @@ public class Lexicon
 	 */
 	public Set<String> getNamesWithLanguage(int id, String lang)
 	{
-		int index = getIndex(uris.getType(id));
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
 		HashSet<String> namesLang = new HashSet<String>();
-		if(nameEntities[index].contains(id))
+		if(names != null)
 		{
-			for(String n : nameEntities[index].keySet(id))
-				for(Provenance p : nameEntities[index].get(id,n))
+			for(int n : names.keySet())
+				for(Provenance p : names.get(n))
 					if(p.getLanguage().equals(lang))
-						namesLang.add(n);
+						namesLang.add(dictionary.getName(n));
 		}
 		return namesLang;
 	}
@@ -624,8 +693,7 @@ public class Lexicon
 	 */
 	public Set<String> getSources(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
-		Vector<Provenance> provs = entityNames[index].get(name, id);
+		List<Provenance> provs = getProvenances(name, id);
 		HashSet<String> sources = new HashSet<String>();
 		if(provs == null)
 			return sources;
@@ -641,10 +709,12 @@ public class Lexicon
 	 */
 	public LexicalType getType(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
+		List<Provenance> provs = getProvenances(name, id);
 		LexicalType type = null;
 		double weight = 0.0;
-		for(Provenance p : entityNames[index].get(name, id))
+		if(provs == null)
+			return type;
+		for(Provenance p : provs)
 		{
 			if(p.getWeight() > weight)
 			{
@@ -662,8 +732,7 @@ public class Lexicon
 	 */
 	public Set<LexicalType> getTypes(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
-		Vector<Provenance> provs = entityNames[index].get(name, id);
+		List<Provenance> provs = getProvenances(name, id);
 		HashSet<LexicalType> types = new HashSet<LexicalType>();
 		if(provs == null)
 			return types;
@@ -672,6 +741,15 @@ public class Lexicon
 		return types;
 	}
 	
+	/**
+	 * @return the number of entries added to the Lexicon since it was
+	 * created, which changes whenever the Lexicon does
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+	
 	/**
 	 * @param name: the name to search in the Lexicon
 	 * @param id: the index of the entity to search in the Lexicon
@@ -679,11 +757,11 @@ public class Lexicon
 	 */
 	public double getWeight(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
+		List<Provenance> provs = getProvenances(name, id);
 		double weight = 0.0;
-		if(nameEntities[index].contains(id,name))
+		if(provs != null)
 		{
-			for(Provenance p : nameEntities[index].get(id,name))
+			for(Provenance p : provs)
 				if(p.getWeight() > weight)
 					weight = p.getWeight();
 		}
@@ -698,10 +776,9 @@ public class Lexicon
 	 */
 	public double getWeight(String name, int id, String lang)
 	{
-		int index = getIndex(uris.getType(id));
-		if(!entityNames[index].contains(name, id))
+		List<Provenance> provs = getProvenances(name, id);
+		if(provs == null)
 			return 0.0;
-		Vector<Provenance> provs = entityNames[index].get(name, id);
 		for(Provenance p : provs)
 			if(p.getLanguage().equals(lang))
 				return p.getWeight();
@@ -747,16 +824,8 @@ public class Lexicon
 	 */
 	public boolean isExternal(String name, int id)
 	{
-		int index = getIndex(uris.getType(id));
-		if(nameEntities[index].contains(id,name))
-		{
-			Vector<Provenance> provs = nameEntities[index].get(id, name);
-			for(Provenance p : provs)
-				if(!p.isExternal())
-					return false;
-			return true;
-		}
-		return false;
+		List<Provenance> provs = getProvenances(name, id);
+		return provs != null && isExternal(provs);
 	}
 	
 	/**
@@ -768,10 +837,9 @@ public class Lexicon
 	 */
 	public boolean isExternal(String name, int id, String lang)
 	{
-		int index = getIndex(uris.getType(id));
-		if(!entityNames[index].contains(name,id))
+		List<Provenance> provs = getProvenances(name, id);
+		if(provs == null)
 			return false;
-		Vector<Provenance> provs = entityNames[index].get(name, id);
 		for(Provenance p : provs)
 			if(p.getLanguage().equals(lang) && p.isExternal())
 				return true;
@@ -825,13 +893,12 @@ public class Lexicon
 	 */
 	public int nameCount(int id, LexicalType type, String lang)
 	{
-		int index = getIndex(uris.getType(id));
-		Set<String> hits = nameEntities[index].keySet(id);
+		IntTable2List<Provenance> names = nameEntities[getIndex(uris.getType(id))].get(id);
 		int count = 0;
-		if(hits == null)
+		if(names == null)
 			return count;
-		for(String n : hits)
-			for(Provenance p : nameEntities[index].get(id,n))
+		for(int n : names.keySet())
+			for(Provenance p : names.get(n))
 				if(p.getLanguage().equals(lang) && p.getType().equals(type))
 					count++;
 		return count;
@@ -843,20 +910,153 @@ public class Lexicon
 	public int size()
 	{
 		int size = 0;
-		for(Table3List<String,Integer,Provenance> t : entityNames)
+		for(IntTable3List<Provenance> t : nameEntities)
 			size += t.size();
 		return size;
 	}
 	
+	/**
+	 * Reads the entries written by write(DataOutputStream) into this
+	 * Lexicon, which must be empty, and whose names must be in the
+	 * NameDictionary with the same ids they had when they were written
+	 * @param in: the stream from which to read the entries
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		LexicalType[] lexTypes = LexicalType.values();
+		Provenance[] provs = new Provenance[in.readInt()];
+		for(int i = 0; i < provs.length; i++)
+		{
+			LexicalType type = lexTypes[in.readByte()];
+			String source = in.readBoolean() ? OntologySnapshot.readString(in) : null;
+			String language = OntologySnapshot.readString(in);
+			provs[i] = getProvenance(type, source, language, in.readDouble());
+		}
+		for(int index = 0; index < entityNames.length; index++)
+		{
+			OntologySnapshot.readTable(in, entityNames[index]);
+			int ids = in.readInt();
+			for(int i = 0; i < ids; i++)
+			{
+				int id = in.readInt();
+				int names = in.readInt();
+				for(int j = 0; j < names; j++)
+				{
+					int n = in.readInt();
+					int count = in.readInt();
+					for(int k = 0; k < count; k++)
+						nameEntities[index].add(id, n, provs[in.readInt()]);
+				}
+			}
+		}
+		int langs = in.readInt();
+		for(int i = 0; i < langs; i++)
+		{
+			String lang = OntologySnapshot.readString(in);
+			langCount.put(lang, in.readInt());
+		}
+		version = in.readInt();
+	}
+	
+	/**
+	 * Writes the entries in this Lexicon, with both tables in iteration
+	 * order and the names by their ids in the NameDictionary
+	 * @param out: the stream where to write the entries
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		//Provenances are shared by many entries, so they are
+		//written once and referred to by their position
+		IdentityHashMap<Provenance,Integer> positions = new IdentityHashMap<Provenance,Integer>();
+		for(IntTable3List<Provenance> t : nameEntities)
+			for(int i : t.keySet())
+				for(int n : t.keySet(i))
+					for(Provenance p : t.get(i,n))
+						if(!positions.containsKey(p))
+							positions.put(p, positions.size());
+		Provenance[] provs = new Provenance[positions.size()];
+		for(Provenance p : positions.keySet())
+			provs[positions.get(p)] = p;
+		out.writeInt(provs.length);
+		for(Provenance p : provs)
+		{
+			out.writeByte(p.getType().ordinal());
+			out.writeBoolean(p.getSource() != null);
+			if(p.getSource() != null)
+				OntologySnapshot.writeString(out, p.getSource());
+			OntologySnapshot.writeString(out, p.getLanguage());
+			out.writeDouble(p.getWeight());
+		}
+		for(int index = 0; index < entityNames.length; index++)
+		{
+			OntologySnapshot.writeTable(out, entityNames[index]);
+			out.writeInt(nameEntities[index].keyCount());
+			for(int i : nameEntities[index].keySet())
+			{
+				IntTable2List<Provenance> names = nameEntities[index].get(i);
+				out.writeInt(i);
+				out.writeInt(names.keyCount());
+				for(int n : names.keySet())
+				{
+					out.writeInt(n);
+					writeProvenances(out, names.get(n), positions);
+				}
+			}
+		}
+		out.writeInt(langCount.size());
+		for(String lang : langCount.keySet())
+		{
+			OntologySnapshot.writeString(out, lang);
+			out.writeInt(langCount.get(lang));
+		}
+		out.writeInt(version);
+	}
 	
 //Private Methods
 	
 	private int getIndex(EntityType e)
 	{
-		EntityType[] types = EntityType.values();
-		for(int i = 0; i < types.length; i++)
-			if(types[i].equals(e))
-				return i;
-		return -1;
+		//The tables are indexed by the order of the EntityTypes
+		return e.ordinal();
+	}
+	
+	//Gets the shared Provenance with the given values, creating it if it doesn't exist yet
+	private Provenance getProvenance(LexicalType type, String source, String language, double weight)
+	{
+		Provenance p = new Provenance(type, source, language, weight);
+		Provenance.Key k = new Provenance.Key(p);
+		Provenance shared = provenances.get(k);
+		if(shared != null)
+			return shared;
+		provenances.put(k, p);
+		return p;
+	}
+	
+	//Gets the Provenances of a name for an entity, or null if the entity doesn't have the name
+	private List<Provenance> getProvenances(String name, int id)
+	{
+		int n = dictionary.getId(name);
+		if(n == -1)
+			return null;
+		return nameEntities[getIndex(uris.getType(id))].get(id, n);
+	}
+	
+	//Checks whether all Provenances of an entry are external
+	private boolean isExternal(List<Provenance> provs)
+	{
+		for(Provenance p : provs)
+			if(!p.isExternal())
+				return false;
+		return true;
+	}
+	
+	//Writes a list of Provenances as their positions
+	private void writeProvenances(DataOutputStream out, List<Provenance> provs, Map<Provenance,Integer> positions) throws IOException
+	{
+		out.writeInt(provs.size());
+		for(Provenance p : provs)
+			out.writeInt(positions.get(p));
 	}
 }
\ No newline at end of file
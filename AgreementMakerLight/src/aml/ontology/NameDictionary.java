@@ -0,0 +1,383 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Dictionary of the names in the Lexicons of the open ontologies, shared by   *
+* all of them. Each name is interned once, with an int id, and split once     *
+* into the ids of its words, so that the matchers can reuse a single instance *
+* of each name and compare the words of two names as int arrays. Strings      *
+* that are not names (e.g., data values) are split in a WordScope, so that    *
+* their words don't add to the NameDictionary.                                *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.ontology;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class NameDictionary
+{
+
+//Attributes
+	
+	//The interned names, by name and by id
+	private ConcurrentHashMap<String,Name> names;
+	private Vector<Name> nameList;
+	//The words of the names, by word and by id
+	private ConcurrentHashMap<String,Integer> wordIds;
+	private Vector<String> words;
+	
+//Constructors
+	
+	/**
+	 * Creates a new empty NameDictionary
+	 */
+	public NameDictionary()
+	{
+		names = new ConcurrentHashMap<String,Name>();
+		nameList = new Vector<Name>();
+		wordIds = new ConcurrentHashMap<String,Integer>();
+		words = new Vector<String>();
+	}
+	
+//Public Methods
+	
+	/**
+	 * @param name: the name to search in the NameDictionary
+	 * @return the id of the name, or -1 if it is not in the NameDictionary
+	 */
+	public int getId(String name)
+	{
+		Name n = names.get(name);
+		if(n == null)
+			return -1;
+		return n.id;
+	}
+	
+	/**
+	 * @param id: the id of the name to get
+	 * @return the interned name with the given id
+	 */
+	public String getName(int id)
+	{
+		return nameList.get(id).name;
+	}
+	
+	/**
+	 * @param ids: the ids of the names to get
+	 * @return a live view of the names with the given ids
+	 */
+	public Set<String> getNames(Set<Integer> ids)
+	{
+		return new NameSet(ids);
+	}
+	
+	/**
+	 * @param wordId: the id of the word to get
+	 * @return the word with the given id
+	 */
+	public String getWord(int wordId)
+	{
+		return words.get(wordId);
+	}
+	
+	/**
+	 * @param id: the id of the name
+	 * @return the ids of the words of the name, in the order they occur
+	 * (split on single spaces)
+	 */
+	public int[] getWords(int id)
+	{
+		return nameList.get(id).words;
+	}
+	
+	/**
+	 * @param id: the id of the name
+	 * @return the distinct ids of the words of the name, in ascending order
+	 */
+	public int[] getWordSet(int id)
+	{
+		return nameList.get(id).wordSet;
+	}
+	
+	/**
+	 * Adds a name to the NameDictionary, if it isn't there already
+	 * @param name: the name to intern
+	 * @return the single instance of the name kept by the NameDictionary
+	 */
+	public String intern(String name)
+	{
+		Name n = names.get(name);
+		if(n != null)
+			return n.name;
+		synchronized(this)
+		{
+			n = names.get(name);
+			if(n == null)
+			{
+				int[] w = split(name);
+				n = new Name(name, nameList.size(), w, toSet(w));
+				nameList.add(n);
+				names.put(name, n);
+			}
+			return n.name;
+		}
+	}
+	
+	/**
+	 * @return a new WordScope, for splitting Strings that need not be
+	 * names in the NameDictionary
+	 */
+	public WordScope newWordScope()
+	{
+		return new WordScope();
+	}
+	
+	/**
+	 * Reads the names written by write(DataOutputStream) into this
+	 * NameDictionary, which must be empty, so that they get the
+	 * same ids (and their words the same word ids) as before
+	 * @param in: the stream from which to read the names
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		int count = in.readInt();
+		for(int i = 0; i < count; i++)
+			intern(OntologySnapshot.readString(in));
+	}
+	
+	/**
+	 * @return the number of names in the NameDictionary
+	 */
+	public int size()
+	{
+		return nameList.size();
+	}
+	
+	/**
+	 * @return the number of distinct words in the NameDictionary
+	 */
+	public int wordCount()
+	{
+		return words.size();
+	}
+	
+	/**
+	 * Writes the names in this NameDictionary, in the order of their ids
+	 * @param out: the stream where to write the names
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(nameList.size());
+		for(Name n : nameList)
+			OntologySnapshot.writeString(out, n.name);
+	}
+	
+//Private Methods
+	
+	//Splits a name into words (as String.split(" ") does) and gets their ids 
+	private int[] split(String name)
+	{
+		String[] w = name.split(" ");
+		int[] ids = new int[w.length];
+		for(int i = 0; i < w.length; i++)
+			ids[i] = getWordId(w[i]);
+		return ids;
+	}
+	
+	private int getWordId(String word)
+	{
+		Integer id = wordIds.get(word);
+		if(id != null)
+			return id;
+		synchronized(words)
+		{
+			id = wordIds.get(word);
+			if(id == null)
+			{
+				id = words.size();
+				words.add(word);
+				wordIds.put(word, id);
+			}
+			return id;
+		}
+	}
+	
+	private static int[] toSet(int[] ids)
+	{
+		int[] set = Arrays.copyOf(ids, ids.length);
+		Arrays.sort(set);
+		int size = 0;
+		for(int i = 0; i < set.length; i++)
+			if(size == 0 || set[size-1] != set[i])
+				set[size++] = set[i];
+		if(size < set.length)
+			set = Arrays.copyOf(set, size);
+		return set;
+	}
+	
+	//A view of a set of name ids as a set of names
+	private class NameSet extends AbstractSet<String>
+	{
+		private Set<Integer> ids;
+		
+		private NameSet(Set<Integer> ids)
+		{
+			this.ids = ids;
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			if(!(o instanceof String))
+				return false;
+			int id = getId((String)o);
+			return id > -1 && ids.contains(id);
+		}
+		
+		@Override
+		public Iterator<String> iterator()
+		{
+			final Iterator<Integer> i = ids.iterator();
+			return new Iterator<String>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return i.hasNext();
+				}
+
+				@Override
+				public String next()
+				{
+					return getName(i.next());
+				}
+
+				@Override
+				public void remove()
+				{
+					i.remove();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return ids.size();
+		}
+	}
+	
+	//An interned name with its words
+	private static class Name
+	{
+		private String name;
+		private int id;
+		private int[] words;
+		private int[] wordSet;
+		
+		private Name(String name, int id, int[] words, int[] wordSet)
+		{
+			this.name = name;
+			this.id = id;
+			this.words = words;
+			this.wordSet = wordSet;
+		}
+	}
+	
+	/**
+	 * A throwaway scope for splitting Strings that need not be names in the
+	 * NameDictionary (e.g., data values). Words in the NameDictionary keep
+	 * their ids, and other words get negative ids that are local to the scope,
+	 * so the words of the Strings split in the same scope can be compared
+	 * without adding them to the NameDictionary.
+	 */
+	public class WordScope
+	{
+		//The local words, by word and by id (-1 - index)
+		private HashMap<String,Integer> localIds;
+		private Vector<String> localWords;
+		
+		private WordScope(){}
+		
+		/**
+		 * @param wordId: the id of the word to get
+		 * @return the word with the given id
+		 */
+		public String getWord(int wordId)
+		{
+			if(wordId < 0)
+				return localWords.get(-1 - wordId);
+			return words.get(wordId);
+		}
+		
+		/**
+		 * @param name: the String to split
+		 * @return the ids of the words of the String, in the order they occur
+		 */
+		public int[] getWords(String name)
+		{
+			Name n = names.get(name);
+			if(n != null)
+				return n.words;
+			String[] w = name.split(" ");
+			int[] ids = new int[w.length];
+			for(int i = 0; i < w.length; i++)
+				ids[i] = getLocalId(w[i]);
+			return ids;
+		}
+		
+		/**
+		 * @param name: the String to split
+		 * @return the distinct ids of the words of the String, in ascending order
+		 */
+		public int[] getWordSet(String name)
+		{
+			Name n = names.get(name);
+			if(n != null)
+				return n.wordSet;
+			return toSet(getWords(name));
+		}
+		
+		private int getLocalId(String word)
+		{
+			Integer id = wordIds.get(word);
+			if(id != null)
+				return id;
+			if(localIds == null)
+			{
+				localIds = new HashMap<String,Integer>();
+				localWords = new Vector<String>();
+			}
+			id = localIds.get(word);
+			if(id == null)
+			{
+				id = -1 - localWords.size();
+				localWords.add(word);
+				localIds.put(word, id);
+			}
+			return id;
+		}
+	}
+}
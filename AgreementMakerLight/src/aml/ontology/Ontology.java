@@ -18,7 +18,10 @@
 ******************************************************************************/
 package aml.ontology;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
@@ -62,7 +65,10 @@ public class Ontology
 	protected OWLDataFactory factory;
 	protected OWLOntologyLoaderConfiguration conf;
 	//The entity expansion limit property
-	 protected final String LIMIT = "entityExpansionLimit"; 
+	 protected static final String LIMIT = "entityExpansionLimit"; 
+	//The number of ontologies being loaded (as they can be loaded concurrently,
+	//the entity expansion limit is only reset when all of them are finished)
+	private static int loading = 0;
 	//The URI of the ontology
 	protected String uri;
 	//The set of entities in the ontology 
@@ -73,8 +79,8 @@ public class Ontology
 	protected Lexicon lex;
 	//Its value map
 	protected ValueMap vMap;
-	//Its word lexicon
-	protected WordLexicon wLex;
+	//Its word lexicons, by EntityType and language
+	protected HashMap<EntityType,HashMap<String,WordLexicon>> wLex;
 	//Its reference map
 	protected ReferenceMap refs;
 	//The map of class names (String) -> indexes (Integer) in the ontology
@@ -103,24 +109,38 @@ public class Ontology
 	protected Ontology()
 	{
 		//Increase the entity expansion limit to allow large ontologies
-		System.setProperty(LIMIT, "1000000");
+		increaseExpansionLimit();
 		//Get an Ontology Manager and Data Factory
 		manager = OWLManager.createOWLOntologyManager();
 		factory = manager.getOWLDataFactory();
 		conf = new OWLOntologyLoaderConfiguration().setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
-		//Initialize the data structures
-		entities = new HashSet<Integer>();
-		entityTypes = new Table2Set<EntityType,Integer>();
-		lex = new Lexicon();
-		vMap = new ValueMap();
-		refs = new ReferenceMap();
-		classNames = new HashMap<String,Integer>();
-		obsolete = new HashSet<Integer>();
-		wLex = null;
-		aml = AML.getInstance();
-		useReasoner = aml.useReasoner();
-		uris = aml.getURIMap();
-		rm = aml.getRelationshipMap();
+		initStructures();
+	}
+	
+	/**
+	 * Constructs an Ontology from a stream written by write(DataOutputStream),
+	 * without using the OWL API
+	 * @param in: the stream from which to read the Ontology
+	 * @throws IOException if unable to read the stream
+	 */
+	Ontology(DataInputStream in) throws IOException
+	{
+		initStructures();
+		uri = in.readBoolean() ? OntologySnapshot.readString(in) : null;
+		isSKOS = in.readBoolean();
+		int count = in.readInt();
+		for(int i = 0; i < count; i++)
+			add(in.readInt());
+		lex.read(in);
+		vMap.read(in);
+		refs.read(in);
+		count = in.readInt();
+		for(int i = 0; i < count; i++)
+		{
+			String name = OntologySnapshot.readString(in);
+			classNames.put(name, in.readInt());
+		}
+		OntologySnapshot.readSet(in, obsolete);
 	}
 	
 	/**
@@ -129,18 +149,26 @@ public class Ontology
 	 * @throws OWLOntologyCreationException 
 	 */
 	public Ontology(String path) throws OWLOntologyCreationException
+	{
+		this(parse(path), path);
+	}
+	
+	/**
+	 * Constructs an Ontology from an OWLOntology parsed from file with
+	 * parse(String), so that the parsing of several ontologies can run
+	 * concurrently while they are still added to AML one at a time
+	 * @param o: the OWLOntology to use
+	 * @param path: the path to the file from which it was parsed
+	 */
+	public Ontology(OWLOntology o, String path)
 	{
 		this();
-		//Load the local ontology
-		File f = new File(path);
-		OWLOntology o;
-		o = manager.loadOntologyFromOntologyDocument(f);
-		uri = f.getAbsolutePath();
+		uri = new File(path).getAbsolutePath();
 		init(o);
 		//Close the OntModel
-		manager.removeOntology(o);
+		o.getOWLOntologyManager().removeOntology(o);
 		//Reset the entity expansion limit
-		System.clearProperty(LIMIT);
+		resetExpansionLimit();
 	}
 
 	/**
@@ -159,7 +187,7 @@ public class Ontology
 		//Close the OntModel
 		manager.removeOntology(o);
 		//Reset the entity expansion limit
-		System.clearProperty(LIMIT);
+		resetExpansionLimit();
 	}
 
 	/**
@@ -171,7 +199,7 @@ public class Ontology
 		this();
 		init(o);
 		//Reset the entity expansion limit
-		System.clearProperty(LIMIT);
+		resetExpansionLimit();
 	}
 
 	//Public Methods
@@ -305,32 +333,62 @@ public class Ontology
 	}
 
 	/**
-	 * Build a new WordLexicon of the given EntityType and without
-	 * language restrictions for this Ontology, or returns the
-	 * current WordLexicon if it matches these specifications.
+	 * Gets the WordLexicon of the given EntityType and without language
+	 * restrictions for this Ontology, building it if it isn't cached
+	 * or if the Lexicon changed since it was built.
 	 * @param e: the EntityType for which to build the WordLexicon
 	 * @return the WordLexicon of this Ontology
 	 */
 	public WordLexicon getWordLexicon(EntityType e)
 	{
-		if(wLex == null || !wLex.getType().equals(e) || !wLex.getLanguage().equals(""))
-			wLex = new WordLexicon(lex,e);
-		return wLex;
+		return getWordLexicon(e,"");
 	}
 
 	/**
-	 * Build a new WordLexicon of the given EntityType and language
-	 * for this Ontology, or returns the current WordLexicon if it
-	 * matches these specifications.
+	 * Gets the WordLexicon of the given EntityType and language for this
+	 * Ontology, building it if it isn't cached or if the Lexicon changed
+	 * since it was built. If a WordLexicon cache directory is set, the
+	 * WordLexicon is loaded from there when possible, and saved there
+	 * when it is built.
 	 * @param e: the EntityType for which to build the WordLexicon
 	 * @param lang: the language of the WordLexicon
 	 * @return the WordLexicon of this Ontology
 	 */
 	public WordLexicon getWordLexicon(EntityType e, String lang)
 	{
-		if(wLex == null || !wLex.getLanguage().equals(lang))
-			wLex = new WordLexicon(lex,e,lang);
-		return wLex;
+		HashMap<String,WordLexicon> typeLex = wLex.get(e);
+		if(typeLex == null)
+		{
+			typeLex = new HashMap<String,WordLexicon>();
+			wLex.put(e,typeLex);
+		}
+		WordLexicon w = typeLex.get(lang);
+		if(w != null && w.isUpToDate())
+			return w;
+		w = null;
+		File f = null;
+		if(aml.getWordLexiconCache() != null && uri != null)
+		{
+			f = new File(aml.getWordLexiconCache(), wordLexiconFile(e,lang));
+			w = WordLexicon.load(f,lex,e,lang);
+		}
+		if(w == null)
+		{
+			w = new WordLexicon(lex,e,lang);
+			if(f != null)
+			{
+				try
+				{
+					w.save(f);
+				}
+				catch(IOException x)
+				{
+					System.out.println("Unable to save WordLexicon to " + f + ": " + x.getMessage());
+				}
+			}
+		}
+		typeLex.put(lang,w);
+		return w;
 	}
 
 	/**
@@ -350,6 +408,53 @@ public class Ontology
 		return isSKOS;
 	}
 	
+	/**
+	 * Parses an ontology file with the OWL API, without adding it to AML
+	 * (each file gets its own OWLOntologyManager, so several files can
+	 * be parsed concurrently)
+	 * @param path: the path to the ontology file
+	 * @return the parsed OWLOntology
+	 * @throws OWLOntologyCreationException 
+	 */
+	public static OWLOntology parse(String path) throws OWLOntologyCreationException
+	{
+		increaseExpansionLimit();
+		try
+		{
+			return OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new File(path));
+		}
+		finally
+		{
+			resetExpansionLimit();
+		}
+	}
+	
+	/**
+	 * Writes the contents of this Ontology, to be read by the
+	 * Ontology(DataInputStream) constructor (the RelationshipMap
+	 * and URIMap are shared, so they are written separately)
+	 * @param out: the stream where to write the Ontology
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeBoolean(uri != null);
+		if(uri != null)
+			OntologySnapshot.writeString(out, uri);
+		out.writeBoolean(isSKOS);
+		OntologySnapshot.writeSet(out, entities);
+		lex.write(out);
+		vMap.write(out);
+		refs.write(out);
+		out.writeInt(classNames.size());
+		for(String name : classNames.keySet())
+		{
+			OntologySnapshot.writeString(out, name);
+			out.writeInt(classNames.get(name));
+		}
+		OntologySnapshot.writeSet(out, obsolete);
+	}
+	
 //Private Methods	
 
 	//Builds the ontology data structures
@@ -390,6 +495,37 @@ public class Ontology
 		}
 	}
 
+	//Increases the entity expansion limit to allow large ontologies
+	private static synchronized void increaseExpansionLimit()
+	{
+		if(loading++ == 0)
+			System.setProperty(LIMIT, "1000000");
+	}
+	
+	//Resets the entity expansion limit once no ontology is being loaded
+	private static synchronized void resetExpansionLimit()
+	{
+		if(--loading == 0)
+			System.clearProperty(LIMIT);
+	}
+
+	//Initializes the data structures of the Ontology
+	private void initStructures()
+	{
+		entities = new HashSet<Integer>();
+		entityTypes = new Table2Set<EntityType,Integer>();
+		lex = new Lexicon();
+		vMap = new ValueMap();
+		refs = new ReferenceMap();
+		classNames = new HashMap<String,Integer>();
+		obsolete = new HashSet<Integer>();
+		wLex = new HashMap<EntityType,HashMap<String,WordLexicon>>();
+		aml = AML.getInstance();
+		useReasoner = aml.useReasoner();
+		uris = aml.getURIMap();
+		rm = aml.getRelationshipMap();
+	}
+
 	//SKOS Thesauri
 
 	//Processes the classes and their lexical information
@@ -1787,4 +1923,15 @@ public class Ontology
 			index = newUri.lastIndexOf("/") + 1;
 		return newUri.substring(index);
 	}
+	
+	//Gets the name of the file where the WordLexicon of the given EntityType
+	//and language is saved, which is unique for the URI of the Ontology
+	private String wordLexiconFile(EntityType e, String lang)
+	{
+		String name = uri.substring(Math.max(uri.lastIndexOf('/'), uri.lastIndexOf(File.separatorChar)) + 1);
+		name = name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(uri.hashCode()) + "-" + e;
+		if(!lang.isEmpty())
+			name += "-" + lang;
+		return name + ".wlex";
+	}
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A binary snapshot of a pair of fully loaded ontologies, including the       *
+* URIMap, the RelationshipMap after the transitive closure, and the Lexicon,  *
+* ValueMap and ReferenceMap of each ontology, so that the pair can be         *
+* reopened without parsing it with the OWL API.                               *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.ontology;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+import aml.AML;
+import aml.util.IntTable2Set;
+
+public class OntologySnapshot
+{
+
+//Attributes
+	
+	//The version of the snapshot format (must be increased whenever
+	//the format or the way the ontologies are loaded changes)
+	private static final int FORMAT = 4;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	//How each ontology in the snapshot is named: after its own URI, or
+	//after the path or the URI of the file it was loaded from
+	private static final byte NAMED_AFTER_URI = 0;
+	private static final byte NAMED_AFTER_PATH = 1;
+	private static final byte NAMED_AFTER_FILE_URI = 2;
+	//The ontologies in the snapshot
+	private Ontology source;
+	private Ontology target;
+	
+//Constructors
+	
+	/**
+	 * Reads the ontologies in the snapshot into the URIMap,
+	 * NameDictionary and RelationshipMap currently open in AML,
+	 * which must be empty
+	 * @param in: the stream from which to read the snapshot
+	 * @param src: the path to the source ontology file
+	 * @param tgt: the path to the target ontology file
+	 * @throws IOException if unable to read the snapshot
+	 */
+	private OntologySnapshot(DataInputStream in, String src, String tgt) throws IOException
+	{
+		AML aml = AML.getInstance();
+		aml.getURIMap().read(in);
+		aml.getNameDictionary().read(in);
+		aml.getRelationshipMap().read(in);
+		source = readOntology(in, src);
+		target = readOntology(in, tgt);
+	}
+	
+//Public Methods
+	
+	/**
+	 * Gets the snapshot file for a pair of ontology files, which is named
+	 * after a hash of their contents, so that the snapshot is no longer
+	 * used when either ontology changes
+	 * @param dir: the directory where snapshots are stored
+	 * @param src: the path to the source ontology file
+	 * @param tgt: the path to the target ontology file
+	 * @param useReasoner: whether the ontologies are loaded with a reasoner
+	 * @return the snapshot file for the pair of ontologies
+	 * @throws IOException if unable to read either ontology file
+	 */
+	public static File getFile(String dir, String src, String tgt, boolean useReasoner) throws IOException
+	{
+		MessageDigest md;
+		try
+		{
+			md = MessageDigest.getInstance("SHA-1");
+		}
+		catch(NoSuchAlgorithmException x)
+		{
+			throw new IOException(x);
+		}
+		md.update((byte)FORMAT);
+		md.update((byte)(useReasoner ? 1 : 0));
+		digest(md, src);
+		digest(md, tgt);
+		StringBuilder name = new StringBuilder();
+		for(byte b : md.digest())
+			name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return new File(dir, name.append(".snapshot").toString());
+	}
+	
+	/**
+	 * @return the source ontology in the snapshot
+	 */
+	public Ontology getSource()
+	{
+		return source;
+	}
+	
+	/**
+	 * @return the target ontology in the snapshot
+	 */
+	public Ontology getTarget()
+	{
+		return target;
+	}
+	
+	/**
+	 * Loads a snapshot into the URIMap, NameDictionary and RelationshipMap
+	 * currently open in AML, which must be empty (and must be discarded
+	 * if the snapshot can't be loaded, as they may be partially filled)
+	 * @param file: the file from which to load the snapshot
+	 * @param src: the path to the source ontology file
+	 * @param tgt: the path to the target ontology file
+	 * @return the snapshot in the file, or null if the file doesn't
+	 * exist or can't be read
+	 */
+	public static OntologySnapshot load(File file, String src, String tgt)
+	{
+		if(!file.exists())
+			return null;
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file),1 << 16));
+			if(in.readInt() != FORMAT)
+				return null;
+			return new OntologySnapshot(in, src, tgt);
+		}
+		catch(IOException x)
+		{
+			System.out.println("Unable to read snapshot from " + file + ": " + x.getMessage());
+			return null;
+		}
+		finally
+		{
+			try
+			{
+				if(in != null)
+					in.close();
+			}
+			catch(IOException x)
+			{
+				//Nothing to do
+			}
+		}
+	}
+	
+	/**
+	 * Saves a snapshot of the given ontologies and of the URIMap,
+	 * NameDictionary and RelationshipMap currently open in AML, which
+	 * should be called right after the transitive closure of the
+	 * RelationshipMap
+	 * @param file: the file where to save the snapshot
+	 * @param source: the source ontology
+	 * @param target: the target ontology
+	 * @param src: the path to the source ontology file
+	 * @param tgt: the path to the target ontology file
+	 * @throws IOException if unable to write the file
+	 */
+	public static void save(File file, Ontology source, Ontology target, String src, String tgt) throws IOException
+	{
+		if(file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		AML aml = AML.getInstance();
+		//Write to a temporary file first, so that an incomplete
+		//snapshot is never read
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp),1 << 16));
+		boolean written = false;
+		try
+		{
+			out.writeInt(FORMAT);
+			aml.getURIMap().write(out);
+			aml.getNameDictionary().write(out);
+			aml.getRelationshipMap().write(out);
+			writeOntology(out, source, src);
+			writeOntology(out, target, tgt);
+			written = true;
+		}
+		finally
+		{
+			out.close();
+			if(!written)
+				temp.delete();
+		}
+		file.delete();
+		if(!temp.renameTo(file))
+			throw new IOException("unable to rename " + temp);
+	}
+	
+	//Reads a set of integers written by writeSet
+	static void readSet(DataInputStream in, Set<Integer> set) throws IOException
+	{
+		int count = in.readInt();
+		for(int i = 0; i < count; i++)
+			set.add(in.readInt());
+	}
+	
+	/**
+	 * Reads a String written by writeString
+	 * @param in: the stream from which to read the String
+	 * @return the String read
+	 * @throws IOException if unable to read the stream
+	 */
+	public static String readString(DataInputStream in) throws IOException
+	{
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+	
+	//Reads a table of integers written by writeTable
+	static void readTable(DataInputStream in, IntTable2Set table) throws IOException
+	{
+		int keys = in.readInt();
+		for(int i = 0; i < keys; i++)
+		{
+			int key = in.readInt();
+			int values = in.readInt();
+			for(int j = 0; j < values; j++)
+				table.add(key, in.readInt());
+		}
+	}
+	
+	//Writes a set of integers in iteration order
+	static void writeSet(DataOutputStream out, Set<Integer> set) throws IOException
+	{
+		out.writeInt(set.size());
+		for(int i : set)
+			out.writeInt(i);
+	}
+	
+	/**
+	 * Writes a String as its length followed by its UTF-8 bytes, which,
+	 * unlike DataOutputStream.writeUTF, isn't limited to 64 KB (Strings
+	 * read from ontologies never contain unpaired surrogates, so they
+	 * are always read back unchanged)
+	 * @param out: the stream where to write the String
+	 * @param s: the String to write
+	 * @throws IOException if unable to write to the stream
+	 */
+	public static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	//Writes a table of integers in iteration order
+	static void writeTable(DataOutputStream out, IntTable2Set table) throws IOException
+	{
+		out.writeInt(table.keyCount());
+		for(int key : table.keySet())
+		{
+			Set<Integer> values = table.get(key);
+			out.writeInt(key);
+			out.writeInt(values.size());
+			for(int v : values)
+				out.writeInt(v);
+		}
+	}
+	
+//Private Methods
+	
+	//Updates the digest with the contents of a file
+	private static void digest(MessageDigest md, String path) throws IOException
+	{
+		InputStream in = new FileInputStream(path);
+		try
+		{
+			byte[] buffer = new byte[1 << 16];
+			int n;
+			while((n = in.read(buffer)) > 0)
+				md.update(buffer, 0, n);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	//Reads an ontology written by writeOntology, which, if it was named
+	//after the file it was loaded from, is renamed after its current
+	//file (as the snapshot is shared by all copies of the file)
+	private static Ontology readOntology(DataInputStream in, String path) throws IOException
+	{
+		byte naming = in.readByte();
+		Ontology o = new Ontology(in);
+		File f = new File(path).getAbsoluteFile();
+		if(naming == NAMED_AFTER_PATH)
+			o.uri = f.getPath();
+		else if(naming == NAMED_AFTER_FILE_URI)
+			o.uri = f.toURI().toString();
+		return o;
+	}
+	
+	//Writes an ontology, preceded by whether it is named after the path
+	//or the URI of its file (which is the case when the ontology has no
+	//URI of its own, or declares it as the document URI)
+	private static void writeOntology(DataOutputStream out, Ontology o, String path) throws IOException
+	{
+		File f = new File(path).getAbsoluteFile();
+		if(f.getPath().equals(o.getURI()))
+			out.writeByte(NAMED_AFTER_PATH);
+		else if(f.toURI().toString().equals(o.getURI()))
+			out.writeByte(NAMED_AFTER_FILE_URI);
+		else
+			out.writeByte(NAMED_AFTER_URI);
+		o.write(out);
+	}
+}
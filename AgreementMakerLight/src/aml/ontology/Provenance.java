@@ -13,7 +13,8 @@
 *                                                                             *
 *******************************************************************************
 * The provenance (type and source) of an entry in the Lexicon and its         *
-* associated weight.                                                          *
+* associated weight. Provenances are immutable, and each Lexicon shares a     *
+* single instance among all its entries with the same values (see Key).       *
 *                                                                             *
 * @author Daniel Faria                                                        *
 ******************************************************************************/
@@ -27,14 +28,14 @@ public class Provenance implements Comparable<Provenance>
 //Attributes
 
 	//The lexical type of the name for the class (see aml.settings.LexicalType)
-	private LexicalType type;
+	private final LexicalType type;
 	//The source of the name for the class ("" if it is the ontology that lists
 	//the class, or an ontology URI/name if it is an external resource - e.g. other ontology, wordnet)
-	private String source;
-	private String language;
+	private final String source;
+	private final String language;
 	//The weight of the name for the class (according to aml.settings.LexicalType, or in case of
 	//lexical extension, based on the match similarity)
-	private double weight;
+	private final double weight;
 	
 //Constructors
 	
@@ -136,12 +137,36 @@ public class Provenance implements Comparable<Provenance>
 		return !source.equals("");
 	}
 	
-	/**
-	 * Sets the weight of this Provenance to the given value
-	 * @param w: the weight to set
-	 */
-	public void setWeight(double w)
+	//Key of the instances shared by the Lexicon, which compares all values
+	//(whereas Provenances are "equal" if they have the same language)
+	static class Key
 	{
-		weight = w;
+		private Provenance p;
+		
+		Key(Provenance p)
+		{
+			this.p = p;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Key))
+				return false;
+			Provenance q = ((Key)o).p;
+			return p.type == q.type && equals(p.source, q.source) && equals(p.language, q.language) &&
+					Double.doubleToLongBits(p.weight) == Double.doubleToLongBits(q.weight);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return 31 * p.hashCode() + (int)Double.doubleToLongBits(p.weight);
+		}
+		
+		private static boolean equals(String s, String t)
+		{
+			return s == null ? t == null : s.equals(t);
+		}
 	}
 }
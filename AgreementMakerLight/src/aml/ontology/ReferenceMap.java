@@ -20,7 +20,10 @@ package aml.ontology;
 
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.Set;
 
 import aml.util.Table2Set;
@@ -171,4 +174,38 @@ public class ReferenceMap
 	{
 		return termRefs.keyCount();
 	}
+	
+	/**
+	 * Reads the entries written by write(DataOutputStream) into this ReferenceMap
+	 * @param in: the stream from which to read the entries
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		int terms = in.readInt();
+		for(int i = 0; i < terms; i++)
+		{
+			int term = in.readInt();
+			int refs = in.readInt();
+			for(int j = 0; j < refs; j++)
+				add(term, OntologySnapshot.readString(in));
+		}
+	}
+	
+	/**
+	 * Writes the entries in this ReferenceMap, in iteration order
+	 * @param out: the stream where to write the entries
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(termRefs.keyCount());
+		for(Integer t : termRefs.keySet())
+		{
+			Set<String> refs = termRefs.get(t);
+			out.writeInt(refs.size());
+			for(String r : refs)
+				OntologySnapshot.writeString(out, r);
+		}
+	}
 }
\ No newline at end of file
@@ -20,14 +20,20 @@
 ******************************************************************************/
 package aml.ontology;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.Vector;
 
 import aml.AML;
+import aml.util.IntTable2List;
+import aml.util.IntTable2Set;
+import aml.util.IntTable3List;
 import aml.util.Table2Set;
-import aml.util.Table3List;
 import aml.util.Table3Set;
 
 
@@ -38,16 +44,19 @@ public class RelationshipMap
 
 	//Relationships between classes
 	//Hierarchical relations and property restrictions (with transitive closure)
-	private Table3List<Integer,Integer,Relationship> ancestorClasses; //Class -> Ancestor -> Relationship
-	private Table3List<Integer,Integer,Relationship> descendantClasses;	//Class -> Descendant -> Relationship
+	private IntTable3List<Relationship> ancestorClasses; //Class -> Ancestor -> Relationship
+	private IntTable3List<Relationship> descendantClasses;	//Class -> Descendant -> Relationship
+	//Frozen, compact copies of the above (built by freeze(), which releases the above)
+	private ClosureIndex frozenAncestors;
+	private ClosureIndex frozenDescendants;
 	//Disjointness (direct only, no transitive closure)
-	private Table2Set<Integer,Integer> disjointMap; //Class -> Disjoint Classes
+	private IntTable2Set disjointMap; //Class -> Disjoint Classes
 	//List of high level classes
 	private HashSet<Integer> highLevelClasses;
 	
 	//Relationships between individuals and classes
-	private Table2Set<Integer,Integer> instanceOfMap; //Individual -> Class 
-	private Table2Set<Integer,Integer> hasInstanceMap; //Class -> Individual
+	private IntTable2Set instanceOfMap; //Individual -> Class 
+	private IntTable2Set hasInstanceMap; //Class -> Individual
 
 	//Relationships between individuals
 	private Table3Set<Integer,Integer,Integer> activeRelation; //Source Individual -> Target Individual -> Property
@@ -55,19 +64,19 @@ public class RelationshipMap
 
 	//Relationships between properties
 	//Hierarchical and inverse relations
-	private Table2Set<Integer,Integer> subProp; //Property -> SubProperty
-	private Table2Set<Integer,Integer> superProp; //Property -> SuperProperty
-	private Table2Set<Integer,Integer> inverseProp; //Property -> InverseProperty
+	private IntTable2Set subProp; //Property -> SubProperty
+	private IntTable2Set superProp; //Property -> SuperProperty
+	private IntTable2Set inverseProp; //Property -> InverseProperty
 	//Transitivity relations (transitive properties will be mapped to themselves)
-	private Table2Set<Integer,Integer> transitiveOver; //Property1 -> Property2 over which 1 is transitive
+	private IntTable2Set transitiveOver; //Property1 -> Property2 over which 1 is transitive
 	//List of symmetric properties
 	private HashSet<Integer> symmetric;
 	//List of functional properties
 	private HashSet<Integer> functional;
 	
 	//Property domains and ranges (property to class or to String)
-	private Table2Set<Integer,Integer> domain; //Property -> Class
-	private Table2Set<Integer,Integer> objectRange; //Property -> Class
+	private IntTable2Set domain; //Property -> Class
+	private IntTable2Set objectRange; //Property -> Class
 	private Table2Set<Integer,String> dataRange; //Property -> String
 	
 //Constructors
@@ -77,21 +86,21 @@ public class RelationshipMap
 	 */
 	public RelationshipMap()
 	{
-		descendantClasses = new Table3List<Integer,Integer,Relationship>();
-		ancestorClasses = new Table3List<Integer,Integer,Relationship>();
-		disjointMap = new Table2Set<Integer,Integer>();
-		instanceOfMap = new Table2Set<Integer,Integer>();
-		hasInstanceMap = new Table2Set<Integer,Integer>();
+		descendantClasses = new IntTable3List<Relationship>();
+		ancestorClasses = new IntTable3List<Relationship>();
+		disjointMap = new IntTable2Set();
+		instanceOfMap = new IntTable2Set();
+		hasInstanceMap = new IntTable2Set();
 		activeRelation = new Table3Set<Integer,Integer,Integer>();		
 		passiveRelation = new Table3Set<Integer,Integer,Integer>();		
-		subProp = new Table2Set<Integer,Integer>();
-		superProp = new Table2Set<Integer,Integer>();
-		inverseProp = new Table2Set<Integer,Integer>();
-		transitiveOver = new Table2Set<Integer,Integer>();
+		subProp = new IntTable2Set();
+		superProp = new IntTable2Set();
+		inverseProp = new IntTable2Set();
+		transitiveOver = new IntTable2Set();
 		symmetric = new HashSet<Integer>();
 		functional = new HashSet<Integer>();
-		domain = new Table2Set<Integer,Integer>();
-		objectRange = new Table2Set<Integer,Integer>();
+		domain = new IntTable2Set();
+		objectRange = new IntTable2Set();
 		dataRange = new Table2Set<Integer,String>();
 	}
 	
@@ -120,6 +129,7 @@ public class RelationshipMap
 	 */
 	public void addClassRelationship(int child, int parent, int distance, int prop, boolean rest)
 	{
+		checkNotFrozen();
 		//Create the relationship
 		Relationship r = new Relationship(distance,prop,rest);
 		//Then update the MultiMaps
@@ -320,6 +330,8 @@ public class RelationshipMap
 	 */
 	public boolean areRelatedClasses(int child, int parent)
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.contains(child,parent);
 		return descendantClasses.contains(parent,child);
 	}
 	
@@ -350,6 +362,22 @@ public class RelationshipMap
 		return disjointMap.size()/2;
 	}
 	
+	/**
+	 * Replaces the class hierarchy with a frozen, compact copy which is
+	 * used to answer subsequent queries without allocating objects
+	 * (should be called after the transitive closure, as no class
+	 * relationships can be added to a frozen RelationshipMap)
+	 */
+	public void freeze()
+	{
+		if(isFrozen())
+			return;
+		frozenAncestors = new ClosureIndex(ancestorClasses);
+		frozenDescendants = new ClosureIndex(descendantClasses);
+		ancestorClasses = null;
+		descendantClasses = null;
+	}
+	
 	/**
 	 * @param classId: the id of the class to search in the map
 	 * @return the list of all siblings of the given class
@@ -371,12 +399,26 @@ public class RelationshipMap
 		return siblings;
 	}
 	
+	/**
+	 * @return the frozen index of class ancestors, or a new index of the
+	 * current class ancestors if the RelationshipMap is not frozen (which
+	 * is not updated if class relationships are added afterwards)
+	 */
+	public ClosureIndex getAncestorIndex()
+	{
+		if(frozenAncestors != null)
+			return frozenAncestors;
+		return new ClosureIndex(ancestorClasses);
+	}
+	
 	/**
 	 * @param classId: the id of the class to search in the map
 	 * @return the list of ancestors of the given class
 	 */
 	public Set<Integer> getAncestors(int classId)
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.keySet(classId);
 		if(ancestorClasses.contains(classId))
 			return ancestorClasses.keySet(classId);
 		return new HashSet<Integer>();
@@ -390,6 +432,13 @@ public class RelationshipMap
 	public Set<Integer> getAncestors(int classId, int distance)
 	{
 		HashSet<Integer> asc = new HashSet<Integer>();
+		if(frozenAncestors != null)
+		{
+			for(int k = frozenAncestors.begin(classId); k < frozenAncestors.end(classId); k++)
+				if(frozenAncestors.getDistance(k) == distance)
+					asc.add(frozenAncestors.getRelated(k));
+			return asc;
+		}
 		if(!ancestorClasses.contains(classId))
 			return asc;
 		for(Integer i : ancestorClasses.keySet(classId))
@@ -407,6 +456,13 @@ public class RelationshipMap
 	public Set<Integer> getAncestorsProperty(int classId, int prop)
 	{
 		HashSet<Integer> asc = new HashSet<Integer>();
+		if(frozenAncestors != null)
+		{
+			for(int k = frozenAncestors.begin(classId); k < frozenAncestors.end(classId); k++)
+				if(frozenAncestors.getProperty(k) == prop)
+					asc.add(frozenAncestors.getRelated(k));
+			return asc;
+		}
 		if(!ancestorClasses.contains(classId))
 			return asc;
 		for(Integer i : ancestorClasses.keySet(classId))
@@ -426,6 +482,13 @@ public class RelationshipMap
 	public Set<Integer> getAncestors(int classId, int distance, int prop)
 	{
 		HashSet<Integer> asc = new HashSet<Integer>();
+		if(frozenAncestors != null)
+		{
+			for(int k = frozenAncestors.begin(classId); k < frozenAncestors.end(classId); k++)
+				if(frozenAncestors.getDistance(k) == distance && frozenAncestors.getProperty(k) == prop)
+					asc.add(frozenAncestors.getRelated(k));
+			return asc;
+		}
 		if(!ancestorClasses.contains(classId))
 			return asc;
 		for(Integer i : ancestorClasses.keySet(classId))
@@ -440,6 +503,8 @@ public class RelationshipMap
 	 */
 	public Set<Integer> getChildren()
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.keySet();
 		if(ancestorClasses != null)
 			return ancestorClasses.keySet();
 		return new HashSet<Integer>();
@@ -518,12 +583,26 @@ public class RelationshipMap
 		return new HashSet<String>();
 	}
 	
+	/**
+	 * @return the frozen index of class descendants, or a new index of the
+	 * current class descendants if the RelationshipMap is not frozen (which
+	 * is not updated if class relationships are added afterwards)
+	 */
+	public ClosureIndex getDescendantIndex()
+	{
+		if(frozenDescendants != null)
+			return frozenDescendants;
+		return new ClosureIndex(descendantClasses);
+	}
+	
 	/**
 	 * @param classId: the id of the class to search in the map
 	 * @return the list of descendants of the input class
 	 */
 	public Set<Integer> getDescendants(int classId)
 	{
+		if(frozenDescendants != null)
+			return frozenDescendants.keySet(classId);
 		if(descendantClasses.contains(classId))
 			return descendantClasses.keySet(classId);
 		return new HashSet<Integer>();
@@ -537,6 +616,13 @@ public class RelationshipMap
 	public Set<Integer> getDescendants(int classId, int distance)
 	{
 		HashSet<Integer> desc = new HashSet<Integer>();
+		if(frozenDescendants != null)
+		{
+			for(int k = frozenDescendants.begin(classId); k < frozenDescendants.end(classId); k++)
+				if(frozenDescendants.getDistance(k) == distance)
+					desc.add(frozenDescendants.getRelated(k));
+			return desc;
+		}
 		if(!descendantClasses.contains(classId))
 			return desc;
 		for(Integer i : descendantClasses.keySet(classId))
@@ -554,6 +640,13 @@ public class RelationshipMap
 	public Set<Integer> getDescendantsProperty(int classId, int prop)
 	{
 		HashSet<Integer> desc = new HashSet<Integer>();
+		if(frozenDescendants != null)
+		{
+			for(int k = frozenDescendants.begin(classId); k < frozenDescendants.end(classId); k++)
+				if(frozenDescendants.getProperty(k) == prop)
+					desc.add(frozenDescendants.getRelated(k));
+			return desc;
+		}
 		if(!descendantClasses.contains(classId))
 			return desc;
 		for(Integer i : descendantClasses.keySet(classId))
@@ -573,6 +666,13 @@ public class RelationshipMap
 	public Set<Integer> getDescendants(int classId, int distance, int prop)
 	{
 		HashSet<Integer> desc = new HashSet<Integer>();
+		if(frozenDescendants != null)
+		{
+			for(int k = frozenDescendants.begin(classId); k < frozenDescendants.end(classId); k++)
+				if(frozenDescendants.getDistance(k) == distance && frozenDescendants.getProperty(k) == prop)
+					desc.add(frozenDescendants.getRelated(k));
+			return desc;
+		}
 		if(!descendantClasses.contains(classId))
 			return desc;
 		for(Integer i : descendantClasses.keySet(classId))
@@ -629,9 +729,11 @@ public class RelationshipMap
 	{
 		if(child == parent)
 			return 0;
+		if(frozenAncestors != null)
+			return frozenAncestors.getDistance(child,parent);
 		if(!ancestorClasses.contains(child, parent))
 			return -1;
-		Vector<Relationship> rels = ancestorClasses.get(child,parent);
+		List<Relationship> rels = ancestorClasses.get(child,parent);
 		int distance = rels.get(0).getDistance();
 		for(Relationship r : rels)
 			if(r.getDistance() < distance)
@@ -699,7 +801,7 @@ public class RelationshipMap
 		//First get the very top classes
 		HashSet<Integer> sourceTop = new HashSet<Integer>();
 		HashSet<Integer> targetTop = new HashSet<Integer>();
-		Set<Integer> ancestors = descendantClasses.keySet();
+		Set<Integer> ancestors = getParents();
 		//Which are classes that have children but not parents
 		//NOTE: This may not work out well if the ontologies are not is_a complete
 		for(Integer a : ancestors)
@@ -832,6 +934,8 @@ public class RelationshipMap
 	 */
 	public Set<Integer> getParents()
 	{
+		if(frozenDescendants != null)
+			return frozenDescendants.keySet();
 		if(descendantClasses != null)
 			return descendantClasses.keySet();
 		return new HashSet<Integer>();
@@ -865,10 +969,11 @@ public class RelationshipMap
 	 */
 	public Relationship getRelationship(int child, int parent)
 	{
-		if(!ancestorClasses.contains(child, parent))
+		List<Relationship> rels = getRelationships(child,parent);
+		if(rels == null || rels.isEmpty())
 			return null;
-		Relationship rel = ancestorClasses.get(child).get(parent).get(0);
-		for(Relationship r : ancestorClasses.get(child).get(parent))
+		Relationship rel = rels.get(0);
+		for(Relationship r : rels)
 			if(r.compareTo(rel) > 0)
 				rel = r;
 		return rel;
@@ -879,8 +984,10 @@ public class RelationshipMap
 	 * @param parent: the id of the parent class to search in the map
 	 * @return the relationships between the two classes
 	 */
-	public Vector<Relationship> getRelationships(int child, int parent)
+	public List<Relationship> getRelationships(int child, int parent)
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.getRelationships(child,parent);
 		return ancestorClasses.get(child).get(parent);
 	}
 	
@@ -975,7 +1082,7 @@ public class RelationshipMap
 	/**
 	 * @return the table of transitive properties
 	 */
-	public Table2Set<Integer,Integer> getTransitiveProperties()
+	public IntTable2Set getTransitiveProperties()
 	{
 		return transitiveOver;
 	}
@@ -1027,7 +1134,9 @@ public class RelationshipMap
 	 */
 	public boolean hasProperty(int child, int parent, int property)
 	{
-		Vector<Relationship> rels = getRelationships(child,parent);
+		if(frozenAncestors != null)
+			return frozenAncestors.hasProperty(child,parent,property);
+		List<Relationship> rels = getRelationships(child,parent);
 		for(Relationship r : rels)
 			if(r.getProperty() == property)
 				return true;
@@ -1050,6 +1159,14 @@ public class RelationshipMap
 		return instanceOfMap.size();
 	}
 	
+	/**
+	 * @return whether the class hierarchy is frozen
+	 */
+	public boolean isFrozen()
+	{
+		return frozenAncestors != null;
+	}
+	
 	/**
 	 * @param prop: the index of the property to check
 	 * @return whether the property is functional
@@ -1066,9 +1183,11 @@ public class RelationshipMap
 	 */	
 	public boolean isSubclass(int child, int parent)
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.hasProperty(child,parent,-1);
 		if(!descendantClasses.contains(parent,child))
 			return false;
-		Vector<Relationship> rels = descendantClasses.get(parent,child);
+		List<Relationship> rels = descendantClasses.get(parent,child);
 		for(Relationship r : rels)
 			if(r.getProperty() == -1)
 				return true;
@@ -1089,6 +1208,8 @@ public class RelationshipMap
 	 */
 	public int relationshipCount()
 	{
+		if(frozenAncestors != null)
+			return frozenAncestors.size();
 		return ancestorClasses.size();
 	}
 	
@@ -1136,6 +1257,7 @@ public class RelationshipMap
 	 */
 	public void transitiveClosure()
 	{
+		checkNotFrozen();
 		//Transitive closure for class relations
 		Set<Integer> t = descendantClasses.keySet();
 		int lastCount = 0;
@@ -1149,14 +1271,14 @@ public class RelationshipMap
 				Set<Integer> pars = getAncestors(i,distance);
 				for(Integer j : pars)
 				{
-					Vector<Relationship> rel1 = getRelationships(i,j);
+					List<Relationship> rel1 = getRelationships(i,j);
 					for(int k = 0; k < rel1.size(); k++)
 					{
 						Relationship r1 = rel1.get(k);
 						int p1 = r1.getProperty();
 						for(Integer h : childs)
 						{
-							Vector<Relationship> rel2 = getRelationships(h,i);
+							List<Relationship> rel2 = getRelationships(h,i);
 							for(int l = 0; l < rel2.size(); l++)
 							{
 								Relationship r2 = rel2.get(l);
@@ -1207,4 +1329,162 @@ public class RelationshipMap
 					return true;
 		return false;
 	}
+	
+	/**
+	 * Reads the relationships written by write(DataOutputStream) into
+	 * this RelationshipMap, which must be empty
+	 * @param in: the stream from which to read the relationships
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		checkNotFrozen();
+		readRelationships(in, ancestorClasses);
+		readRelationships(in, descendantClasses);
+		OntologySnapshot.readTable(in, disjointMap);
+		OntologySnapshot.readTable(in, instanceOfMap);
+		OntologySnapshot.readTable(in, hasInstanceMap);
+		readRelations(in, activeRelation);
+		readRelations(in, passiveRelation);
+		OntologySnapshot.readTable(in, subProp);
+		OntologySnapshot.readTable(in, superProp);
+		OntologySnapshot.readTable(in, inverseProp);
+		OntologySnapshot.readTable(in, transitiveOver);
+		OntologySnapshot.readSet(in, symmetric);
+		OntologySnapshot.readSet(in, functional);
+		OntologySnapshot.readTable(in, domain);
+		OntologySnapshot.readTable(in, objectRange);
+		int props = in.readInt();
+		for(int i = 0; i < props; i++)
+		{
+			int prop = in.readInt();
+			int ranges = in.readInt();
+			for(int j = 0; j < ranges; j++)
+				dataRange.add(prop, OntologySnapshot.readString(in));
+		}
+	}
+	
+	/**
+	 * Writes the relationships in this RelationshipMap, in iteration order
+	 * (the high level classes are not written, as they are derived from
+	 * the relationships), which must not be frozen
+	 * @param out: the stream where to write the relationships
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		checkNotFrozen();
+		writeRelationships(out, ancestorClasses);
+		writeRelationships(out, descendantClasses);
+		OntologySnapshot.writeTable(out, disjointMap);
+		OntologySnapshot.writeTable(out, instanceOfMap);
+		OntologySnapshot.writeTable(out, hasInstanceMap);
+		writeRelations(out, activeRelation);
+		writeRelations(out, passiveRelation);
+		OntologySnapshot.writeTable(out, subProp);
+		OntologySnapshot.writeTable(out, superProp);
+		OntologySnapshot.writeTable(out, inverseProp);
+		OntologySnapshot.writeTable(out, transitiveOver);
+		OntologySnapshot.writeSet(out, symmetric);
+		OntologySnapshot.writeSet(out, functional);
+		OntologySnapshot.writeTable(out, domain);
+		OntologySnapshot.writeTable(out, objectRange);
+		out.writeInt(dataRange.keyCount());
+		for(Integer p : dataRange.keySet())
+		{
+			Set<String> ranges = dataRange.get(p);
+			out.writeInt(ranges.size());
+			for(String r : ranges)
+				OntologySnapshot.writeString(out, r);
+		}
+	}
+	
+//Private Methods
+	
+	//Checks that the class hierarchy can still be changed
+	private void checkNotFrozen()
+	{
+		if(isFrozen())
+			throw new IllegalStateException("The class hierarchy of the RelationshipMap is frozen");
+	}
+	
+	//Reads a table of relations between individuals written by writeRelations
+	private void readRelations(DataInputStream in, Table3Set<Integer,Integer,Integer> relations) throws IOException
+	{
+		int keys = in.readInt();
+		for(int i = 0; i < keys; i++)
+		{
+			int a = in.readInt();
+			int keysB = in.readInt();
+			for(int j = 0; j < keysB; j++)
+			{
+				int b = in.readInt();
+				int props = in.readInt();
+				for(int k = 0; k < props; k++)
+					relations.add(a, b, in.readInt());
+			}
+		}
+	}
+	
+	//Reads a table of class relationships written by writeRelationships
+	private void readRelationships(DataInputStream in, IntTable3List<Relationship> relationships) throws IOException
+	{
+		int keys = in.readInt();
+		for(int i = 0; i < keys; i++)
+		{
+			int a = in.readInt();
+			int keysB = in.readInt();
+			for(int j = 0; j < keysB; j++)
+			{
+				int b = in.readInt();
+				int rels = in.readInt();
+				for(int k = 0; k < rels; k++)
+					relationships.add(a, b, new Relationship(in.readInt(), in.readInt(), in.readBoolean()));
+			}
+		}
+	}
+	
+	//Writes a table of relations between individuals in iteration order
+	private void writeRelations(DataOutputStream out, Table3Set<Integer,Integer,Integer> relations) throws IOException
+	{
+		out.writeInt(relations.keyCount());
+		for(Integer a : relations.keySet())
+		{
+			Table2Set<Integer,Integer> mapsA = relations.get(a);
+			out.writeInt(a);
+			out.writeInt(mapsA.keyCount());
+			for(Integer b : mapsA.keySet())
+			{
+				Set<Integer> props = mapsA.get(b);
+				out.writeInt(b);
+				out.writeInt(props.size());
+				for(Integer p : props)
+					out.writeInt(p);
+			}
+		}
+	}
+	
+	//Writes a table of class relationships in iteration order
+	private void writeRelationships(DataOutputStream out, IntTable3List<Relationship> relationships) throws IOException
+	{
+		out.writeInt(relationships.keyCount());
+		for(int a : relationships.keySet())
+		{
+			IntTable2List<Relationship> mapsA = relationships.get(a);
+			out.writeInt(a);
+			out.writeInt(mapsA.keyCount());
+			for(int b : mapsA.keySet())
+			{
+				List<Relationship> rels = mapsA.get(b);
+				out.writeInt(b);
+				out.writeInt(rels.size());
+				for(Relationship r : rels)
+				{
+					out.writeInt(r.getDistance());
+					out.writeInt(r.getProperty());
+					out.writeBoolean(r.getRestriction());
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
@@ -19,7 +19,14 @@
 ******************************************************************************/
 package aml.ontology;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import aml.settings.EntityType;
@@ -33,11 +40,15 @@ public class URIMap
 
 //Attributes
 	
-	//The numeric index (Integer) <-> URI (String) maps of ontology entities 
-	private HashMap<Integer,String> indexURI;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final EntityType[] TYPES = EntityType.values();
+	//As indexes are sequential (starting at 1), the URIs, local names and
+	//EntityType ordinals of ontology entities are stored in arrays by index
+	private String[] indexURI;
+	private String[] localNames;
+	private byte[] indexType;
+	//The URI (String) -> numeric index (Integer) map of ontology entities 
 	private HashMap<String,Integer> URIindex;
-	//The numeric index (Integer) -> EntityType map of ontology entities 
-	private HashMap<Integer,EntityType> indexType;
 	//The total number of stored URIs
 	private int size;
 	
@@ -45,9 +56,10 @@ public class URIMap
 	
 	public URIMap()
 	{
-		indexURI = new HashMap<Integer,String>();
+		indexURI = new String[INITIAL_CAPACITY];
+		localNames = new String[INITIAL_CAPACITY];
+		indexType = new byte[INITIAL_CAPACITY];
 		URIindex = new HashMap<String,Integer>();
-		indexType = new HashMap<Integer,EntityType>();
 		size = 0;
 	}
 	
@@ -59,23 +71,24 @@ public class URIMap
 	 */
 	public int addURI(String uri, EntityType t)
 	{
-		String newUri = uri;
-		if(URIindex.containsKey(newUri))
+		Integer index = URIindex.get(uri);
+		if(index != null)
 		{
-			int index = URIindex.get(newUri);
-			if(!indexType.get(index).equals(t))
-				indexType.put(index,t);
+			indexType[index] = (byte)t.ordinal();
 			return index;
 		}
-		else
+		size++;
+		if(size == indexURI.length)
 		{
-			size++;
-			Integer i = new Integer(size);
-			indexURI.put(i,newUri);
-			URIindex.put(newUri,i);
-			indexType.put(i, t);
-			return size;
+			int capacity = indexURI.length * 2;
+			indexURI = Arrays.copyOf(indexURI, capacity);
+			localNames = Arrays.copyOf(localNames, capacity);
+			indexType = Arrays.copyOf(indexType, capacity);
 		}
+		indexURI[size] = uri;
+		indexType[size] = (byte)t.ordinal();
+		URIindex.put(uri,size);
+		return size;
 	}
 	
 	/**
@@ -84,10 +97,10 @@ public class URIMap
 	 */
 	public int getIndex(String uri)
 	{
-		if(URIindex.containsKey(uri))
-			return URIindex.get(uri);
-		else
+		Integer index = URIindex.get(uri);
+		if(index == null)
 			return -1;
+		return index;
 	}
 	
 	/**
@@ -95,7 +108,7 @@ public class URIMap
 	 */
 	public Set<Integer> getIndexes()
 	{
-		return indexURI.keySet();
+		return new IndexSet();
 	}
 	
 	/**
@@ -104,13 +117,19 @@ public class URIMap
 	 */
 	public String getLocalName(int index)
 	{
-		String uri = indexURI.get(index);
-		if(uri == null)
+		if(!contains(index))
 			return null;
-		int i = uri.indexOf("#") + 1;
-		if(i == 0)
-			i = uri.lastIndexOf("/") + 1;
-		return uri.substring(i);
+		String name = localNames[index];
+		if(name == null)
+		{
+			String uri = indexURI[index];
+			int i = uri.indexOf("#") + 1;
+			if(i == 0)
+				i = uri.lastIndexOf("/") + 1;
+			name = uri.substring(i);
+			localNames[index] = name;
+		}
+		return name;
 	}
 
 	/**
@@ -119,7 +138,9 @@ public class URIMap
 	 */
 	public EntityType getType(int index)
 	{
-		return indexType.get(index);
+		if(!contains(index))
+			return null;
+		return TYPES[indexType[index]];
 	}
 	
 	/**
@@ -128,10 +149,9 @@ public class URIMap
 	 */
 	public String getURI(int index)
 	{
-		if(indexURI.containsKey(index))
-			return indexURI.get(index);
-		else
+		if(!contains(index))
 			return null;
+		return indexURI[index];
 	}
 	
 	/**
@@ -148,7 +168,7 @@ public class URIMap
 	 */
 	public boolean isClass(int index)
 	{
-		return indexType.get(index).equals(EntityType.CLASS);
+		return is(index, EntityType.CLASS);
 	}
 	
 	/**
@@ -157,7 +177,7 @@ public class URIMap
 	 */
 	public boolean isIndividual(int index)
 	{
-		return indexType.get(index).equals(EntityType.INDIVIDUAL);
+		return is(index, EntityType.INDIVIDUAL);
 	}	
 	
 	/**
@@ -166,9 +186,9 @@ public class URIMap
 	 */
 	public boolean isProperty(int index)
 	{
-		return indexType.get(index).equals(EntityType.ANNOTATION) ||
-				indexType.get(index).equals(EntityType.DATA) ||
-				indexType.get(index).equals(EntityType.OBJECT);
+		return is(index, EntityType.ANNOTATION) ||
+				is(index, EntityType.DATA) ||
+				is(index, EntityType.OBJECT);
 	}
 	
 	/**
@@ -176,6 +196,94 @@ public class URIMap
 	 */
 	public int size()
 	{
-		return indexURI.size();
+		return size;
+	}
+	
+	/**
+	 * Reads the URIs written by write(DataOutputStream) into this
+	 * URIMap, which must be empty, so that they keep their indexes
+	 * @param in: the stream from which to read the URIs
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		int count = in.readInt();
+		for(int i = 0; i < count; i++)
+		{
+			String uri = OntologySnapshot.readString(in);
+			addURI(uri, TYPES[in.readByte()]);
+		}
+	}
+	
+	/**
+	 * Writes the URIs in this URIMap, by index
+	 * @param out: the stream where to write the URIs
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(size);
+		for(int i = 1; i <= size; i++)
+		{
+			OntologySnapshot.writeString(out, indexURI[i]);
+			out.writeByte(indexType[i]);
+		}
+	}
+	
+//Private Methods
+	
+	private boolean contains(int index)
+	{
+		return index > 0 && index <= size;
+	}
+	
+	private boolean is(int index, EntityType t)
+	{
+		return contains(index) && indexType[index] == t.ordinal();
+	}
+	
+	//A view of the indexes in the URIMap, which are the integers from 1 to size
+	private class IndexSet extends AbstractSet<Integer>
+	{
+		@Override
+		public boolean contains(Object o)
+		{
+			return o instanceof Integer && URIMap.this.contains((Integer)o);
+		}
+		
+		@Override
+		public Iterator<Integer> iterator()
+		{
+			return new Iterator<Integer>()
+			{
+				private int next = 1;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return next <= size;
+				}
+				
+				@Override
+				public Integer next()
+				{
+					if(next > size)
+						throw new NoSuchElementException();
+					return next++;
+				}
+				
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
 	}
 }
\ No newline at end of file
@@ -20,9 +20,13 @@
 
 package aml.ontology;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+import aml.util.Table2Set;
 import aml.util.Table3Set;
 
 public class ValueMap
@@ -130,4 +134,48 @@ public class ValueMap
 	{
 		return valueIndividuals.size();
 	}
+	
+	/**
+	 * Reads the entries written by write(DataOutputStream) into this ValueMap
+	 * @param in: the stream from which to read the entries
+	 * @throws IOException if unable to read the stream
+	 */
+	void read(DataInputStream in) throws IOException
+	{
+		int indivs = in.readInt();
+		for(int i = 0; i < indivs; i++)
+		{
+			int indivId = in.readInt();
+			int props = in.readInt();
+			for(int j = 0; j < props; j++)
+			{
+				int propId = in.readInt();
+				int values = in.readInt();
+				for(int k = 0; k < values; k++)
+					add(indivId, propId, OntologySnapshot.readString(in));
+			}
+		}
+	}
+	
+	/**
+	 * Writes the entries in this ValueMap, in iteration order
+	 * @param out: the stream where to write the entries
+	 * @throws IOException if unable to write to the stream
+	 */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(valueIndividuals.keyCount());
+		for(Integer i : valueIndividuals.keySet())
+		{
+			Table2Set<Integer,String> props = valueIndividuals.get(i);
+			out.writeInt(props.keyCount());
+			for(Integer p : props.keySet())
+			{
+				Set<String> values = props.get(p);
+				out.writeInt(values.size());
+				for(String v : values)
+					OntologySnapshot.writeString(out, v);
+			}
+		}
+	}
 }
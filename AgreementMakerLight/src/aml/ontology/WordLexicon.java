@@ -19,13 +19,24 @@
 ******************************************************************************/
 package aml.ontology;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
+import aml.AML;
+import aml.ontology.NameDictionary.WordScope;
 import aml.settings.EntityType;
 import aml.settings.LexicalType;
 import aml.util.StopList;
+import aml.util.StringParser;
 import aml.util.Table2Set;
 import aml.util.Table2Map;
 
@@ -35,9 +46,13 @@ public class WordLexicon
 //Attributes
 
 	//The maximum size of class blocks
-	private final int MAX_BLOCK_SIZE = 10000;
+	private static final int MAX_BLOCK_SIZE = 10000;
+	//The version of the WordLexicon file format
+	private static final int FORMAT = 2;
 	//A link to the original Lexicon
 	private Lexicon lex;
+	//The version of the Lexicon when this WordLexicon was built
+	private int version;
 	//The list of stop words to ignore when building this WordLexicon
 	private Set<String> stopSet;
 	//The EntityType and language to use when building this WordLexicon
@@ -89,6 +104,64 @@ public class WordLexicon
 		init();
 	}
 	
+	//Reads a WordLexicon saved by save(), with the entities identified
+	//by their URIs so that it doesn't depend on their indexes
+	@SuppressWarnings({"unchecked","rawtypes"})
+	private WordLexicon(Lexicon l, EntityType e, String lang, DataInputStream in) throws IOException
+	{
+		lex = l;
+		type = e;
+		language = lang;
+		version = lex.getVersion();
+		URIMap uris = AML.getInstance().getURIMap();
+		//The entities with their ECs and their words with weights
+		int[] ids = new int[in.readInt()];
+		entityWords = new Table2Map<Integer,String,Double>();
+		entitiesECs = new HashMap<Integer,Double>();
+		for(int i = 0; i < ids.length; i++)
+		{
+			String uri = OntologySnapshot.readString(in);
+			ids[i] = uris.getIndex(uri);
+			if(ids[i] == -1)
+				throw new IOException("Unknown entity " + uri);
+			entitiesECs.put(ids[i], in.readDouble());
+			int words = in.readInt();
+			for(int j = 0; j < words; j++)
+				entityWords.add(ids[i], OntologySnapshot.readString(in), in.readDouble());
+		}
+		//The word ECs
+		int words = in.readInt();
+		wordECs = new HashMap<String,Double>();
+		for(int i = 0; i < words; i++)
+			wordECs.put(OntologySnapshot.readString(in), in.readDouble());
+		//The blocks of words to entities
+		wordEntities = new Table2Set[in.readInt()];
+		for(int i = 0; i < wordEntities.length; i++)
+		{
+			wordEntities[i] = new Table2Set<String,Integer>();
+			words = in.readInt();
+			for(int j = 0; j < words; j++)
+			{
+				String w = OntologySnapshot.readString(in);
+				int entities = in.readInt();
+				for(int k = 0; k < entities; k++)
+					wordEntities[i].add(w, ids[in.readInt()]);
+			}
+		}
+		//The names with their ECs and words
+		int names = in.readInt();
+		nameWords = new Table2Set<String,String>();
+		nameECs = new HashMap<String,Double>();
+		for(int i = 0; i < names; i++)
+		{
+			String n = OntologySnapshot.readString(in);
+			nameECs.put(n, in.readDouble());
+			words = in.readInt();
+			for(int j = 0; j < words; j++)
+				nameWords.add(n, OntologySnapshot.readString(in));
+		}
+	}
+	
 //Public Methods
 
 	/**
@@ -137,6 +210,55 @@ public class WordLexicon
 		return -1.0;
 	}
 	
+	/**
+	 * Loads a WordLexicon from a file written by save(), provided that it was
+	 * built from the same Lexicon entries and with the same StopList
+	 * @param file: the file from which to load the WordLexicon
+	 * @param l: the Lexicon from which the WordLexicon is derived
+	 * @param e: the EntityType of the WordLexicon
+	 * @param lang: the language of the WordLexicon
+	 * @return the WordLexicon in the file, or null if the file doesn't
+	 * exist, doesn't match the Lexicon or can't be read
+	 */
+	public static WordLexicon load(File file, Lexicon l, EntityType e, String lang)
+	{
+		if(!file.exists())
+			return null;
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if(in.readInt() != FORMAT || !OntologySnapshot.readString(in).equals(e.name()) ||
+					!OntologySnapshot.readString(in).equals(lang) || in.readLong() != fingerprint(l,e))
+				return null;
+			return new WordLexicon(l,e,lang,in);
+		}
+		catch(IOException x)
+		{
+			System.out.println("Unable to read WordLexicon from " + file + ": " + x.getMessage());
+			return null;
+		}
+		catch(RuntimeException x)
+		{
+			//A corrupt or foreign file can have invalid sizes or positions,
+			//in which case the WordLexicon is rebuilt rather than failing
+			System.out.println("Invalid WordLexicon in " + file + ": " + x);
+			return null;
+		}
+		finally
+		{
+			try
+			{
+				if(in != null)
+					in.close();
+			}
+			catch(IOException x)
+			{
+				//Nothing to do
+			}
+		}
+	}
+	
 	/**
 	 * @return the set of names in the WordLexicon
 	 */
@@ -226,13 +348,110 @@ public class WordLexicon
 		return entityWords.get(classId, word);
 	}
 	
+	/**
+	 * @return whether the Lexicon from which this WordLexicon was
+	 * derived is unchanged since it was built
+	 */
+	public boolean isUpToDate()
+	{
+		return lex.getVersion() == version;
+	}
+	
+	/**
+	 * Saves this WordLexicon to a file, so that it can be loaded by
+	 * later runs on the same Ontology instead of being rebuilt
+	 * @param file: the file where to save the WordLexicon
+	 * @throws IOException if unable to write the file
+	 */
+	public void save(File file) throws IOException
+	{
+		if(file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		URIMap uris = AML.getInstance().getURIMap();
+		//Write to a temporary file first, so that an incomplete
+		//WordLexicon is never read
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		boolean written = false;
+		try
+		{
+			out.writeInt(FORMAT);
+			OntologySnapshot.writeString(out, type.name());
+			OntologySnapshot.writeString(out, language);
+			out.writeLong(fingerprint(lex,type));
+			//All tables are written in iteration order, so that they
+			//iterate in the same order when they are read
+			HashMap<Integer,Integer> positions = new HashMap<Integer,Integer>();
+			out.writeInt(entityWords.keyCount());
+			for(Integer i : entityWords.keySet())
+			{
+				positions.put(i, positions.size());
+				OntologySnapshot.writeString(out, uris.getURI(i));
+				out.writeDouble(entitiesECs.get(i));
+				out.writeInt(entityWords.entryCount(i));
+				for(String w : entityWords.keySet(i))
+				{
+					OntologySnapshot.writeString(out, w);
+					out.writeDouble(entityWords.get(i, w));
+				}
+			}
+			out.writeInt(wordECs.size());
+			for(String w : wordECs.keySet())
+			{
+				OntologySnapshot.writeString(out, w);
+				out.writeDouble(wordECs.get(w));
+			}
+			out.writeInt(wordEntities.length);
+			for(Table2Set<String,Integer> block : wordEntities)
+			{
+				out.writeInt(block.keyCount());
+				for(String w : block.keySet())
+				{
+					OntologySnapshot.writeString(out, w);
+					out.writeInt(block.entryCount(w));
+					for(Integer i : block.get(w))
+						out.writeInt(positions.get(i));
+				}
+			}
+			out.writeInt(nameWords.keyCount());
+			for(String n : nameWords.keySet())
+			{
+				OntologySnapshot.writeString(out, n);
+				out.writeDouble(nameECs.get(n));
+				out.writeInt(nameWords.entryCount(n));
+				for(String w : nameWords.get(n))
+					OntologySnapshot.writeString(out, w);
+			}
+			written = true;
+		}
+		finally
+		{
+			out.close();
+			if(!written)
+				temp.delete();
+		}
+		file.delete();
+		if(!temp.renameTo(file))
+			throw new IOException("unable to rename " + temp);
+	}
+	
 //Private methods
 	
+	//Identifies the inputs of a WordLexicon (the Lexicon entries, the StopList
+	//and the block size) so that a saved WordLexicon isn't used if they change
+	private static long fingerprint(Lexicon l, EntityType e)
+	{
+		long fingerprint = l.getFingerprint(e);
+		fingerprint = 31 * fingerprint + StopList.read().hashCode();
+		return 31 * fingerprint + MAX_BLOCK_SIZE;
+	}
+	
 	//Builds the WordLexicon from the original Lexicon
 	@SuppressWarnings("unchecked")
 	private void init()
 	{
 		//Initialize the data structures
+		version = lex.getVersion();
 		stopSet = StopList.read();
 		int size = (int)Math.ceil(1.0*lex.entityCount(type)/MAX_BLOCK_SIZE);
 		wordEntities = new Table2Set[size];
@@ -292,11 +511,11 @@ public class WordLexicon
 	//Adds all words for a given name and classId
 	private void addWords(String name, int classId)
 	{
-		String[] words = name.split(" ");
-		for(String w : words)
+		WordScope words = AML.getInstance().getNameDictionary().newWordScope();
+		for(int i : words.getWords(name))
 		{
-			String word = w.replaceAll("[()]", "");
-			if(stopSet.contains(word) || word.length() < 2 || !word.matches(".*[a-zA-Z].*"))
+			String word = removeBrackets(words.getWord(i));
+			if(stopSet.contains(word) || word.length() < 2 || !StringParser.containsLetter(word))
 				continue;
 			//Get the current block number (as determined by the number of classes already loaded)
 			int block = entityWords.keySet().size()/MAX_BLOCK_SIZE;
@@ -323,4 +542,16 @@ public class WordLexicon
 			total++;
 		}
 	}
+	
+	//Removes the brackets from a word
+	private static String removeBrackets(String w)
+	{
+		if(w.indexOf('(') == -1 && w.indexOf(')') == -1)
+			return w;
+		StringBuilder word = new StringBuilder(w.length());
+		for(int i = 0; i < w.length(); i++)
+			if(w.charAt(i) != '(' && w.charAt(i) != ')')
+				word.append(w.charAt(i));
+		return word.toString();
+	}
 }
\ No newline at end of file
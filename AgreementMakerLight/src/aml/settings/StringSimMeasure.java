@@ -18,6 +18,9 @@
 ******************************************************************************/
 package aml.settings;
 
+import aml.util.StringSimilarityMeasure;
+import aml.util.StringSimilarityMeasures;
+
 public enum StringSimMeasure
 {
 	ISUB ("ISub"),
@@ -40,6 +43,14 @@ public enum StringSimMeasure
 		return null;
 	}
 	
+	/**
+	 * @return the implementation of this measure
+	 */
+	public StringSimilarityMeasure getMeasure()
+	{
+		return StringSimilarityMeasures.get(label);
+	}
+	
     public String toString()
     {
     	return label;
@@ -245,6 +245,9 @@ public class AddClassMapping extends JDialog implements ActionListener
 			{
 				aml.getAlignment().add(sourceId,targetId,1.0,
 						MappingRelation.parseRelation((String)rels.getSelectedItem()));
+				//Update the RepairMap (if any) with the new mapping
+				if(aml.getRepairMap() != null)
+					aml.getRepairMap().addMapping(aml.getAlignment().get(sourceId,targetId));
 				aml.needSave(true);
 				aml.refreshGUI();
 				this.dispose();
@@ -0,0 +1,107 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The Levenshtein String similarity measure: one minus the edit distance      *
+* divided by the length of the longest String. Computes the same (float)      *
+* values as the simmetrics implementation, but with two reusable rows instead *
+* of the full distance matrix.                                                *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+public class EditMeasure implements StringSimilarityMeasure
+{
+
+//Attributes
+	
+	//Per-thread rows of the distance matrix
+	private final ThreadLocal<int[][]> rows = new ThreadLocal<int[][]>()
+	{
+		@Override
+		protected int[][] initialValue()
+		{
+			return new int[2][64];
+		}
+	};
+	
+//Public Methods
+	
+	@Override
+	public String getName()
+	{
+		return "Levenstein";
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2)
+	{
+		return getSimilarity(s1, s2, 0);
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2, double min)
+	{
+		int l1 = s1.length(), l2 = s2.length();
+		int maxLen = Math.max(l1, l2);
+		if(maxLen == 0)
+			return 1;
+		//The distance is at least the length difference
+		if(similarity(maxLen - Math.min(l1, l2), maxLen) < min)
+			return 0;
+		int[][] r = rows.get();
+		if(r[0].length <= l2)
+		{
+			r = new int[2][Math.max(l2 + 1, 2 * r[0].length)];
+			rows.set(r);
+		}
+		int[] previous = r[0];
+		int[] current = r[1];
+		for(int j = 0; j <= l2; j++)
+			previous[j] = j;
+		for(int i = 1; i <= l1; i++)
+		{
+			char c = s1.charAt(i - 1);
+			current[0] = i;
+			int rowMin = i;
+			for(int j = 1; j <= l2; j++)
+			{
+				int d = Math.min(previous[j], current[j - 1]) + 1;
+				int sub = previous[j - 1] + (c == s2.charAt(j - 1) ? 0 : 1);
+				if(sub < d)
+					d = sub;
+				current[j] = d;
+				if(d < rowMin)
+					rowMin = d;
+			}
+			//The final distance is at least the minimum of any row
+			if(similarity(rowMin, maxLen) < min)
+				return 0;
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		double sim = similarity(previous[l2], maxLen);
+		if(sim < min)
+			return 0;
+		return sim;
+	}
+	
+//Private Methods
+	
+	private static float similarity(int distance, int maxLen)
+	{
+		return 1.0f - ((float)distance / (float)maxLen);
+	}
+}
@@ -23,6 +23,22 @@ package aml.util;
 
 public class ISub
 {
+
+//Attributes
+
+	//Per-thread scratch copies of the two strings, which are shortened in
+	//place as common substrings are removed
+	private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>()
+	{
+		@Override
+		protected Scratch initialValue()
+		{
+			return new Scratch();
+		}
+	};
+	//Margin for the early-exit bound, so that rounding never discards
+	//a pair whose exact similarity reaches the threshold
+	private static final double MARGIN = 1e-9;
 	
 //Constructors
 	
@@ -38,20 +54,39 @@ public class ISub
 	 */
 	public static double stringSimilarity(String st1, String st2)
 	{
-		String s1 = st1, s2 = st2;
-		if(s1 == null || s2 == null)
+		return stringSimilarity(st1, st2, 0);
+	}
+	
+	/**
+	 * Computes the similarity between two Strings, giving up as soon as
+	 * it can no longer reach the given threshold
+	 * @param st1: the first string to compare
+	 * @param st2: the second string to compare
+	 * @param thresh: the minimum similarity of interest
+	 * @return the ISub similarity between st1 and st2 if it is at least
+	 * thresh, or 0 if it is below thresh
+	 */
+	public static double stringSimilarity(String st1, String st2, double thresh)
+	{
+		if(st1 == null || st2 == null)
 			return 0;
-		int L1 = s1.length(), L2 = s2.length();
+		int L1 = st1.length(), L2 = st2.length();
 		if(L1 == 0 || L2 == 0)
 			return 0;
-		int l1, l2;
+		int prefix = commonPrefix(st1, st2);
+		//The similarity grows with the length of the common substrings,
+		//so it is bounded by assuming all remaining characters will match
+		if(thresh > 0 && similarity(Math.min(L1, L2), L1, L2, prefix) + MARGIN < thresh)
+			return 0;
+		Scratch sc = SCRATCH.get();
+		char[] s1 = sc.first(st1);
+		char[] s2 = sc.second(st2);
+		int l1 = L1, l2 = L2;
 		double common = 0;
 		int best = 2;
-		while (s1.length() > 0 && s2.length() > 0 && best != 0)
+		while (l1 > 0 && l2 > 0 && best != 0)
 		{
 			best = 0;
-			l1 = s1.length();
-			l2 = s2.length();
 			int i = 0, j = 0;
 			int startS1 = 0, endS1 = 0;
 			int startS2 = 0, endS2 = 0;
@@ -62,12 +97,12 @@ public class ISub
 				while (l2 - j > best)
 				{
 					int k = i;
-					while(j < l2 && s1.charAt(k) != s2.charAt(j))
+					while(j < l2 && s1[k] != s2[j])
 						j++;
 					if(j != l2)
 					{
 						p = j;
-						for(j++, k ++; (j < l2) && (k < l1) && (s1.charAt(k) == s2.charAt(j)); j++, k++);
+						for(j++, k ++; (j < l2) && (k < l1) && (s1[k] == s2[j]); j++, k++);
 						if(k - i > best)
 						{
 							best = k - i;
@@ -79,33 +114,45 @@ public class ISub
 					}
 				}
 			}
-			char[] newString = new char[s1.length() - (endS1 - startS1)];
-			j = 0;
-			for(i = 0; i < s1.length(); i++)
-			{
-				if(i >= startS1 && i < endS1)
-					continue;
-				newString[j++] = s1.charAt(i);
-			}
-			s1 = new String(newString);
-			newString = new char[s2.length() - (endS2 - startS2)];
-			j = 0;
-			for(i = 0; i < s2.length(); i++)
-			{
-				if(i >= startS2 && i < endS2)
-					continue;
-				newString[j++] = s2.charAt(i);
-			}
-			s2 = new String(newString);
+			System.arraycopy(s1, endS1, s1, startS1, l1 - endS1);
+			l1 -= endS1 - startS1;
+			System.arraycopy(s2, endS2, s2, startS2, l2 - endS2);
+			l2 -= endS2 - startS2;
 			if(best > 2)
+			{
 				common += best;
+				if(thresh > 0 && similarity(common + Math.min(l1, l2), L1, L2, prefix) + MARGIN < thresh)
+					return 0;
+			}
 			else
 				best = 0;
 		}
+		double result = similarity(common, L1, L2, prefix);
+		if(thresh > 0 && result < thresh)
+			return 0;
+		return result;
+	}
+
+//Private Methods
+	
+	//Length of the common prefix of two Strings
+	private static int commonPrefix(String s1, String s2)
+	{
+		int i, n = Math.min(s1.length(), s2.length());
+		for(i = 0; i < n; i++)
+			if(s1.charAt(i) != s2.charAt(i))
+				break;
+		return i;
+	}
+	
+	//ISub similarity of two Strings of lengths L1 and L2 with the given
+	//number of characters in common substrings and common prefix length
+	private static double similarity(double common, int L1, int L2, int prefix)
+	{
 		double commonality = 0;
 		double scaledCommon = (double) (2 * common) / (L1 + L2);
 		commonality = scaledCommon;
-		double winklerImprovement = winklerImprovement(st1, st2, commonality);
+		double winklerImprovement = winklerImprovement(prefix, commonality);
 		double dissimilarity = 0;
 		double rest1 = L1 - common;
 		double rest2 = L2 - common;
@@ -125,17 +172,34 @@ public class ISub
 			result = 0;
 		return result;
 	}
-
-//Private Methods
 	
-	private static double winklerImprovement(String s1, String s2, double commonality)
+	private static double winklerImprovement(int prefix, double commonality)
 	{
-		int i, n = Math.min(s1.length(), s2.length());
-		for(i = 0; i < n; i++)
-			if(s1.charAt(i) != s2.charAt(i))
-				break;
-		double commonPrefixLength = Math.min(4, i);
+		double commonPrefixLength = Math.min(4, prefix);
 		double winkler = commonPrefixLength * 0.1 * (1 - commonality);
 		return winkler;
 	}
+	
+	//Reusable character buffers for one thread
+	private static class Scratch
+	{
+		private char[] s1 = new char[64];
+		private char[] s2 = new char[64];
+		
+		private char[] first(String s)
+		{
+			if(s1.length < s.length())
+				s1 = new char[Math.max(s.length(), 2 * s1.length)];
+			s.getChars(0, s.length(), s1, 0);
+			return s1;
+		}
+		
+		private char[] second(String s)
+		{
+			if(s2.length < s.length())
+				s2 = new char[Math.max(s.length(), 2 * s2.length)];
+			s.getChars(0, s.length(), s2, 0);
+			return s2;
+		}
+	}
 }
\ No newline at end of file
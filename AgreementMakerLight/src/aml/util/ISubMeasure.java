@@ -0,0 +1,43 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The ISub String similarity measure.                                         *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+public class ISubMeasure implements StringSimilarityMeasure
+{
+	
+//Public Methods
+	
+	@Override
+	public String getName()
+	{
+		return "ISub";
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2)
+	{
+		return ISub.stringSimilarity(s1, s2);
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2, double min)
+	{
+		return ISub.stringSimilarity(s1, s2, min);
+	}
+}
@@ -0,0 +1,314 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A map from primitive ints to Objects, implemented as an open addressing     *
+* hash table with linear probing. Its keys are stored unboxed, and its key    *
+* set is a live view with the same semantics as that of a HashMap.            *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class IntMap<V>
+{
+
+//Attributes
+	
+	//Slot states
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+	private static final int MIN_CAPACITY = 4;
+	private static final float LOAD_FACTOR = 0.75f;
+	
+	private int[] keys;
+	private Object[] values;
+	private byte[] states;
+	//The number of entries in the map
+	private int size;
+	//The number of non-free slots (entries plus removed markers)
+	private int used;
+	private int modCount;
+	
+//Constructors
+
+	/**
+	 * Constructs a new empty IntMap
+	 */
+	public IntMap()
+	{
+		this(MIN_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new empty IntMap with room for the given
+	 * number of entries
+	 * @param expected: the expected number of entries
+	 */
+	public IntMap(int expected)
+	{
+		int capacity = capacityFor(expected);
+		keys = new int[capacity];
+		values = new Object[capacity];
+		states = new byte[capacity];
+		size = 0;
+		used = 0;
+	}
+	
+//Public Methods
+	
+	/**
+	 * Removes all entries from the map
+	 */
+	public void clear()
+	{
+		keys = new int[MIN_CAPACITY];
+		values = new Object[MIN_CAPACITY];
+		states = new byte[MIN_CAPACITY];
+		size = 0;
+		used = 0;
+		modCount++;
+	}
+	
+	/**
+	 * @param k: the key to search in the map
+	 * @return whether the map contains an entry for k
+	 */
+	public boolean containsKey(int k)
+	{
+		return indexOf(k) > -1;
+	}
+	
+	/**
+	 * @param k: the key to search in the map
+	 * @return the value for k or null if there is no entry for k
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int k)
+	{
+		int i = indexOf(k);
+		if(i == -1)
+			return null;
+		return (V)values[i];
+	}
+	
+	/**
+	 * @return the live set of keys in the map
+	 */
+	public Set<Integer> keySet()
+	{
+		return new KeySet();
+	}
+	
+	/**
+	 * Sets the value for the given key, replacing the
+	 * previous value if there is one
+	 * @param k: the key to add to the map
+	 * @param v: the value for the key
+	 * @return the previous value for k or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int k, V v)
+	{
+		int mask = keys.length - 1;
+		int firstRemoved = -1;
+		for(int i = IntSet.hash(k) & mask; ; i = (i + 1) & mask)
+		{
+			if(states[i] == FREE)
+			{
+				if(firstRemoved > -1)
+					i = firstRemoved;
+				else
+					used++;
+				keys[i] = k;
+				values[i] = v;
+				states[i] = FULL;
+				size++;
+				modCount++;
+				if(used > keys.length * LOAD_FACTOR)
+					rehash(capacityFor(size));
+				return null;
+			}
+			if(states[i] == REMOVED)
+			{
+				if(firstRemoved == -1)
+					firstRemoved = i;
+			}
+			else if(keys[i] == k)
+			{
+				V old = (V)values[i];
+				values[i] = v;
+				return old;
+			}
+		}
+	}
+	
+	/**
+	 * Removes the entry for the given key
+	 * @param k: the key to remove from the map
+	 * @return the value for k or null if there was no entry for k
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int k)
+	{
+		int i = indexOf(k);
+		if(i == -1)
+			return null;
+		V old = (V)values[i];
+		removeAt(i);
+		modCount++;
+		return old;
+	}
+	
+	/**
+	 * @return the number of entries in the map
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+//Private Methods
+	
+	private static int capacityFor(int expected)
+	{
+		int capacity = MIN_CAPACITY;
+		while(capacity * LOAD_FACTOR < expected + 1)
+			capacity <<= 1;
+		return capacity;
+	}
+	
+	private int indexOf(int k)
+	{
+		int mask = keys.length - 1;
+		for(int i = IntSet.hash(k) & mask; states[i] != FREE; i = (i + 1) & mask)
+			if(states[i] == FULL && keys[i] == k)
+				return i;
+		return -1;
+	}
+	
+	private void rehash(int capacity)
+	{
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		byte[] oldStates = states;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		states = new byte[capacity];
+		int mask = capacity - 1;
+		for(int j = 0; j < oldKeys.length; j++)
+		{
+			if(oldStates[j] != FULL)
+				continue;
+			int i = IntSet.hash(oldKeys[j]) & mask;
+			while(states[i] != FREE)
+				i = (i + 1) & mask;
+			keys[i] = oldKeys[j];
+			values[i] = oldValues[j];
+			states[i] = FULL;
+		}
+		used = size;
+	}
+	
+	private void removeAt(int i)
+	{
+		values[i] = null;
+		states[i] = REMOVED;
+		size--;
+	}
+	
+	private class KeySet extends AbstractSet<Integer>
+	{
+		@Override
+		public boolean contains(Object o)
+		{
+			return o instanceof Integer && containsKey(((Integer)o).intValue());
+		}
+		
+		@Override
+		public Iterator<Integer> iterator()
+		{
+			return new KeyIterator();
+		}
+
+		@Override
+		public boolean remove(Object o)
+		{
+			if(!contains(o))
+				return false;
+			IntMap.this.remove(((Integer)o).intValue());
+			return true;
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+	}
+	
+	private class KeyIterator implements Iterator<Integer>
+	{
+		private int next = -1;
+		private int last = -1;
+		private int expectedModCount = modCount;
+		
+		public KeyIterator()
+		{
+			advance();
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return next < keys.length;
+		}
+
+		@Override
+		public Integer next()
+		{
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(next >= keys.length)
+				throw new NoSuchElementException();
+			last = next;
+			advance();
+			return keys[last];
+		}
+
+		@Override
+		public void remove()
+		{
+			if(last == -1)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			removeAt(last);
+			last = -1;
+		}
+		
+		private void advance()
+		{
+			do
+				next++;
+			while(next < keys.length && states[next] != FULL);
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A set of primitive ints, implemented as an open addressing hash table with  *
+* linear probing. Implements Set<Integer> so that it can be used in place of  *
+* a HashSet<Integer>, but stores its elements unboxed.                        *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class IntSet extends AbstractSet<Integer>
+{
+
+//Attributes
+	
+	//Slot states
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+	private static final int MIN_CAPACITY = 4;
+	private static final float LOAD_FACTOR = 0.75f;
+	
+	private int[] keys;
+	private byte[] states;
+	//The number of elements in the set
+	private int size;
+	//The number of non-free slots (elements plus removed markers)
+	private int used;
+	private int modCount;
+	
+//Constructors
+
+	/**
+	 * Constructs a new empty IntSet
+	 */
+	public IntSet()
+	{
+		this(MIN_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new empty IntSet with room for the given
+	 * number of elements
+	 * @param expected: the expected number of elements
+	 */
+	public IntSet(int expected)
+	{
+		int capacity = capacityFor(expected);
+		keys = new int[capacity];
+		states = new byte[capacity];
+		size = 0;
+		used = 0;
+	}
+	
+	/**
+	 * Constructs a new IntSet containing the elements of
+	 * the given Collection
+	 * @param c: the Collection to copy
+	 */
+	public IntSet(Collection<Integer> c)
+	{
+		this(c.size());
+		addAll(c);
+	}
+	
+//Public Methods
+	
+	/**
+	 * Adds the given int to the set
+	 * @param k: the int to add
+	 * @return whether the set changed
+	 */
+	public boolean add(int k)
+	{
+		int mask = keys.length - 1;
+		int firstRemoved = -1;
+		for(int i = hash(k) & mask; ; i = (i + 1) & mask)
+		{
+			if(states[i] == FREE)
+			{
+				if(firstRemoved > -1)
+					i = firstRemoved;
+				else
+					used++;
+				keys[i] = k;
+				states[i] = FULL;
+				size++;
+				modCount++;
+				if(used > keys.length * LOAD_FACTOR)
+					rehash(capacityFor(size));
+				return true;
+			}
+			if(states[i] == REMOVED)
+			{
+				if(firstRemoved == -1)
+					firstRemoved = i;
+			}
+			else if(keys[i] == k)
+				return false;
+		}
+	}
+
+	@Override
+	public boolean add(Integer k)
+	{
+		return add(k.intValue());
+	}
+	
+	@Override
+	public void clear()
+	{
+		if(size == 0 && used == 0)
+			return;
+		keys = new int[MIN_CAPACITY];
+		states = new byte[MIN_CAPACITY];
+		size = 0;
+		used = 0;
+		modCount++;
+	}
+	
+	/**
+	 * @param k: the int to search in the set
+	 * @return whether the set contains k
+	 */
+	public boolean contains(int k)
+	{
+		return indexOf(k) > -1;
+	}
+	
+	@Override
+	public boolean contains(Object o)
+	{
+		return o instanceof Integer && contains(((Integer)o).intValue());
+	}
+	
+	@Override
+	public Iterator<Integer> iterator()
+	{
+		return new IntSetIterator();
+	}
+	
+	/**
+	 * Removes the given int from the set
+	 * @param k: the int to remove
+	 * @return whether the set changed
+	 */
+	public boolean remove(int k)
+	{
+		int i = indexOf(k);
+		if(i == -1)
+			return false;
+		states[i] = REMOVED;
+		size--;
+		modCount++;
+		return true;
+	}
+	
+	@Override
+	public boolean remove(Object o)
+	{
+		return o instanceof Integer && remove(((Integer)o).intValue());
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return a new array with the elements of the set
+	 */
+	public int[] toIntArray()
+	{
+		int[] a = new int[size];
+		int j = 0;
+		for(int i = 0; i < keys.length; i++)
+			if(states[i] == FULL)
+				a[j++] = keys[i];
+		return a;
+	}
+	
+//Private Methods
+	
+	//Returns a power of two capacity that fits the given
+	//number of elements below the load factor
+	private static int capacityFor(int expected)
+	{
+		int capacity = MIN_CAPACITY;
+		while(capacity * LOAD_FACTOR < expected + 1)
+			capacity <<= 1;
+		return capacity;
+	}
+	
+	//Scrambles the bits of the key so that sequential ids
+	//are spread over the table
+	static int hash(int k)
+	{
+		int h = k * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	private int indexOf(int k)
+	{
+		int mask = keys.length - 1;
+		for(int i = hash(k) & mask; states[i] != FREE; i = (i + 1) & mask)
+			if(states[i] == FULL && keys[i] == k)
+				return i;
+		return -1;
+	}
+	
+	private void rehash(int capacity)
+	{
+		int[] oldKeys = keys;
+		byte[] oldStates = states;
+		keys = new int[capacity];
+		states = new byte[capacity];
+		int mask = capacity - 1;
+		for(int j = 0; j < oldKeys.length; j++)
+		{
+			if(oldStates[j] != FULL)
+				continue;
+			int i = hash(oldKeys[j]) & mask;
+			while(states[i] != FREE)
+				i = (i + 1) & mask;
+			keys[i] = oldKeys[j];
+			states[i] = FULL;
+		}
+		used = size;
+	}
+	
+	private class IntSetIterator implements Iterator<Integer>
+	{
+		private int next = -1;
+		private int last = -1;
+		private int expectedModCount = modCount;
+		
+		public IntSetIterator()
+		{
+			advance();
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return next < keys.length;
+		}
+
+		@Override
+		public Integer next()
+		{
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(next >= keys.length)
+				throw new NoSuchElementException();
+			last = next;
+			advance();
+			return keys[last];
+		}
+
+		@Override
+		public void remove()
+		{
+			if(last == -1)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			//Marking the slot as removed leaves the probe
+			//sequences and the iteration order intact
+			states[last] = REMOVED;
+			size--;
+			last = -1;
+		}
+		
+		private void advance()
+		{
+			do
+				next++;
+			while(next < keys.length && states[next] != FULL);
+		}
+	}
+}
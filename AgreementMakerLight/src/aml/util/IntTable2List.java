@@ -0,0 +1,220 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A table with two columns and primitive int keys, represented by an IntMap   *
+* of Lists. Keys with a single value (the most common case) are stored as     *
+* singleton lists, which are upgraded to Vectors when a second value is       *
+* added. Has the same API as a Table2List<Integer,B>.                         *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+public class IntTable2List<B extends Comparable<B>>
+{
+
+//Attributes
+	
+	private IntMap<List<B>> multimap;
+	private int size;
+	
+//Constructors
+
+	/**
+	 * Constructs a new empty Table
+	 */
+	public IntTable2List()
+	{
+		multimap = new IntMap<List<B>>();
+		size = 0;
+	}
+	
+	/**
+	 * Constructs a new Table that is a copy of
+	 * the given Table
+	 * @param m: the Table to copy
+	 */
+	public IntTable2List(IntTable2List<B> m)
+	{
+		multimap = new IntMap<List<B>>(m.keyCount());
+		size = m.size;
+		Set<Integer> keys = m.keySet();
+		for(int a : keys)
+		{
+			List<B> list = m.get(a);
+			if(list.size() == 1)
+				multimap.put(a, list);
+			else
+				multimap.put(a, new Vector<B>(list));
+		}
+	}
+
+//Public Methods
+	
+	/**
+	 * Adds the value for the given key to the Table, or
+	 * updates the value if an equal value already exists
+	 * and the new value is greater
+	 * @param key: the key to add to the Table
+	 * @param value: the value to add to the Table
+	 */
+	public void add(int key, B value)
+	{
+		List<B> list = multimap.get(key);
+		if(list == null)
+		{
+			multimap.put(key, Collections.singletonList(value));
+			size++;
+			return;
+		}
+		int index = list.indexOf(value);
+		if(index == -1)
+		{
+			if(list.size() == 1)
+			{
+				Vector<B> v = new Vector<B>(2,1);
+				v.add(list.get(0));
+				v.add(value);
+				multimap.put(key, v);
+			}
+			else
+				list.add(value);
+			size++;
+		}
+		else if(value.compareTo(list.get(index)) > 0)
+		{
+			if(list.size() == 1)
+				multimap.put(key, Collections.singletonList(value));
+			else
+			{
+				list.remove(index);
+				list.add(value);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the values for the given key to the Table
+	 * @param key: the key to add to the Table
+	 * @param values: the values to add to the Table
+	 */
+	public void addAll(int key, Collection<B> values)
+	{
+		for(B val : values)
+			add(key, val);
+	}
+
+	/**
+	 * @param key: the key to search in the Table
+	 * @return whether the Table contains the key
+	 */
+	public boolean contains(int key)
+	{
+		return multimap.containsKey(key);
+	}
+
+	/**
+	 * @param key: the key to search in the Table
+	 * @param value: the value to search in the Table
+	 * @return whether the Table contains an entry with the key and value
+	 */
+	public boolean contains(int key, B value)
+	{
+		List<B> list = multimap.get(key);
+		return list != null && list.contains(value);
+	}
+	
+	/**
+	 * @param key: the key to search in the Table
+	 * @return the number of entries with key
+	 */
+	public int entryCount(int key)
+	{
+		List<B> list = multimap.get(key);
+		if(list == null)
+			return 0;
+		return list.size();
+	}
+	
+	/**
+	 * @param key: the key to search in the Table
+	 * @return the list of all entries for key (unmodifiable if
+	 * there is only one entry)
+	 */
+	public List<B> get(int key)
+	{
+		return multimap.get(key);
+	}
+	
+	/**
+	 * @return the set of keys in the Table
+	 */
+	public Set<Integer> keySet()
+	{
+		return multimap.keySet();
+	}
+	
+	/**
+	 * @return the number of keys in the Table
+	 */
+	public int keyCount()
+	{
+		return multimap.size();
+	}
+	
+	/**
+	 * Removes all values for the given key
+	 * @param key: the key to remove from the Table
+	 */
+	public void remove(int key)
+	{
+		List<B> list = multimap.remove(key);
+		if(list != null)
+			size -= list.size();
+	}
+	
+	/**
+	 * Removes the given value for the given key
+	 * @param key: the key to search in the Table
+	 * @param value: the value to remove from the Table
+	 */
+	public void remove(int key, B value)
+	{
+		List<B> list = multimap.get(key);
+		if(list == null)
+			return;
+		int index = list.indexOf(value);
+		if(index == -1)
+			return;
+		if(list.size() == 1)
+			multimap.put(key, new Vector<B>(0,1));
+		else
+			list.remove(index);
+		size--;
+	}
+	
+	/**
+	 * @return the total number of entries in the Table
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,321 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A table with two columns and primitive int keys, represented by an IntMap   *
+* of IntMaps. Has the same API as a Table2Map<Integer,Integer,C>.             *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.Set;
+import java.util.Vector;
+
+public class IntTable2Map<C extends Comparable<C>>
+{
+
+//Attributes
+	
+	private IntMap<IntMap<C>> multimap;
+	private int size;
+	
+//Constructors
+
+	/**
+	 * Constructs a new empty Table
+	 */
+	public IntTable2Map()
+	{
+		multimap = new IntMap<IntMap<C>>();
+		size = 0;
+	}
+	
+	/**
+	 * Constructs a new Table that is a copy of
+	 * the given Table
+	 * @param m: the Table to copy
+	 */
+	public IntTable2Map(IntTable2Map<C> m)
+	{
+		multimap = new IntMap<IntMap<C>>(m.keyCount());
+		size = m.size;
+		Set<Integer> keys = m.keySet();
+		for(int a : keys)
+		{
+			IntMap<C> mapsA = m.get(a);
+			IntMap<C> copy = new IntMap<C>(mapsA.size());
+			for(int b : mapsA.keySet())
+				copy.put(b, mapsA.get(b));
+			multimap.put(a, copy);
+		}
+	}
+
+//Public Methods
+	
+	/**
+	 * Adds the value for the given keys to the Table,
+	 * replacing the previous value if there is one
+	 * @param keyA: the first level key to add to the Table
+	 * @param keyB: the second level key to add to the Table
+	 * @param valueC: the value for the pair of keys to add to the Table
+	 */
+	public void add(int keyA, int keyB, C valueC)
+	{
+		IntMap<C> mapsA = getOrCreate(keyA);
+		if(!mapsA.containsKey(keyB))
+			size++;
+		mapsA.put(keyB, valueC);
+	}
+	
+	/**
+	 * Adds the value for the given keys to the Table
+	 * unless there is already a value for them
+	 * @param keyA: the first level key to add to the Table
+	 * @param keyB: the second level key to add to the Table
+	 * @param valueC: the value for the pair of keys to add to the Table
+	 */
+	public void addIgnore(int keyA, int keyB, C valueC)
+	{
+		IntMap<C> mapsA = getOrCreate(keyA);
+		if(!mapsA.containsKey(keyB))
+		{
+			mapsA.put(keyB, valueC);
+			size++;
+		}
+	}
+	
+	/**
+	 * Adds the value for the given keys to the Table
+	 * unless there is already a greater value for them
+	 * @param keyA: the first level key to add to the Table
+	 * @param keyB: the second level key to add to the Table
+	 * @param valueC: the value for the pair of keys to add to the Table
+	 */
+	public void addUpgrade(int keyA, int keyB, C valueC)
+	{
+		IntMap<C> mapsA = getOrCreate(keyA);
+		C old = mapsA.get(keyB);
+		if(old == null)
+		{
+			mapsA.put(keyB, valueC);
+			size++;
+		}
+		else if(old.compareTo(valueC) < 0)
+			mapsA.put(keyB, valueC);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return whether the Table contains the first level keyA
+	 */
+	public boolean contains(int keyA)
+	{
+		return multimap.containsKey(keyA);
+	}
+
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @return whether the Table contains an entry with the two keys
+	 */
+	public boolean contains(int keyA, int keyB)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		return mapsA != null && mapsA.containsKey(keyB);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @param valueC: the value to search in the Table
+	 * @return whether the Table contains an entry with the two keys
+	 * and the given value
+	 */
+	public boolean contains(int keyA, int keyB, C valueC)
+	{
+		C value = get(keyA, keyB);
+		return value != null && value.equals(valueC);
+	}
+
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the number of entries with keyA
+	 */
+	public int entryCount(int keyA)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return 0;
+		return mapsA.size();
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param valueC: the value to search in the Table
+	 * @return the number of entries with keyA that have valueC
+	 */
+	public int entryCount(int keyA, C valueC)
+	{
+		return getMatchingKeys(keyA, valueC).size();
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the IntMap with all entries for keyA
+	 */
+	public IntMap<C> get(int keyA)
+	{
+		return multimap.get(keyA);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @return the value for the entry with the two keys or null
+	 * if no such entry exists
+	 */	
+	public C get(int keyA, int keyB)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return null;
+		return mapsA.get(keyB);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the second level key with the maximum value for keyA
+	 * or null if there are no entries for keyA
+	 */
+	public Integer getKeyMaximum(int keyA)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null || mapsA.size() == 0)
+			return null;
+		Integer max = null;
+		C maxVal = null;
+		for(Integer b : mapsA.keySet())
+		{
+			C value = mapsA.get(b);
+			if(max == null || value.compareTo(maxVal) > 0)
+			{
+				maxVal = value;
+				max = b;
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param valueC: the value to search in the Table
+	 * @return the list of second level keys in entries with keyA and valueC
+	 */	
+	public Vector<Integer> getMatchingKeys(int keyA, C valueC)
+	{
+		Vector<Integer> keysB = new Vector<Integer>(0,1);
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return keysB;
+		for(Integer b : mapsA.keySet())
+			if(mapsA.get(b).equals(valueC))
+				keysB.add(b);
+		return keysB;
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the maximum value in entries with keyA
+	 * or null if there are no entries for keyA
+	 */
+	public C getMaximumValue(int keyA)
+	{
+		Integer max = getKeyMaximum(keyA);
+		if(max == null)
+			return null;
+		return multimap.get(keyA).get(max);
+	}
+	
+	/**
+	 * @return the set of first level keys in the Table
+	 */
+	public Set<Integer> keySet()
+	{
+		return multimap.keySet();
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the set of second level keys in all entries with keyA
+	 */
+	public Set<Integer> keySet(int keyA)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return null;
+		return mapsA.keySet();
+	}
+	
+	/**
+	 * @return the number of first level keys in the Table
+	 */
+	public int keyCount()
+	{
+		return multimap.size();
+	}
+	
+	/**
+	 * Removes all entries for the given first level key
+	 * @param keyA: the key to remove from the Table
+	 */
+	public void remove(int keyA)
+	{
+		IntMap<C> mapsA = multimap.remove(keyA);
+		if(mapsA != null)
+			size -= mapsA.size();
+	}
+	
+	/**
+	 * Removes the entry for the given key pair
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to remove from the Table
+	 */
+	public void remove(int keyA, int keyB)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA != null && mapsA.remove(keyB) != null)
+			size--;
+	}
+	
+	/**
+	 * @return the total number of entries in the Table
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+//Private Methods
+	
+	private IntMap<C> getOrCreate(int keyA)
+	{
+		IntMap<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+		{
+			mapsA = new IntMap<C>();
+			multimap.put(keyA, mapsA);
+		}
+		return mapsA;
+	}
+}
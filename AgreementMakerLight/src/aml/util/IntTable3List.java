@@ -0,0 +1,227 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A table with three columns and primitive int keys, represented by an IntMap *
+* of IntTable2Lists. Has the same API as a Table3List<Integer,Integer,C>.     *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+public class IntTable3List<C extends Comparable<C>>
+{
+
+//Attributes
+	
+	private IntMap<IntTable2List<C>> multimap;
+	private int size;
+	
+//Constructors
+
+	/**
+	 * Constructs a new empty Table
+	 */
+	public IntTable3List()
+	{
+		multimap = new IntMap<IntTable2List<C>>();
+		size = 0;
+	}
+	
+	/**
+	 * Constructs a new Table that is a copy of
+	 * the given Table
+	 * @param m: the Table to copy
+	 */
+	public IntTable3List(IntTable3List<C> m)
+	{
+		multimap = new IntMap<IntTable2List<C>>(m.keyCount());
+		size = m.size;
+		Set<Integer> keys = m.keySet();
+		for(int a : keys)
+			multimap.put(a, new IntTable2List<C>(m.get(a)));
+	}
+
+//Public Methods
+	
+	/**
+	 * Adds the value for the given keys to the Table
+	 * @param keyA: the first level key to add to the Table
+	 * @param keyB: the second level key to add to the Table
+	 * @param valueC: the value for the pair of keys to add to the Table
+	 */
+	public void add(int keyA, int keyB, C valueC)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+		{
+			mapsA = new IntTable2List<C>();
+			multimap.put(keyA, mapsA);
+		}
+		int count = mapsA.size();
+		mapsA.add(keyB, valueC);
+		size += mapsA.size() - count;
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return whether the Table contains the first level keyA
+	 */
+	public boolean contains(int keyA)
+	{
+		return multimap.containsKey(keyA);
+	}
+
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @return whether the Table contains an entry with the two keys
+	 */
+	public boolean contains(int keyA, int keyB)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		return mapsA != null && mapsA.contains(keyB);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @param valueC: the value to search in the Table
+	 * @return whether the Table contains an entry with the two keys
+	 * and the given value
+	 */
+	public boolean contains(int keyA, int keyB, C valueC)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		return mapsA != null && mapsA.contains(keyB, valueC);
+	}
+
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the number of entries with keyA
+	 */
+	public int entryCount(int keyA)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return 0;
+		return mapsA.size();
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the IntTable2List with all entries for keyA
+	 */
+	public IntTable2List<C> get(int keyA)
+	{
+		return multimap.get(keyA);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to search in the Table
+	 * @return the values for the entry with the two keys or null
+	 * if no such entry exists
+	 */	
+	public List<C> get(int keyA, int keyB)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return null;
+		return mapsA.get(keyB);
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @param valueC: the value to search in the Table
+	 * @return the list of second level keys in entries with keyA and valueC
+	 */	
+	public Vector<Integer> getMatchingKeys(int keyA, C valueC)
+	{
+		Vector<Integer> keysB = new Vector<Integer>(0,1);
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return keysB;
+		Set<Integer> setA = mapsA.keySet();
+		for(Integer b : setA)
+			if(mapsA.get(b).contains(valueC))
+				keysB.add(b);
+		return keysB;
+	}
+	
+	/**
+	 * @return the set of first level keys in the Table
+	 */
+	public Set<Integer> keySet()
+	{
+		return multimap.keySet();
+	}
+	
+	/**
+	 * @param keyA: the first level key to search in the Table
+	 * @return the set of second level keys in all entries with keyA
+	 */
+	public Set<Integer> keySet(int keyA)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA == null)
+			return null;
+		return mapsA.keySet();
+	}
+	
+	/**
+	 * @return the number of first level keys in the Table
+	 */
+	public int keyCount()
+	{
+		return multimap.size();
+	}
+	
+	/**
+	 * Removes all entries for the given first level key
+	 * @param keyA: the key to remove from the Table
+	 */
+	public void remove(int keyA)
+	{
+		IntTable2List<C> mapsA = multimap.remove(keyA);
+		if(mapsA != null)
+			size -= mapsA.size();
+	}
+	
+	/**
+	 * Removes the entry for the given key pair
+	 * @param keyA: the first level key to search in the Table
+	 * @param keyB: the second level key to remove from the Table
+	 */
+	public void remove(int keyA, int keyB)
+	{
+		IntTable2List<C> mapsA = multimap.get(keyA);
+		if(mapsA != null)
+		{
+			size -= mapsA.entryCount(keyB);
+			mapsA.remove(keyB);
+		}
+	}
+	
+	/**
+	 * @return the total number of entries in the Table
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
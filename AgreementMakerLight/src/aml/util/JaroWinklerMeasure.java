@@ -0,0 +1,119 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The Jaro-Winkler String similarity measure. Computes the same (float)       *
+* values as the simmetrics implementation, but on reusable character buffers. *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+public class JaroWinklerMeasure implements StringSimilarityMeasure
+{
+
+//Attributes
+	
+	//Maximum length of the common prefix rewarded by the Winkler adjustment
+	private static final int PREFIX_LENGTH = 6;
+	private static final float PREFIX_SCALE = 0.1f;
+	//Per-thread buffers for the common characters and the copy of the
+	//String being searched
+	private final ThreadLocal<char[][]> buffers = new ThreadLocal<char[][]>()
+	{
+		@Override
+		protected char[][] initialValue()
+		{
+			return new char[3][64];
+		}
+	};
+	
+//Public Methods
+	
+	@Override
+	public String getName()
+	{
+		return "Jaro-Winkler";
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2)
+	{
+		float jaro = jaro(s1, s2);
+		int prefix = 0;
+		int n = Math.min(PREFIX_LENGTH, Math.min(s1.length(), s2.length()));
+		while(prefix < n && s1.charAt(prefix) == s2.charAt(prefix))
+			prefix++;
+		return jaro + ((float)prefix * PREFIX_SCALE * (1.0f - jaro));
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2, double min)
+	{
+		double sim = getSimilarity(s1, s2);
+		if(sim < min)
+			return 0;
+		return sim;
+	}
+	
+//Private Methods
+	
+	private float jaro(String s1, String s2)
+	{
+		int l1 = s1.length(), l2 = s2.length();
+		//Characters are common if they are no further apart than this
+		int halfLength = Math.min(l1, l2) / 2 + 1;
+		char[][] b = buffers.get();
+		int size = Math.max(l1, l2);
+		if(b[0].length < size)
+		{
+			size = Math.max(size, 2 * b[0].length);
+			b = new char[][]{new char[size], new char[size], new char[size]};
+			buffers.set(b);
+		}
+		int c1 = commonCharacters(s1, s2, halfLength, b[0], b[2]);
+		int c2 = commonCharacters(s2, s1, halfLength, b[1], b[2]);
+		if(c1 == 0 || c2 == 0 || c1 != c2)
+			return 0.0f;
+		int transpositions = 0;
+		for(int i = 0; i < c1; i++)
+			if(b[0][i] != b[1][i])
+				transpositions++;
+		transpositions = (int)(transpositions / 2.0f);
+		return (c1 / ((float)l1) + c2 / ((float)l2) + (c1 - transpositions) / ((float)c1)) / 3.0f;
+	}
+	
+	//Writes the characters of s1 that have a match in s2 within the given
+	//distance into common, using copy as scratch space, and returns their number
+	private static int commonCharacters(String s1, String s2, int distance, char[] common, char[] copy)
+	{
+		int l2 = s2.length();
+		s2.getChars(0, l2, copy, 0);
+		int count = 0;
+		for(int i = 0; i < s1.length(); i++)
+		{
+			char c = s1.charAt(i);
+			int end = Math.min(i + distance, l2);
+			for(int j = Math.max(0, i - distance); j < end; j++)
+			{
+				if(copy[j] == c)
+				{
+					common[count++] = c;
+					copy[j] = (char)0;
+					break;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -23,7 +23,9 @@ package aml.util;
 
 import java.util.HashSet;
 
+import aml.AML;
 import aml.knowledge.WordNet;
+import aml.ontology.NameDictionary.WordScope;
 
 public class NameSimilarity
 {
@@ -52,31 +54,11 @@ public class NameSimilarity
 		if(n1.equals(n2))
 			return 1.0;
 		
-		//Split the source name into words
-		String[] sW = n1.split(" ");
-		HashSet<String> sWords = new HashSet<String>();
-		HashSet<String> sSyns = new HashSet<String>();
-		for(String w : sW)
-		{
-			sWords.add(w);
-			sSyns.add(w);
-			//And compute the WordNet synonyms of each word
-			if(wn != null && w.length() > 2)
-				sSyns.addAll(wn.getAllNounWordForms(w));
-		}
-		
-		//Split the target name into words
-		String[] tW = n2.split(" ");
-		HashSet<String> tWords = new HashSet<String>();
-		HashSet<String> tSyns = new HashSet<String>();		
-		for(String w : tW)
-		{
-			tWords.add(w);
-			tSyns.add(w);
-			//And compute the WordNet synonyms of each word
-			if(wn != null && w.length() > 3)
-				tSyns.addAll(wn.getAllWordForms(w));
-		}
+		//Get the words of the names from the NameDictionary (in a WordScope,
+		//as they may be data values rather than names)
+		WordScope words = AML.getInstance().getNameDictionary().newWordScope();
+		int[] sWords = words.getWordSet(n1);
+		int[] tWords = words.getWordSet(n2);
 		
 		//Compute the Jaccard word similarity between the properties
 		double wordSim = Similarity.jaccard(sWords,tWords)*0.9;
@@ -86,6 +68,23 @@ public class NameSimilarity
 		double sim = 1 - ((1-wordSim) * (1-simString));
 		if(wn != null)
 		{
+			//Compute the WordNet synonyms of each word
+			HashSet<String> sSyns = new HashSet<String>();
+			for(int i : sWords)
+			{
+				String w = words.getWord(i);
+				sSyns.add(w);
+				if(w.length() > 2)
+					sSyns.addAll(wn.getAllNounWordForms(w));
+			}
+			HashSet<String> tSyns = new HashSet<String>();
+			for(int i : tWords)
+			{
+				String w = words.getWord(i);
+				tSyns.add(w);
+				if(w.length() > 3)
+					tSyns.addAll(wn.getAllWordForms(w));
+			}
 			//Check if the WordNet similarity
 			double wordNetSim = Similarity.jaccard(sSyns,tSyns);
 			//Is greater than the name similarity
@@ -0,0 +1,120 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The Q-gram String similarity measure, over the trigrams of each String      *
+* padded with two '#' on each side. Computes the same (float) values as the   *
+* simmetrics implementation, but on reusable arrays of trigrams packed into   *
+* longs.                                                                      *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.Arrays;
+
+public class QGramMeasure implements StringSimilarityMeasure
+{
+
+//Attributes
+	
+	private static final char PADDING = '#';
+	//Per-thread arrays of the trigrams of each String
+	private final ThreadLocal<long[][]> grams = new ThreadLocal<long[][]>()
+	{
+		@Override
+		protected long[][] initialValue()
+		{
+			return new long[2][64];
+		}
+	};
+	
+//Public Methods
+	
+	@Override
+	public String getName()
+	{
+		return "Q-gram";
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2)
+	{
+		return getSimilarity(s1, s2, 0);
+	}
+	
+	@Override
+	public double getSimilarity(String s1, String s2, double min)
+	{
+		//Each String has two trigrams more than characters
+		int n1 = s1.length() + 2, n2 = s2.length() + 2;
+		int total = n1 + n2;
+		//The distance is at least the difference in number of trigrams
+		if(similarity(Math.abs(n1 - n2), total) < min)
+			return 0;
+		long[][] g = grams.get();
+		int size = Math.max(n1, n2);
+		if(g[0].length < size)
+		{
+			size = Math.max(size, 2 * g[0].length);
+			g = new long[2][size];
+			grams.set(g);
+		}
+		trigrams(s1, g[0]);
+		trigrams(s2, g[1]);
+		Arrays.sort(g[0], 0, n1);
+		Arrays.sort(g[1], 0, n2);
+		//The distance is the number of trigrams not shared by both Strings
+		int shared = 0;
+		for(int i = 0, j = 0; i < n1 && j < n2;)
+		{
+			if(g[0][i] < g[1][j])
+				i++;
+			else if(g[0][i] > g[1][j])
+				j++;
+			else
+			{
+				shared++;
+				i++;
+				j++;
+			}
+		}
+		double sim = similarity(total - 2 * shared, total);
+		if(sim < min)
+			return 0;
+		return sim;
+	}
+	
+//Private Methods
+	
+	private static float similarity(int distance, int total)
+	{
+		return ((float)total - (float)distance) / (float)total;
+	}
+	
+	//Packs the trigrams of the padded String into the given array
+	private static void trigrams(String s, long[] g)
+	{
+		int n = s.length() + 2;
+		for(int i = 0; i < n; i++)
+			g[i] = ((long)charAt(s, i - 2) << 32) | ((long)charAt(s, i - 1) << 16) | charAt(s, i);
+	}
+	
+	//Gets a character of the String, or the padding outside of it
+	private static char charAt(String s, int i)
+	{
+		if(i < 0 || i >= s.length())
+			return PADDING;
+		return s.charAt(i);
+	}
+}
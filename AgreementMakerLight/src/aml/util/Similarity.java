@@ -46,4 +46,32 @@ public class Similarity
 		union += c2.size();
 		return intersection/union;
 	}
+	
+	/**
+	 * Computes the Jaccard similarity between two sets of ints
+	 * @param s1: the first set, as an array of distinct ints in ascending order 
+	 * @param s2: the second set, as an array of distinct ints in ascending order
+	 * @return the Jaccard similarity between s1 and s2
+	 */
+	public static double jaccard(int[] s1, int[] s2)
+	{
+		if(s1.length == 0 || s2.length == 0)
+			return 0.0;
+		double intersection = 0.0;
+		for(int i = 0, j = 0; i < s1.length && j < s2.length;)
+		{
+			if(s1[i] < s2[j])
+				i++;
+			else if(s1[i] > s2[j])
+				j++;
+			else
+			{
+				intersection++;
+				i++;
+				j++;
+			}
+		}
+		double union = s1.length - intersection + s2.length;
+		return intersection/union;
+	}
 }
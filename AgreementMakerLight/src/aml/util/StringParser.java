@@ -24,15 +24,77 @@
 ******************************************************************************/
 package aml.util;
 
+import java.util.regex.Pattern;
+
 public class StringParser
 {
 
+//Attributes
+	
+	//The codes replaced in names and their word equivalents
+	//(only the first three are replaced in property names)
+	private static final String[] CODES = {"&amp", "&apos;", "&nbsp;", "(+)", "(-)"};
+	private static final String[] CODE_WORDS = {"and", "'", " ", "positive", "negative"};
+	//The accented characters that are kept in names
+	private static final String ACCENTED = "ÁÀÂÄÉÈÊËÍÌÎÏÓÒÔÖÚÙÛÜÇÑáàâãäéèêëíìîïóòôõöúùûüçñ";
+	//The patterns for classifying names, which are compiled only once
+	private static final Pattern THREE_LETTERS = Pattern.compile(".*[a-zA-Z]{3,}.*");
+	private static final Pattern LOWER_UPPER = Pattern.compile("[a-z]+[A-Z]+");
+	private static final Pattern THREE_LETTERS_NON_LETTERS = Pattern.compile("[a-zA-Z]{3}[^a-zA-Z]+");
+	private static final Pattern THREE_LETTERS_NUMBER = Pattern.compile("[a-zA-Z]{3}[ _][0-9]{1,3}");
+	private static final Pattern UPPER_DIGITS_DASHES = Pattern.compile("[A-Z0-9/\\\\-]+");
+	private static final Pattern UPPER = Pattern.compile("[A-Z]+");
+	private static final Pattern START_DIGIT_DASH_WORD = Pattern.compile("[0-9]{1,2}'?-[a-zA-Z]{3,}.*");
+	private static final Pattern DIGIT_DASH_WORD = Pattern.compile(".*[ ,\\-][0-9]{1,2}'?\\)?-[a-zA-Z]{3,}.*");
+	private static final Pattern[] NUMERIC_IDS = {
+		//just digits
+		Pattern.compile("[0-9]*"),
+		//digits with an intervening separator
+		Pattern.compile("[0-9]+[_:\\.\\-][0-9]+"),
+		//a single letter
+		Pattern.compile("[a-zA-Z]{1}"),
+		//a single letter followed by digits
+		Pattern.compile("[a-zA-Z]{1}[0-9]{1,3}"),
+		//letter+digit+underscore+digits
+		Pattern.compile("[a-zA-Z]{1}[0-9]{1}[_:][0-9]{1,}"),
+		//letter+underscore+digits&letters
+		Pattern.compile("[a-zA-Z]{1}[_:][a-zA-Z0-9]{6,}"),
+		//OBO Foundry style (e.g., "GO:000001")
+		Pattern.compile("[a-zA-Z]{2,}[_:][0-9\\.]{4,}"),
+		//akin to OBO Foundry style (e.g., "C_A00001")
+		Pattern.compile("[a-zA-Z]+[_:]?[a-zA-Z]?[0-9\\.]{5,}"),
+		//simple letters-dash-numbers-dash-numbers pattern
+		Pattern.compile("[a-zA-Z]{1,3}-[0-9]{3,}-[0-9]{3,}"),
+		//specific letters-and-numbers separated by dashes pattern
+		Pattern.compile("[a-z0-9]{8}-[a-z0-9]{4}-[a-z0-9]{4}-[a-z0-9]{4}-[a-z0-9]{12}"),
+		//another specific letters-and-numbers separated by dashes pattern
+		Pattern.compile("sid-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}")
+	};
+	
 //Constructors
 	
 	private StringParser(){}
 	
 //Public Methods
 
+	/**
+	 * @param s: the String to analyze
+	 * @return whether the String contains a Latin letter and no line
+	 * breaks (i.e., whether it matches ".*[a-zA-Z].*")
+	 */
+	public static boolean containsLetter(String s)
+	{
+		boolean letter = false;
+		for(int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if(isLineTerminator(c))
+				return false;
+			letter = letter || isLetter(c);
+		}
+		return letter;
+	}
+	
 	/**
 	 * @param name: the name to analyze
 	 * @return whether the name is formula (i.e., not normal text)
@@ -42,19 +104,19 @@ public class StringParser
 		//A name is a formula if:
 		return
 			//It doesn't contain at least 3 contiguous letters
-			!name.matches(".*[a-zA-Z]{3,}.*") ||
+			!THREE_LETTERS.matcher(name).matches() ||
 			//It is composed by a block of lower case letters followed by only upper case letters
-			name.matches("[a-z]+[A-Z]+") ||
+			LOWER_UPPER.matcher(name).matches() ||
 			//It is composed by a block of 3 contiguous letters followed by only non-letters
 			//except if the non-letters consist of a separator followed by only 1-3 digits
-			(name.matches("[a-zA-Z]{3}[^a-zA-Z]+") && !name.matches("[a-zA-Z]{3}[ _][0-9]{1,3}")) ||
+			(THREE_LETTERS_NON_LETTERS.matcher(name).matches() && !THREE_LETTERS_NUMBER.matcher(name).matches()) ||
 			//It contains only upper case letters, numbers and dashes but not just upper case letters 
-			(name.matches("[A-Z0-9/\\\\-]+") && !name.matches("[A-Z]+")) ||
+			(UPPER_DIGITS_DASHES.matcher(name).matches() && !UPPER.matcher(name).matches()) ||
 			//It starts with a digit-dash-word sequence
-			name.matches("[0-9]{1,2}'?-[a-zA-Z]{3,}.*") ||
+			START_DIGIT_DASH_WORD.matcher(name).matches() ||
 			//or contains a digit-dash-word sequence preceded by a space, comma or dash
 			//with possibly a bracket or apostrophe in between
-			name.matches(".*[ ,\\-][0-9]{1,2}'?\\)?-[a-zA-Z]{3,}.*");
+			DIGIT_DASH_WORD.matcher(name).matches();
 	}
 	
 	/**
@@ -63,28 +125,10 @@ public class StringParser
 	 */
 	public static boolean isNumericId(String name)
 	{
-		//just digits
-		return name.matches("[0-9]*")
-			//digits with an intervening separator
-			|| name.matches("[0-9]+[_:\\.\\-][0-9]+")
-			//a single letter
-			|| name.matches("[a-zA-Z]{1}")
-			//a single letter followed by digits
-			|| name.matches("[a-zA-Z]{1}[0-9]{1,3}")
-			//letter+digit+underscore+digits
-			|| name.matches("[a-zA-Z]{1}[0-9]{1}[_:][0-9]{1,}")
-			//letter+underscore+digits&letters
-			|| name.matches("[a-zA-Z]{1}[_:][a-zA-Z0-9]{6,}")
-			//OBO Foundry style (e.g., "GO:000001")
-			|| name.matches("[a-zA-Z]{2,}[_:][0-9\\.]{4,}")
-			//akin to OBO Foundry style (e.g., "C_A00001")
-			|| name.matches("[a-zA-Z]+[_:]?[a-zA-Z]?[0-9\\.]{5,}")
-			//simple letters-dash-numbers-dash-numbers pattern
-			|| name.matches("[a-zA-Z]{1,3}-[0-9]{3,}-[0-9]{3,}")
-			//specific letters-and-numbers separated by dashes pattern
-			|| name.matches("[a-z0-9]{8}-[a-z0-9]{4}-[a-z0-9]{4}-[a-z0-9]{4}-[a-z0-9]{12}")
-			//another specific letters-and-numbers separated by dashes pattern
-			|| name.matches("sid-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}-[a-zA-Z0-9]{4,}");
+		for(Pattern p : NUMERIC_IDS)
+			if(p.matcher(name).matches())
+				return true;
+		return false;
 	}
 
 	/**
@@ -94,11 +138,12 @@ public class StringParser
 	public static String normalizeFormula(String formula)
 	{
 		//Formulas are parsed to lower case and stripped of
-		//underscores but otherwise unprocessed
-		String parsed = formula;
-		parsed = parsed.toLowerCase();
-		parsed = parsed.replace("_"," ");
-		parsed = parsed.replaceAll("\\s"," ");
+		//underscores (and other white spaces) but otherwise unprocessed
+		char[] chars = formula.toLowerCase().toCharArray();
+		for(int i = 0; i < chars.length; i++)
+			if(chars[i] == '_' || isWhitespace(chars[i]))
+				chars[i] = ' ';
+		String parsed = new String(chars);
 		//The only exception is that if a formula closes brackets
 		//before opening brackets (which happens in NCI) we correct
 		//it by opening brackets at the start
@@ -115,21 +160,10 @@ public class StringParser
 	 */
 	public static String normalizeName(String name)
 	{
-		//First replace codes with their word equivalents 
-		String parsed = name.replace("&amp","and");
-		parsed = parsed.replace("&apos;","'");
-		parsed = parsed.replace("&nbsp;"," ");
-		parsed = parsed.replace("(+)","positive");
-		parsed = parsed.replace("(-)","negative");
-		
-		//Then replace all non-word characters with white spaces
-		//except for apostrophes and brackets
-		parsed = parsed.replaceAll(" *[^a-zA-Z0-9'()ÁÀÂÄÉÈÊËÍÌÎÏÓÒÔÖÚÙÛÜÇÑáàâãäéèêëíìîïóòôõöúùûüçñ] *"," ");
-		
-		//Then remove multiple, leading and trailing spaces
-		parsed = parsed.replaceAll(" {2,}"," ");
-		parsed = parsed.trim();
-		
+		//Replace codes with their word equivalents, replace all non-word
+		//characters except for apostrophes and brackets with white spaces
+		//and remove multiple, leading and trailing spaces
+		String parsed = replaceNonWords(name,false);
 		//Then normalize the case changes and return the result
 		parsed = normalizeCaseChanges(parsed,false);
 		return parsed;
@@ -141,20 +175,10 @@ public class StringParser
 	 */
 	public static String normalizeProperty(String name)
 	{
-		//First replace codes with their word equivalents 
-		String parsed = name.replace("&amp","and");
-		parsed = parsed.replace("&apos;","'");
-		parsed = parsed.replace("&nbsp;"," ");
-		//Remove dashes
-		parsed = parsed.replaceAll("-","");
-		//Then replace all other non-word characters with white spaces
-		//except for apostrophes and brackets
-		parsed = parsed.replaceAll(" *[^a-zA-Z0-9'()] *"," ");
-		
-		//Then remove multiple, leading and trailing spaces
-		parsed = parsed.replaceAll(" {2,}"," ");
-		parsed = parsed.trim();
-		
+		//Replace codes with their word equivalents, remove dashes, replace all
+		//other non-word characters except for apostrophes and brackets with
+		//white spaces and remove multiple, leading and trailing spaces
+		String parsed = replaceNonWords(name,true);
 		//Then normalize the case changes and return the result
 		parsed = normalizeCaseChanges(parsed,true);
 		return parsed;
@@ -162,14 +186,55 @@ public class StringParser
 
 //Private Methods
 	
+	//Checks whether a character is a Latin letter
+	private static boolean isLetter(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+	
+	//Checks whether a character is a line terminator (which the regex
+	//wildcard doesn't match)
+	private static boolean isLineTerminator(char c)
+	{
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+	
+	//Checks whether a character is a white space (as matched by the regex \s)
+	private static boolean isWhitespace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+	
+	//Checks whether a character is kept in names (or property names)
+	private static boolean isWordChar(char c, boolean accents)
+	{
+		return isLetter(c) || (c >= '0' && c <= '9') || c == '\'' || c == '(' || c == ')' ||
+				(accents && ACCENTED.indexOf(c) > -1);
+	}
+	
 	private static String normalizeCaseChanges(String name, boolean allChanges)
 	{
 		//If the name contains no within word case changes
-		if(!name.matches(".*[a-z][A-Z].*"))
+		boolean caseChange = false;
+		for(int i = 0; i < name.length(); i++)
+		{
+			char c = name.charAt(i);
+			if(isLineTerminator(c))
+			{
+				caseChange = false;
+				break;
+			}
+			if(!caseChange && i > 0 && c >= 'A' && c <= 'Z')
+			{
+				char d = name.charAt(i-1);
+				caseChange = d >= 'a' && d <= 'z';
+			}
+		}
+		if(!caseChange)
 			//Just convert it to lower case and return it
 			return name.toLowerCase();
 		//Otherwise initialize the String to return
-		String parsed = "";
+		StringBuilder parsed = new StringBuilder(name.length() + 8);
 		//Then split the name into words (by space)
 		String[] words = name.split(" ");
 		//And run through each word
@@ -199,12 +264,59 @@ public class StringParser
 			}
 			if(useSubWords)
 				for(String s : subwords)
-					parsed += " " + s;
+					parsed.append(' ').append(s);
 			else
-				parsed += " " + w.toLowerCase();
+				parsed.append(' ').append(w.toLowerCase());
 		}
-		parsed = parsed.substring(1);
-		return parsed;
+		return parsed.substring(1);
+	}
+	
+	//Replaces the HTML codes (and, in names, the (+) and (-) signs) with
+	//their word equivalents, removes dashes (in property names), and replaces
+	//each run of other non-word characters with a single white space, except
+	//at the start and end of the name, all in a single pass
+	private static String replaceNonWords(String name, boolean property)
+	{
+		int codes = CODES.length;
+		if(property)
+			codes = 3;
+		StringBuilder parsed = new StringBuilder(name.length());
+		//Whether there is a white space to add before the next word character
+		boolean space = false;
+		for(int i = 0; i < name.length(); i++)
+		{
+			char c = name.charAt(i);
+			if(c == '-' && property)
+				continue;
+			int code = -1;
+			if(c == '&' || c == '(')
+				for(int j = 0; j < codes && code == -1; j++)
+					if(name.startsWith(CODES[j], i))
+						code = j;
+			if(code > -1)
+			{
+				i += CODES[code].length() - 1;
+				if(CODE_WORDS[code].equals(" "))
+				{
+					space = true;
+					continue;
+				}
+				if(space && parsed.length() > 0)
+					parsed.append(' ');
+				space = false;
+				parsed.append(CODE_WORDS[code]);
+			}
+			else if(isWordChar(c,!property))
+			{
+				if(space && parsed.length() > 0)
+					parsed.append(' ');
+				space = false;
+				parsed.append(c);
+			}
+			else
+				space = true;
+		}
+		return parsed.toString();
 	}
 
 	private static String[] splitOnCaseChanges(String s)
@@ -213,18 +325,19 @@ public class StringParser
 		char[] chars = s.toCharArray();
 		int max = chars.length-1;
 		//Initialize the parsed String with the first character
-		String parsed = "" + Character.toLowerCase(chars[0]);
+		StringBuilder parsed = new StringBuilder(chars.length + 4);
+		parsed.append(Character.toLowerCase(chars[0]));
 		//Run through the input String
 		for(int i = 1 ; i < max; i++)
 		{	
-			parsed += Character.toLowerCase(chars[i]);
+			parsed.append(Character.toLowerCase(chars[i]));
 			//If the next character is upper case
 			if(Character.isLowerCase(chars[i]) && Character.isUpperCase(chars[i+1]))
-				parsed += " ";
+				parsed.append(' ');
 		}
 		if(max > 0)
-			parsed += "" + Character.toLowerCase(chars[max]);
-		String[] words = parsed.split(" ");
+			parsed.append(Character.toLowerCase(chars[max]));
+		String[] words = parsed.toString().split(" ");
 		return words;		
 	}
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* A String similarity measure, for use by the StringMatcher. Implementations  *
+* must be thread-safe, as a single instance is shared by all matching         *
+* threads, and can be made available to the matchers by registering them in   *
+* StringSimilarityMeasures.                                                   *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+public interface StringSimilarityMeasure
+{
+	/**
+	 * @return the name of this measure
+	 */
+	public String getName();
+	
+	/**
+	 * Computes the similarity between two Strings
+	 * @param s1: the first String to compare
+	 * @param s2: the second String to compare
+	 * @return the similarity between s1 and s2, between 0 and 1
+	 */
+	public double getSimilarity(String s1, String s2);
+	
+	/**
+	 * Computes the similarity between two Strings, giving up as soon as
+	 * it can no longer reach the given minimum
+	 * @param s1: the first String to compare
+	 * @param s2: the second String to compare
+	 * @param min: the minimum similarity of interest
+	 * @return the similarity between s1 and s2 if it is at least min,
+	 * or 0 otherwise
+	 */
+	public double getSimilarity(String s1, String s2, double min);
+}
@@ -0,0 +1,79 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* Registry of the String similarity measures available to the matchers, by    *
+* name. The ISub, Levenshtein, Jaro-Winkler and Q-gram measures listed in     *
+* StringSimMeasure are registered by default, and new measures can be added   *
+* with register().                                                            *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class StringSimilarityMeasures
+{
+
+//Attributes
+	
+	//The registered measures, by lower case name
+	private static final LinkedHashMap<String,StringSimilarityMeasure> measures = new LinkedHashMap<String,StringSimilarityMeasure>();
+	static
+	{
+		register(new ISubMeasure());
+		register(new EditMeasure());
+		register(new JaroWinklerMeasure());
+		register(new QGramMeasure());
+	}
+	
+//Constructors
+	
+	private StringSimilarityMeasures(){}
+	
+//Public Methods
+	
+	/**
+	 * @param name: the name of the measure to get
+	 * @return the measure registered with the given name (case insensitive)
+	 * or null if there is no such measure
+	 */
+	public static synchronized StringSimilarityMeasure get(String name)
+	{
+		return measures.get(name.toLowerCase());
+	}
+	
+	/**
+	 * @return the names of the registered measures, in registration order
+	 */
+	public static synchronized Set<String> getNames()
+	{
+		LinkedHashSet<String> names = new LinkedHashSet<String>();
+		for(StringSimilarityMeasure m : measures.values())
+			names.add(m.getName());
+		return names;
+	}
+	
+	/**
+	 * Registers a measure under its own name, replacing any measure
+	 * previously registered with that name
+	 * @param m: the measure to register
+	 */
+	public static synchronized void register(StringSimilarityMeasure m)
+	{
+		measures.put(m.getName().toLowerCase(), m);
+	}
+}
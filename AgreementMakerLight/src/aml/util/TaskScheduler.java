@@ -0,0 +1,187 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The AML-wide task scheduler, which runs the parallel tasks of all matchers  *
+* and filters on a single long-lived work-stealing thread pool, so that       *
+* threads are reused across matching steps. It supports cancellation of the   *
+* pending tasks and exposes queue-depth and active-task metrics.              *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TaskScheduler
+{
+
+//Attributes
+	
+	//The work-stealing thread pool
+	private ForkJoinPool pool;
+	//The tasks that were submitted and are not yet finished
+	private Set<Future<?>> pending;
+	//The number of tasks finished (including cancelled tasks)
+	private AtomicLong finished;
+	
+//Constructors
+	
+	/**
+	 * Constructs a new TaskScheduler with the given parallelism
+	 * @param parallelism: the number of worker threads to use
+	 */
+	public TaskScheduler(int parallelism)
+	{
+		pool = new ForkJoinPool(Math.max(1, parallelism));
+		pending = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>,Boolean>());
+		finished = new AtomicLong(0);
+	}
+	
+//Public Methods
+	
+	/**
+	 * Cancels all pending tasks, interrupting those that are running
+	 */
+	public void cancelAll()
+	{
+		for(Future<?> f : pending)
+			f.cancel(true);
+	}
+	
+	/**
+	 * @return the number of worker threads currently running tasks
+	 */
+	public int getActiveTaskCount()
+	{
+		return pool.getActiveThreadCount();
+	}
+	
+	/**
+	 * @return the number of tasks finished since this TaskScheduler
+	 * was created
+	 */
+	public long getFinishedTaskCount()
+	{
+		return finished.get();
+	}
+	
+	/**
+	 * @return the number of worker threads of this TaskScheduler
+	 */
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+	
+	/**
+	 * @return the number of tasks that were submitted and are
+	 * not yet finished (either queued or running)
+	 */
+	public int getPendingTaskCount()
+	{
+		return pending.size();
+	}
+	
+	/**
+	 * @return the number of tasks waiting in the queues of the
+	 * thread pool to be executed
+	 */
+	public long getQueueDepth()
+	{
+		return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+	}
+	
+	/**
+	 * Executes the given tasks and waits until all of them are finished.
+	 * If the calling thread is interrupted while waiting, the tasks that
+	 * are still pending are cancelled.
+	 * @param tasks: the tasks to execute
+	 * @return the list of Futures of the tasks, in the same order
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException
+	{
+		ArrayList<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+		for(Callable<T> c : tasks)
+			futures.add(submit(c));
+		try
+		{
+			for(Future<T> f : futures)
+			{
+				try
+				{
+					f.get();
+				}
+				catch(ExecutionException e)
+				{
+					//Reported when the caller gets the result
+				}
+				catch(CancellationException e)
+				{
+					//Idem
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			for(Future<T> f : futures)
+				f.cancel(true);
+			throw e;
+		}
+		return futures;
+	}
+	
+	/**
+	 * Stops the worker threads of this TaskScheduler, cancelling
+	 * all pending tasks
+	 */
+	public void shutdown()
+	{
+		cancelAll();
+		pool.shutdownNow();
+	}
+	
+	/**
+	 * Submits a task for execution
+	 * @param task: the task to execute
+	 * @return the Future of the task
+	 */
+	public <T> Future<T> submit(Callable<T> task)
+	{
+		FutureTask<T> f = new FutureTask<T>(task)
+		{
+			@Override
+			protected void done()
+			{
+				pending.remove(this);
+				finished.incrementAndGet();
+			}
+		};
+		pending.add(f);
+		pool.execute(f);
+		return f;
+	}
+}
@@ -0,0 +1,67 @@
+/******************************************************************************
+* Copyright 2013-2016 LASIGE                                                  *
+*                                                                             *
+* Licensed under the Apache License, Version 2.0 (the "License"); you may     *
+* not use this file except in compliance with the License. You may obtain a   *
+* copy of the License at http://www.apache.org/licenses/LICENSE-2.0           *
+*                                                                             *
+* Unless required by applicable law or agreed to in writing, software         *
+* distributed under the License is distributed on an "AS IS" BASIS,           *
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.    *
+* See the License for the specific language governing permissions and         *
+* limitations under the License.                                              *
+*                                                                             *
+*******************************************************************************
+* The raw labels of the anatomy ontologies in the AML store (all annotation   *
+* literals and entity IRI fragments), which the differential tests of the     *
+* string utilities use as a realistic corpus.                                 *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import java.io.File;
+import java.util.Vector;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+class AnatomyLabels
+{
+
+//Attributes
+	
+	private static final String[] ONTOLOGIES = {"store/anatomy/mouse.owl", "store/anatomy/human.owl"};
+	
+//Constructors
+	
+	private AnatomyLabels(){}
+	
+//Public Methods
+	
+	/**
+	 * @return the raw labels of the anatomy ontologies, as they are read
+	 * @throws OWLOntologyCreationException if unable to load an ontology
+	 */
+	public static Vector<String> get() throws OWLOntologyCreationException
+	{
+		Vector<String> labels = new Vector<String>();
+		for(String path : ONTOLOGIES)
+		{
+			OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+			OWLOntology o = manager.loadOntologyFromOntologyDocument(new File(path));
+			for(OWLAnnotationAssertionAxiom a : o.getAxioms(AxiomType.ANNOTATION_ASSERTION))
+				if(a.getValue() instanceof OWLLiteral)
+					labels.add(((OWLLiteral)a.getValue()).getLiteral());
+			for(OWLEntity e : o.getSignature())
+				labels.add(e.getIRI().getFragment() == null ? e.getIRI().toString() : e.getIRI().getFragment());
+		}
+		return labels;
+	}
+}
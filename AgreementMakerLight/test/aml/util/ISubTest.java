@@ -0,0 +1,258 @@
+/******************************************************************************
+* Copyright 2004-2016 by the National and Technical University of Athens      *
+*                                                                             *
+* This program is free software: you can redistribute it and/or modify it     *
+* under the terms of the GNU Lesser General Public License as published by    *
+* the Free Software Foundation, either version 2 of the License, or (at your  *
+* option) any later version.                                                  *
+*                                                                             *
+* This program is distributed in the hope that it will be useful, but         *
+* WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY  *
+* or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public      *
+* License for more details.                                                   *
+*                                                                             *
+* You should have received a copy of the GNU Lesser General Public License    *
+* along with this program. If not, see <http://www.gnu.org/licenses/>.        *
+*                                                                             *
+*******************************************************************************
+* Randomized test of ISub against its original implementation (kept verbatim  *
+* below as StringISub): both overloads must give bit-identical results on     *
+* random strings, on random variants of them, and on pairs of anatomy names,  *
+* with the threshold overload tested right at, above and below each exact     *
+* similarity.                                                                 *
+*                                                                             *
+* @author Daniel Faria                                                        *
+******************************************************************************/
+package aml.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ISubTest
+{
+
+//Attributes
+	
+	//The seed and number of pairs of each kind, so that all runs test the same pairs
+	private static final long SEED = 42;
+	private static final int RANDOM_PAIRS = 100000;
+	private static final int VARIANT_PAIRS = 100000;
+	private static final int NAME_PAIRS = 100000;
+	private static final int MAX_LENGTH = 30;
+	//A small alphabet, so that random strings share substrings of all lengths
+	private static final String ALPHABET = "abcde ";
+	//Fixed thresholds, as used by the matchers
+	private static final double[] THRESHOLDS = {0.1, 0.5, 0.6, 0.7, 0.75, 0.8, 0.9, 0.95, 1.0};
+	//The test pairs
+	private static Vector<String> first;
+	private static Vector<String> second;
+	
+//Public Methods
+	
+	@BeforeClass
+	public static void setup() throws Exception
+	{
+		Random rnd = new Random(SEED);
+		first = new Vector<String>();
+		second = new Vector<String>();
+		//Random strings
+		for(int i = 0; i < RANDOM_PAIRS; i++)
+		{
+			first.add(randomString(rnd));
+			second.add(randomString(rnd));
+		}
+		//Random strings and variants of them with a few random edits
+		for(int i = 0; i < VARIANT_PAIRS; i++)
+		{
+			String s = randomString(rnd);
+			StringBuilder t = new StringBuilder(s);
+			int edits = rnd.nextInt(4);
+			for(int j = 0; j < edits; j++)
+			{
+				int pos = rnd.nextInt(t.length() + 1);
+				char c = ALPHABET.charAt(rnd.nextInt(ALPHABET.length()));
+				int op = rnd.nextInt(3);
+				if(op == 0 || pos == t.length())
+					t.insert(pos, c);
+				else if(op == 1)
+					t.setCharAt(pos, c);
+				else
+					t.deleteCharAt(pos);
+			}
+			first.add(s);
+			second.add(t.toString());
+		}
+		//Random pairs of normalized anatomy names
+		HashSet<String> names = new HashSet<String>();
+		for(String l : AnatomyLabels.get())
+			names.add(StringParser.normalizeName(l));
+		Vector<String> n = new Vector<String>(names);
+		for(int i = 0; i < NAME_PAIRS; i++)
+		{
+			first.add(n.get(rnd.nextInt(n.size())));
+			second.add(n.get(rnd.nextInt(n.size())));
+		}
+	}
+	
+	@Test
+	public void stringSimilarity()
+	{
+		for(int i = 0; i < first.size(); i++)
+		{
+			String s = first.get(i), t = second.get(i);
+			assertSame(s + " | " + t, StringISub.stringSimilarity(s, t), ISub.stringSimilarity(s, t));
+		}
+	}
+	
+	@Test
+	public void stringSimilarityThreshold()
+	{
+		Random rnd = new Random(SEED);
+		for(int i = 0; i < first.size(); i++)
+		{
+			String s = first.get(i), t = second.get(i);
+			double sim = StringISub.stringSimilarity(s, t);
+			//The thresholds at which the early exit is most likely to
+			//go wrong are those right at and around the exact similarity
+			double[] thresholds = {sim, Math.nextUp(sim), Math.nextAfter(sim, Double.NEGATIVE_INFINITY),
+				sim + 1e-10, sim - 1e-10, rnd.nextDouble(), 0, -1};
+			for(double thresh : thresholds)
+				assertThreshold(s, t, sim, thresh);
+			for(double thresh : THRESHOLDS)
+				assertThreshold(s, t, sim, thresh);
+		}
+	}
+	
+//Private Methods
+	
+	private static void assertSame(String message, double expected, double actual)
+	{
+		assertEquals(message, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+	}
+	
+	private static void assertThreshold(String s, String t, double sim, double thresh)
+	{
+		double expected = (thresh > 0 && sim < thresh) ? 0 : sim;
+		assertSame(s + " | " + t + " @ " + thresh, expected, ISub.stringSimilarity(s, t, thresh));
+	}
+	
+	private static String randomString(Random rnd)
+	{
+		int length = rnd.nextInt(MAX_LENGTH);
+		StringBuilder s = new StringBuilder(length);
+		for(int i = 0; i < length; i++)
+			s.append(ALPHABET.charAt(rnd.nextInt(ALPHABET.length())));
+		return s.toString();
+	}
+	
+	//The original implementation of ISub
+	private static class StringISub
+	{
+		public static double stringSimilarity(String st1, String st2)
+		{
+			String s1 = st1, s2 = st2;
+			if(s1 == null || s2 == null)
+				return 0;
+			int L1 = s1.length(), L2 = s2.length();
+			if(L1 == 0 || L2 == 0)
+				return 0;
+			int l1, l2;
+			double common = 0;
+			int best = 2;
+			while (s1.length() > 0 && s2.length() > 0 && best != 0)
+			{
+				best = 0;
+				l1 = s1.length();
+				l2 = s2.length();
+				int i = 0, j = 0;
+				int startS1 = 0, endS1 = 0;
+				int startS2 = 0, endS2 = 0;
+				int p = 0;
+				for(i = 0; (i < l1) && (l1 - i > best); i++)
+				{
+					j = 0;
+					while (l2 - j > best)
+					{
+						int k = i;
+						while(j < l2 && s1.charAt(k) != s2.charAt(j))
+							j++;
+						if(j != l2)
+						{
+							p = j;
+							for(j++, k ++; (j < l2) && (k < l1) && (s1.charAt(k) == s2.charAt(j)); j++, k++);
+							if(k - i > best)
+							{
+								best = k - i;
+								startS1 = i;
+								endS1 = k;
+								startS2 = p;
+								endS2 = j;
+							}
+						}
+					}
+				}
+				char[] newString = new char[s1.length() - (endS1 - startS1)];
+				j = 0;
+				for(i = 0; i < s1.length(); i++)
+				{
+					if(i >= startS1 && i < endS1)
+						continue;
+					newString[j++] = s1.charAt(i);
+				}
+				s1 = new String(newString);
+				newString = new char[s2.length() - (endS2 - startS2)];
+				j = 0;
+				for(i = 0; i < s2.length(); i++)
+				{
+					if(i >= startS2 && i < endS2)
+						continue;
+					newString[j++] = s2.charAt(i);
+				}
+				s2 = new String(newString);
+				if(best > 2)
+					common += best;
+				else
+					best = 0;
+			}
+			double commonality = 0;
+			double scaledCommon = (double) (2 * common) / (L1 + L2);
+			commonality = scaledCommon;
+			double winklerImprovement = winklerImprovement(st1, st2, commonality);
+			double dissimilarity = 0;
+			double rest1 = L1 - common;
+			double rest2 = L2 - common;
+			double unmatchedS1 = Math.max(rest1, 0);
+			double unmatchedS2 = Math.max(rest2, 0);
+			unmatchedS1 = rest1 / L1;
+			unmatchedS2 = rest2 / L2;
+			double suma = unmatchedS1 + unmatchedS2;
+			double product = unmatchedS1 * unmatchedS2;
+			double p = 0.6;
+			if((suma - product) == 0)
+				dissimilarity = 0;
+			else
+				dissimilarity = (product) / (p + (1 - p) * (suma - product));
+			double result = commonality - dissimilarity + winklerImprovement; 
+			if(result < 0)
+				result = 0;
+			return result;
+		}
+
+		private static double winklerImprovement(String s1, String s2, double commonality)
+		{
+			int i, n = Math.min(s1.length(), s2.length());
+			for(i = 0; i < n; i++)
+				if(s1.charAt(i) != s2.charAt(i))
+					break;
+			double commonPrefixLength = Math.min(4, i);
+			double winkler = commonPrefixLength * 0.1 * (1 - commonality);
+			return winkler;
+		}
+	}
+}